@@ -31,6 +31,9 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    buildFeatures {
+        buildConfig = true
+    }
 }
 
 dependencies {
@@ -40,6 +43,8 @@ dependencies {
     implementation(libs.constraintlayout)
     implementation(libs.media3.ui)
     implementation(libs.media3.exoplayer)
+    implementation(libs.media3.datasource)
+    implementation(libs.media3.database)
     testImplementation(libs.junit)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
@@ -62,6 +67,8 @@ dependencies {
 
     // 分页加载
     implementation("androidx.paging:paging-runtime:3.2.1")
+    implementation("androidx.paging:paging-guava:3.2.1")
+    implementation("com.google.guava:guava:32.1.3-android")
 
     // 网络请求
     implementation("com.squareup.retrofit2:retrofit:2.9.0")
@@ -0,0 +1,31 @@
+package com.example.douyinline;
+
+import android.app.Application;
+import android.os.Looper;
+
+import com.example.douyinline.ui.video.PlayerPool;
+
+/**
+ * 应用入口
+ * 启动完成后预热进程内共用的播放器池，内存紧张时释放空闲的播放器
+ */
+public class DouyinLineApplication extends Application {
+    private static final String TAG = "DouyinLineApplication";
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // 等主线程第一次空闲（首页绘制完成）后再开始预热，不占用启动时间
+        Looper.myQueue().addIdleHandler(() -> {
+            android.util.Log.d(TAG, "开始预热播放器池");
+            PlayerPool.getShared(this).warmUp();
+            return false;
+        });
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        PlayerPool.getShared(this).onTrimMemory(level);
+    }
+}
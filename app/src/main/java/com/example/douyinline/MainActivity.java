@@ -9,6 +9,7 @@ import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentTransaction;
 
+import com.example.douyinline.repository.VideoRepository;
 import com.example.douyinline.ui.friends.FriendsFragment;
 import com.example.douyinline.ui.home.HomeFragment;
 import com.example.douyinline.ui.me.MeFragment;
@@ -27,6 +28,9 @@ public class MainActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        // 后台流式加载视频池，首页数据解析出来后即可展示
+        VideoRepository.getInstance().init(this);
+
         // 初始化Fragment页面
         initFragment();
 
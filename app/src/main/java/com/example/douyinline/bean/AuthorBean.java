@@ -1,29 +1,29 @@
 package com.example.douyinline.bean;
 
-import java.io.Serializable;
+/**
+ * 作者实体，不可变
+ * 同一个作者在视频和评论之间共享同一个实例，由 AuthorRegistry 统一创建
+ */
+public class AuthorBean {
+    private final long authorId;
+    private final String authorName;
+    private final int authorAvatar;
 
-public class AuthorBean implements Serializable {
-    private String authorName;
-    private int authorAvatar;
-
-    public AuthorBean(String authorName, int authorAvatar) {
+    public AuthorBean(long authorId, String authorName, int authorAvatar) {
+        this.authorId = authorId;
         this.authorName = authorName;
         this.authorAvatar = authorAvatar;
     }
 
-    public int getAuthorAvatar() {
-        return authorAvatar;
+    public long getAuthorId() {
+        return authorId;
     }
 
-    public void setAuthorAvatar(int authorAvatar) {
-        this.authorAvatar = authorAvatar;
+    public int getAuthorAvatar() {
+        return authorAvatar;
     }
 
     public String getAuthorName() {
         return authorName;
     }
-
-    public void setAuthorName(String authorName) {
-        this.authorName = authorName;
-    }
 }
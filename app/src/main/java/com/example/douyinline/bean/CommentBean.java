@@ -1,8 +1,6 @@
 package com.example.douyinline.bean;
 
-import java.io.Serializable;
-
-public class CommentBean implements Serializable {
+public class CommentBean {
     private String commentContent;
     private AuthorBean authorBean;
     private String commentTime;
@@ -0,0 +1,37 @@
+package com.example.douyinline.bean;
+
+/**
+ * 推荐流条目
+ * 同一个视频在推荐流的不同轮次中会重复出现，条目ID由轮次和视频ID组成，
+ * 在一次推荐会话中唯一，用于列表差异计算
+ */
+public class FeedEntry {
+    // 视频ID占用的低位数，视频ID需要小于 2^40
+    private static final int VIDEO_ID_BITS = 40;
+    private static final long VIDEO_ID_MASK = (1L << VIDEO_ID_BITS) - 1;
+
+    private final long entryId;
+    private final VideoBean video;
+
+    public FeedEntry(int round, VideoBean video) {
+        this.entryId = ((long) round << VIDEO_ID_BITS) | video.getVideoId();
+        this.video = video;
+    }
+
+    public long getEntryId() {
+        return entryId;
+    }
+
+    public VideoBean getVideo() {
+        return video;
+    }
+
+    /**
+     * 从条目ID中取出视频ID
+     * @param entryId 条目ID
+     * @return 视频ID
+     */
+    public static long videoIdOf(long entryId) {
+        return entryId & VIDEO_ID_MASK;
+    }
+}
@@ -1,35 +1,29 @@
 package com.example.douyinline.bean;
 
-import java.io.Serializable;
-
 /**
  * 视频类
+ * 点赞、评论、分享、收藏等互动计数统一存放在 VideoCounterStore 中，按视频ID读取
  */
-public class VideoBean implements Serializable {
+public class VideoBean {
+    private long videoId;
     private int coverResourceId;
     private int videoResourceId;
     private String title;
-    private int likeCount;
-    private int commentCount;
-    private int shareCount;
-    private int collectCount;
-
-    private boolean isLiked = false;
-    private boolean isCollected = false;
 
     private AuthorBean authorDetail;
 
-    public VideoBean(int coverResourceId, int videoResourceId, String title, int likeCount, int commentCount, int shareCount, int collectCount, AuthorBean authorDetail) {
+    public VideoBean(long videoId, int coverResourceId, int videoResourceId, String title, AuthorBean authorDetail) {
+        this.videoId = videoId;
         this.coverResourceId = coverResourceId;
         this.videoResourceId = videoResourceId;
         this.title = title;
-        this.likeCount = likeCount;
-        this.commentCount = commentCount;
-        this.shareCount = shareCount;
-        this.collectCount = collectCount;
         this.authorDetail = authorDetail;
     }
 
+    public long getVideoId() {
+        return videoId;
+    }
+
     public AuthorBean getAuthorDetail() {
         return authorDetail;
     }
@@ -61,52 +55,4 @@ public class VideoBean implements Serializable {
     public void setTitle(String title) {
         this.title = title;
     }
-
-    public int getLikeCount() {
-        return likeCount;
-    }
-
-    public void setLikeCount(int likeCount) {
-        this.likeCount = likeCount;
-    }
-
-    public int getCommentCount() {
-        return commentCount;
-    }
-
-    public void setCommentCount(int commentCount) {
-        this.commentCount = commentCount;
-    }
-
-    public int getShareCount() {
-        return shareCount;
-    }
-
-    public void setShareCount(int shareCount) {
-        this.shareCount = shareCount;
-    }
-
-    public int getCollectCount() {
-        return collectCount;
-    }
-
-    public void setCollectCount(int collectCount) {
-        this.collectCount = collectCount;
-    }
-
-    public boolean isLiked() {
-        return isLiked;
-    }
-
-    public void setLiked(boolean liked) {
-        isLiked = liked;
-    }
-
-    public boolean isCollected() {
-        return isCollected;
-    }
-
-    public void setCollected(boolean collected) {
-        isCollected = collected;
-    }
 }
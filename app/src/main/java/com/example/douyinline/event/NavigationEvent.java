@@ -4,6 +4,9 @@ package com.example.douyinline.event;
 public class NavigationEvent {
     private int position;
     private int coverResId;  // 封面资源 ID，用于转场动画
+    // 视频ID和视频资源 ID，用于查找已经提取的首帧
+    private long videoId;
+    private int videoResId;
 
     public NavigationEvent(int position) {
         this.position = position;
@@ -15,6 +18,13 @@ public class NavigationEvent {
         this.coverResId = coverResId;
     }
 
+    public NavigationEvent(int position, int coverResId, long videoId, int videoResId) {
+        this.position = position;
+        this.coverResId = coverResId;
+        this.videoId = videoId;
+        this.videoResId = videoResId;
+    }
+
     public int getPosition() {
         return position;
     }
@@ -22,4 +32,12 @@ public class NavigationEvent {
     public int getCoverResId() {
         return coverResId;
     }
+
+    public long getVideoId() {
+        return videoId;
+    }
+
+    public int getVideoResId() {
+        return videoResId;
+    }
 }
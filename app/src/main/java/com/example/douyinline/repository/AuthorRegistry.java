@@ -0,0 +1,63 @@
+package com.example.douyinline.repository;
+
+import com.example.douyinline.bean.AuthorBean;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 作者注册表（单例）
+ * 按作者ID驻留 AuthorBean，视频和评论引用同一个实例，
+ * 作者对象的数量只和作者数有关，不随视频和评论的数量增长
+ * 线程安全，解析线程和主线程都可以调用
+ */
+public class AuthorRegistry {
+    private static volatile AuthorRegistry INSTANCE;
+
+    private final ConcurrentHashMap<Long, AuthorBean> authors = new ConcurrentHashMap<>();
+
+    AuthorRegistry() {
+    }
+
+    public static AuthorRegistry getInstance() {
+        if (INSTANCE == null) {
+            synchronized (AuthorRegistry.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new AuthorRegistry();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * 获取驻留的作者实例，不存在时用给定的信息创建
+     * 已存在时直接返回旧实例，不会被新的名称和头像覆盖
+     * @param authorId 作者ID
+     * @param authorName 作者名称
+     * @param authorAvatar 作者头像资源ID
+     * @return 共享的作者实例
+     */
+    public AuthorBean intern(long authorId, String authorName, int authorAvatar) {
+        AuthorBean author = authors.get(authorId);
+        if (author != null) {
+            return author;
+        }
+        return authors.computeIfAbsent(authorId, id -> new AuthorBean(id, authorName, authorAvatar));
+    }
+
+    /**
+     * 根据作者ID获取作者
+     * @param authorId 作者ID
+     * @return 作者实例，未注册时返回 null
+     */
+    public AuthorBean findAuthorById(long authorId) {
+        return authors.get(authorId);
+    }
+
+    /**
+     * 已注册的作者数量
+     */
+    public int size() {
+        return authors.size();
+    }
+}
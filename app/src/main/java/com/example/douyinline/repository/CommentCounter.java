@@ -0,0 +1,47 @@
+package com.example.douyinline.repository;
+
+/**
+ * 评论弹窗中一个视频的评论总数
+ * 计数存储中登记过的视频直接读写存储；进程被回收后重建弹窗时，存储可能还没有从快照或视频流恢复，
+ * 这时使用打开弹窗时参数里带的评论数，存储登记了该视频之后再切换回存储
+ * 不依赖 Android
+ */
+public class CommentCounter {
+    private final VideoCounterStore store;
+    private final long videoId;
+    // 存储中还没有该视频时使用的评论数
+    private int fallbackCount;
+
+    /**
+     * @param videoId 视频ID
+     * @param fallbackCount 打开弹窗时的评论数
+     */
+    public CommentCounter(VideoCounterStore store, long videoId, int fallbackCount) {
+        this.store = store;
+        this.videoId = videoId;
+        this.fallbackCount = Math.max(0, fallbackCount);
+    }
+
+    public long getVideoId() {
+        return videoId;
+    }
+
+    /**
+     * @return 当前评论总数
+     */
+    public int get() {
+        synchronized (store) {
+            return store.ordinalOf(videoId) == -1 ? fallbackCount : store.getCommentCount(videoId);
+        }
+    }
+
+    /**
+     * 发送评论后加一
+     * @return 加一后的评论总数
+     */
+    public int increment() {
+        synchronized (store) {
+            return store.ordinalOf(videoId) == -1 ? ++fallbackCount : store.incrementCommentCount(videoId);
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.example.douyinline.repository;
+
+import com.example.douyinline.bean.AuthorBean;
+import com.example.douyinline.bean.VideoBean;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 本地推荐排序引擎
+ * 根据点赞、评论、分享、收藏热度以及用户自己对作者的互动给候选视频打分，
+ * 分数最高的 topK 个候选保存在小顶堆中，其余候选保存在大顶堆中，
+ * 单个视频的分数变化只需要 O(log n) 调整堆，不需要重新排序整个候选池
+ * 候选按加入顺序编号，线程安全
+ */
+public class FeedRanker {
+    // 各项互动的权重，计数取 ln(1 + x) 抑制头部视频的绝对数量优势
+    private static final double LIKE_WEIGHT = 1.0;
+    private static final double COMMENT_WEIGHT = 2.0;
+    private static final double SHARE_WEIGHT = 3.0;
+    private static final double COLLECT_WEIGHT = 2.5;
+    // 用户点赞、收藏过同一作者的视频后，该作者其他视频的加分权重
+    private static final double AUTHOR_AFFINITY_WEIGHT = 4.0;
+
+    private static final byte IN_TOP = 1;
+    private static final byte IN_REST = 2;
+
+    private final int topK;
+    private final VideoCounterStore counterStore;
+
+    // 候选列，按候选编号存放
+    private VideoBean[] videos = new VideoBean[16];
+    private double[] scores = new double[16];
+    // 候选所在的堆和堆内位置
+    private byte[] location = new byte[16];
+    private int[] heapPosition = new int[16];
+    // 用户对该候选的互动数（点赞 + 收藏）
+    private byte[] userInteractions = new byte[16];
+    // 作者槽位，以及同一作者候选组成的链表
+    private int[] authorSlotOf = new int[16];
+    private int[] nextByAuthor = new int[16];
+    private int size = 0;
+    private final Map<Long, Integer> candidateByVideoId = new HashMap<>();
+
+    private final Map<Long, Integer> authorSlotById = new HashMap<>();
+    private int[] authorAffinity = new int[16];
+    private int[] authorHead = new int[16];
+    private int authorCount = 0;
+
+    // 分数最高的 topK 个候选，小顶堆
+    private int[] top;
+    private int topSize = 0;
+    // 其余候选，大顶堆
+    private int[] rest = new int[16];
+    private int restSize = 0;
+    // topPage 使用的临时数组
+    private final int[] scratch;
+
+    /**
+     * @param topK 增量维护的最高分候选数，topPage 一次最多返回这么多条
+     * @param counterStore 互动计数来源
+     */
+    public FeedRanker(int topK, VideoCounterStore counterStore) {
+        if (topK <= 0) {
+            throw new IllegalArgumentException("topK 必须大于 0: " + topK);
+        }
+        this.topK = topK;
+        this.counterStore = counterStore;
+        this.top = new int[topK];
+        this.scratch = new int[topK];
+    }
+
+    /**
+     * 加入候选视频，已经加入过的视频只重新打分
+     * @return 候选编号
+     */
+    public synchronized int addCandidate(VideoBean video) {
+        Integer existing = candidateByVideoId.get(video.getVideoId());
+        if (existing != null) {
+            rescore(existing);
+            return existing;
+        }
+        ensureCapacity(size + 1);
+        int candidate = size++;
+        videos[candidate] = video;
+        candidateByVideoId.put(video.getVideoId(), candidate);
+
+        AuthorBean author = video.getAuthorDetail();
+        int slot = authorSlot(author != null ? author.getAuthorId() : 0);
+        authorSlotOf[candidate] = slot;
+        nextByAuthor[candidate] = authorHead[slot];
+        authorHead[slot] = candidate;
+
+        long videoId = video.getVideoId();
+        int interactions = (counterStore.isLiked(videoId) ? 1 : 0) + (counterStore.isCollected(videoId) ? 1 : 0);
+        userInteractions[candidate] = (byte) interactions;
+        if (interactions > 0) {
+            addAffinity(slot, interactions);
+        }
+        scores[candidate] = computeScore(candidate);
+        restPush(candidate);
+        rebalance();
+        return candidate;
+    }
+
+    /**
+     * 视频的互动计数或用户互动状态变化后调用，只调整受影响的候选
+     * 用户互动变化时，同一作者的其他候选也会重新打分
+     */
+    public synchronized void onInteraction(long videoId) {
+        Integer candidate = candidateByVideoId.get(videoId);
+        if (candidate == null) {
+            return;
+        }
+        int interactions = (counterStore.isLiked(videoId) ? 1 : 0) + (counterStore.isCollected(videoId) ? 1 : 0);
+        int delta = interactions - userInteractions[candidate];
+        userInteractions[candidate] = (byte) interactions;
+        if (delta != 0) {
+            addAffinity(authorSlotOf[candidate], delta);
+        } else {
+            rescore(candidate);
+        }
+    }
+
+    /**
+     * 按分数从高到低取出最多 count 个候选编号，不会移除候选
+     * @param count 条数，不超过 topK
+     * @param out 输出数组
+     * @return 实际条数
+     */
+    public synchronized int topPage(int count, int[] out) {
+        int n = Math.min(Math.min(count, topK), topSize);
+        System.arraycopy(top, 0, scratch, 0, topSize);
+        // 小顶堆内最多 topK 个元素，部分选择排序即可
+        for (int i = 0; i < n; i++) {
+            int best = i;
+            for (int j = i + 1; j < topSize; j++) {
+                if (higher(scratch[j], scratch[best])) {
+                    best = j;
+                }
+            }
+            int tmp = scratch[i];
+            scratch[i] = scratch[best];
+            scratch[best] = tmp;
+            out[i] = scratch[i];
+        }
+        return n;
+    }
+
+    public synchronized VideoBean getCandidate(int candidate) {
+        return videos[candidate];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    synchronized double scoreOf(long videoId) {
+        Integer candidate = candidateByVideoId.get(videoId);
+        return candidate == null ? Double.NaN : scores[candidate];
+    }
+
+    private double computeScore(int candidate) {
+        long videoId = videos[candidate].getVideoId();
+        return LIKE_WEIGHT * Math.log1p(counterStore.getLikeCount(videoId))
+                + COMMENT_WEIGHT * Math.log1p(counterStore.getCommentCount(videoId))
+                + SHARE_WEIGHT * Math.log1p(counterStore.getShareCount(videoId))
+                + COLLECT_WEIGHT * Math.log1p(counterStore.getCollectCount(videoId))
+                + AUTHOR_AFFINITY_WEIGHT * Math.log1p(authorAffinity[authorSlotOf[candidate]]);
+    }
+
+    private void rescore(int candidate) {
+        double oldScore = scores[candidate];
+        double newScore = computeScore(candidate);
+        if (newScore == oldScore) {
+            return;
+        }
+        scores[candidate] = newScore;
+        int position = heapPosition[candidate];
+        if (location[candidate] == IN_TOP) {
+            if (newScore > oldScore) {
+                topSiftDown(position);
+            } else {
+                topSiftUp(position);
+            }
+        } else {
+            if (newScore > oldScore) {
+                restSiftUp(position);
+            } else {
+                restSiftDown(position);
+            }
+        }
+        rebalance();
+    }
+
+    /**
+     * 作者亲和度变化，重新给该作者的所有候选打分
+     */
+    private void addAffinity(int slot, int delta) {
+        authorAffinity[slot] = Math.max(0, authorAffinity[slot] + delta);
+        for (int candidate = authorHead[slot]; candidate != -1; candidate = nextByAuthor[candidate]) {
+            rescore(candidate);
+        }
+    }
+
+    private int authorSlot(long authorId) {
+        Integer slot = authorSlotById.get(authorId);
+        if (slot != null) {
+            return slot;
+        }
+        if (authorCount == authorHead.length) {
+            authorHead = Arrays.copyOf(authorHead, authorCount * 2);
+            authorAffinity = Arrays.copyOf(authorAffinity, authorCount * 2);
+        }
+        authorHead[authorCount] = -1;
+        authorSlotById.put(authorId, authorCount);
+        return authorCount++;
+    }
+
+    /**
+     * 保证小顶堆装满 topK 个候选，并且堆顶不低于大顶堆的堆顶
+     */
+    private void rebalance() {
+        while (topSize < topK && restSize > 0) {
+            topPush(restPop());
+        }
+        while (restSize > 0 && topSize > 0 && higher(rest[0], top[0])) {
+            int promoted = restPop();
+            int demoted = topPop();
+            topPush(promoted);
+            restPush(demoted);
+        }
+    }
+
+    /**
+     * 分数相同时编号小的优先，保证结果确定
+     */
+    private boolean higher(int a, int b) {
+        return scores[a] > scores[b] || (scores[a] == scores[b] && a < b);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= videos.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, videos.length * 2);
+        videos = Arrays.copyOf(videos, newCapacity);
+        scores = Arrays.copyOf(scores, newCapacity);
+        location = Arrays.copyOf(location, newCapacity);
+        heapPosition = Arrays.copyOf(heapPosition, newCapacity);
+        userInteractions = Arrays.copyOf(userInteractions, newCapacity);
+        authorSlotOf = Arrays.copyOf(authorSlotOf, newCapacity);
+        nextByAuthor = Arrays.copyOf(nextByAuthor, newCapacity);
+        rest = Arrays.copyOf(rest, newCapacity);
+    }
+
+    // ---------- 小顶堆：堆顶是前 topK 中分数最低的候选 ----------
+
+    private void topPush(int candidate) {
+        location[candidate] = IN_TOP;
+        top[topSize] = candidate;
+        heapPosition[candidate] = topSize;
+        topSiftUp(topSize++);
+    }
+
+    private int topPop() {
+        int head = top[0];
+        int last = top[--topSize];
+        if (topSize > 0) {
+            top[0] = last;
+            heapPosition[last] = 0;
+            topSiftDown(0);
+        }
+        return head;
+    }
+
+    private void topSiftUp(int position) {
+        int candidate = top[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!higher(top[parent], candidate)) {
+                break;
+            }
+            top[position] = top[parent];
+            heapPosition[top[position]] = position;
+            position = parent;
+        }
+        top[position] = candidate;
+        heapPosition[candidate] = position;
+    }
+
+    private void topSiftDown(int position) {
+        int candidate = top[position];
+        while (true) {
+            int child = position * 2 + 1;
+            if (child >= topSize) {
+                break;
+            }
+            if (child + 1 < topSize && higher(top[child], top[child + 1])) {
+                child++;
+            }
+            if (!higher(candidate, top[child])) {
+                break;
+            }
+            top[position] = top[child];
+            heapPosition[top[position]] = position;
+            position = child;
+        }
+        top[position] = candidate;
+        heapPosition[candidate] = position;
+    }
+
+    // ---------- 大顶堆：堆顶是其余候选中分数最高的候选 ----------
+
+    private void restPush(int candidate) {
+        location[candidate] = IN_REST;
+        rest[restSize] = candidate;
+        heapPosition[candidate] = restSize;
+        restSiftUp(restSize++);
+    }
+
+    private int restPop() {
+        int head = rest[0];
+        int last = rest[--restSize];
+        if (restSize > 0) {
+            rest[0] = last;
+            heapPosition[last] = 0;
+            restSiftDown(0);
+        }
+        return head;
+    }
+
+    private void restSiftUp(int position) {
+        int candidate = rest[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!higher(candidate, rest[parent])) {
+                break;
+            }
+            rest[position] = rest[parent];
+            heapPosition[rest[position]] = position;
+            position = parent;
+        }
+        rest[position] = candidate;
+        heapPosition[candidate] = position;
+    }
+
+    private void restSiftDown(int position) {
+        int candidate = rest[position];
+        while (true) {
+            int child = position * 2 + 1;
+            if (child >= restSize) {
+                break;
+            }
+            if (child + 1 < restSize && higher(rest[child + 1], rest[child])) {
+                child++;
+            }
+            if (!higher(rest[child], candidate)) {
+                break;
+            }
+            rest[position] = rest[child];
+            heapPosition[rest[position]] = position;
+            position = child;
+        }
+        rest[position] = candidate;
+        heapPosition[candidate] = position;
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.douyinline.repository;
+
+import java.util.Arrays;
+
+/**
+ * 推荐流乱序引擎
+ * 在复用的 int[] 上做带种子的 Fisher–Yates 乱序，同一个种子和轮次总是得到同一个顺序；
+ * 每轮开头的窗口内不会出现上一轮末尾窗口里的视频，避免两轮衔接处同一个视频挨着出现
+ * 除了视频池变大时扩容数组外不分配对象，非线程安全
+ */
+public class FeedShuffler {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    // 不重复窗口的最大长度，实际长度不超过视频池的三分之一
+    private final int noRepeatWindow;
+    // 当前轮次的顺序，前 poolSize 个有效
+    private int[] order = new int[0];
+    // 上一轮的原始顺序，只用到末尾窗口
+    private int[] previous = new int[0];
+    // 上一轮末尾窗口的标记，值等于 markStamp 表示在窗口内，避免每轮清零
+    private int[] marks = new int[0];
+    private int markStamp = 0;
+    private int poolSize = 0;
+    // SplitMix64 随机数状态
+    private long rngState;
+
+    /**
+     * @param noRepeatWindow 相邻两轮衔接处不重复的条数
+     */
+    public FeedShuffler(int noRepeatWindow) {
+        if (noRepeatWindow < 0) {
+            throw new IllegalArgumentException("noRepeatWindow 不能为负数: " + noRepeatWindow);
+        }
+        this.noRepeatWindow = noRepeatWindow;
+    }
+
+    /**
+     * 计算第 round 轮的顺序
+     * 上一轮末尾窗口由上一轮的原始乱序重新算出，修正只在中段交换，不会改动末尾窗口，
+     * 因此任意轮次都可以直接计算，不依赖之前的调用
+     * @param seed 会话种子
+     * @param round 轮次
+     * @param poolSize 视频池大小
+     */
+    public void shuffle(long seed, int round, int poolSize) {
+        ensureCapacity(poolSize);
+        this.poolSize = poolSize;
+        permute(order, poolSize, roundSeed(seed, round));
+        if (round > 0) {
+            int window = effectiveWindow(poolSize);
+            permute(previous, poolSize, roundSeed(seed, round - 1));
+            avoidRepeats(previous, poolSize - window, window);
+        }
+    }
+
+    /**
+     * 计算第 round 轮的顺序，上一轮不是由乱序得到时（例如冷启动按文件顺序展示）使用
+     * @param seed 会话种子
+     * @param round 轮次
+     * @param poolSize 视频池大小
+     * @param previousTail 上一轮末尾的视频池下标，按展示顺序排列
+     * @param tailLength previousTail 中的有效条数
+     */
+    public void shuffleAfter(long seed, int round, int poolSize, int[] previousTail, int tailLength) {
+        ensureCapacity(poolSize);
+        this.poolSize = poolSize;
+        permute(order, poolSize, roundSeed(seed, round));
+        int window = Math.min(effectiveWindow(poolSize), tailLength);
+        avoidRepeats(previousTail, tailLength - window, window);
+    }
+
+    /**
+     * 把指定的视频池下标按给定顺序移到当前轮次开头，其余视频保持原来的相对顺序
+     * @param poolIndices 视频池下标，不能重复
+     * @param count poolIndices 中的有效条数
+     */
+    public void moveToFront(int[] poolIndices, int count) {
+        if (++markStamp == 0) {
+            Arrays.fill(marks, 0);
+            markStamp = 1;
+        }
+        for (int k = 0; k < count; k++) {
+            marks[poolIndices[k]] = markStamp;
+        }
+        int write = poolSize - 1;
+        for (int read = poolSize - 1; read >= 0; read--) {
+            if (marks[order[read]] != markStamp) {
+                order[write--] = order[read];
+            }
+        }
+        System.arraycopy(poolIndices, 0, order, 0, count);
+    }
+
+    /**
+     * 把指定的视频池下标移到当前轮次末尾，前后两部分各自保持原来的相对顺序
+     * @param poolIndices 视频池下标，不能重复
+     * @param count poolIndices 中的有效条数
+     */
+    public void moveToBack(int[] poolIndices, int count) {
+        if (++markStamp == 0) {
+            Arrays.fill(marks, 0);
+            markStamp = 1;
+        }
+        for (int k = 0; k < count; k++) {
+            marks[poolIndices[k]] = markStamp;
+        }
+        // 借用 previous 暂存被移动的部分
+        int write = 0;
+        int moved = 0;
+        for (int read = 0; read < poolSize; read++) {
+            if (marks[order[read]] == markStamp) {
+                previous[moved++] = order[read];
+            } else {
+                order[write++] = order[read];
+            }
+        }
+        System.arraycopy(previous, 0, order, write, moved);
+    }
+
+    /**
+     * 获取当前轮次中指定位置的视频池下标
+     * @param position 轮内位置
+     */
+    public int get(int position) {
+        if (position < 0 || position >= poolSize) {
+            throw new IndexOutOfBoundsException("position=" + position + ", poolSize=" + poolSize);
+        }
+        return order[position];
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * 实际生效的不重复窗口
+     * 开头窗口与末尾窗口之间至少留出一个窗口长度的中段，修正时才一定能找到可交换的位置
+     */
+    int effectiveWindow(int poolSize) {
+        return Math.min(noRepeatWindow, poolSize / 3);
+    }
+
+    private void ensureCapacity(int poolSize) {
+        if (order.length < poolSize) {
+            int capacity = Math.max(poolSize, order.length * 2);
+            order = new int[capacity];
+            previous = new int[capacity];
+            marks = new int[capacity];
+            markStamp = 0;
+        }
+    }
+
+    /**
+     * 带种子的 Fisher–Yates 乱序，结果写入 target 的前 size 个位置
+     */
+    private void permute(int[] target, int size, long seed) {
+        for (int i = 0; i < size; i++) {
+            target[i] = i;
+        }
+        rngState = seed;
+        for (int i = size - 1; i > 0; i--) {
+            int j = nextInt(i + 1);
+            int tmp = target[i];
+            target[i] = target[j];
+            target[j] = tmp;
+        }
+    }
+
+    /**
+     * 把开头窗口内出现在上一轮末尾窗口的视频，依次与中段第一个不冲突的视频交换
+     * @param tail 上一轮顺序
+     * @param tailStart 末尾窗口在 tail 中的起始位置
+     * @param window 窗口长度
+     */
+    private void avoidRepeats(int[] tail, int tailStart, int window) {
+        if (window == 0) {
+            return;
+        }
+        if (++markStamp == 0) {
+            // 标记值溢出时重新清零
+            Arrays.fill(marks, 0);
+            markStamp = 1;
+        }
+        for (int k = 0; k < window; k++) {
+            marks[tail[tailStart + k]] = markStamp;
+        }
+        int candidate = window;
+        for (int i = 0; i < window; i++) {
+            if (marks[order[i]] != markStamp) {
+                continue;
+            }
+            while (marks[order[candidate]] == markStamp) {
+                candidate++;
+            }
+            int tmp = order[i];
+            order[i] = order[candidate];
+            order[candidate] = tmp;
+            candidate++;
+        }
+    }
+
+    private static long roundSeed(long seed, int round) {
+        return mix(seed + GOLDEN_GAMMA * (round + 1L));
+    }
+
+    /**
+     * [0, bound) 内的随机整数，乘法取高位代替取模，偏差不超过 bound / 2^32
+     */
+    private int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    private long nextLong() {
+        rngState += GOLDEN_GAMMA;
+        return mix(rngState);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
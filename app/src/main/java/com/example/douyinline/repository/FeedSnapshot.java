@@ -0,0 +1,190 @@
+package com.example.douyinline.repository;
+
+import com.example.douyinline.bean.AuthorBean;
+import com.example.douyinline.bean.VideoBean;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 推荐流二进制快照
+ * 保存最近一次刷新的首页数据和滚动位置，冷启动时通过内存映射直接读取，
+ * 不经过反射和 Serializable
+ *
+ * 文件格式（大端）：
+ * int 魔数 | short 格式版本 | long 构建标识 | int 滚动位置 | int 视频条数 | 视频 * N
+ * 视频：long id | int 封面 | int 视频 | int 点赞 | int 评论 | int 分享 | int 收藏 | byte 状态位
+ *       | 字符串 标题 | long 作者ID | 字符串 作者名 | int 作者头像
+ * 字符串：int 字节长度 | UTF-8 字节
+ */
+public final class FeedSnapshot {
+    private static final int MAGIC = 0x44594653;  // "DYFS"
+    private static final short FORMAT_VERSION = 2;
+    // 滚动位置在文件中的偏移，用于原地更新
+    private static final int SCROLL_POSITION_OFFSET = 4 + 2 + 8;
+    // 单条视频记录的最小字节数（两个字符串都为空时）
+    private static final int MIN_VIDEO_BYTES = 8 + 4 * 6 + 1 + 4 + 8 + 4 + 4;
+
+    private static final int FLAG_LIKED = 1;
+    private static final int FLAG_COLLECTED = 1 << 1;
+
+    private final int scrollPosition;
+    private final List<VideoBean> videos;
+
+    private FeedSnapshot(int scrollPosition, List<VideoBean> videos) {
+        this.scrollPosition = scrollPosition;
+        this.videos = videos;
+    }
+
+    public int getScrollPosition() {
+        return scrollPosition;
+    }
+
+    public List<VideoBean> getVideos() {
+        return videos;
+    }
+
+    /**
+     * 写入快照，先写临时文件再重命名，避免写到一半的文件被读到
+     * @param file 快照文件
+     * @param buildStamp 构建标识，资源ID只在同一次构建内有效
+     * @param scrollPosition 滚动位置
+     * @param videos 视频列表
+     * @param counterStore 视频的互动计数从这里读取
+     */
+    public static void write(File file, long buildStamp, int scrollPosition, List<VideoBean> videos,
+                             VideoCounterStore counterStore) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeLong(buildStamp);
+            out.writeInt(scrollPosition);
+            out.writeInt(videos.size());
+            for (VideoBean video : videos) {
+                long videoId = video.getVideoId();
+                out.writeLong(videoId);
+                out.writeInt(video.getCoverResourceId());
+                out.writeInt(video.getVideoResourceId());
+                out.writeInt(counterStore.getLikeCount(videoId));
+                out.writeInt(counterStore.getCommentCount(videoId));
+                out.writeInt(counterStore.getShareCount(videoId));
+                out.writeInt(counterStore.getCollectCount(videoId));
+                int flags = (counterStore.isLiked(videoId) ? FLAG_LIKED : 0)
+                        | (counterStore.isCollected(videoId) ? FLAG_COLLECTED : 0);
+                out.writeByte(flags);
+                writeString(out, video.getTitle());
+                AuthorBean author = video.getAuthorDetail();
+                out.writeLong(author == null ? 0 : author.getAuthorId());
+                writeString(out, author == null ? null : author.getAuthorName());
+                out.writeInt(author == null ? 0 : author.getAuthorAvatar());
+            }
+        }
+        if (!tmpFile.renameTo(file)) {
+            tmpFile.delete();
+            throw new IOException("快照重命名失败: " + file);
+        }
+    }
+
+    /**
+     * 读取快照
+     * @param file 快照文件
+     * @param buildStamp 当前构建标识
+     * @param counterStore 快照中的互动计数登记到这里
+     * @return 快照，文件不存在、版本不匹配或已损坏时返回 null
+     */
+    public static FeedSnapshot read(File file, long buildStamp, VideoCounterStore counterStore) throws IOException {
+        if (!file.exists() || file.length() == 0) {
+            return null;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getShort() != FORMAT_VERSION || buffer.getLong() != buildStamp) {
+                return null;
+            }
+            int scrollPosition = buffer.getInt();
+            int count = buffer.getInt();
+            if (count < 0 || count > buffer.remaining() / MIN_VIDEO_BYTES) {
+                return null;
+            }
+            List<VideoBean> videos = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                long videoId = buffer.getLong();
+                int coverResId = buffer.getInt();
+                int videoResId = buffer.getInt();
+                int likeCount = buffer.getInt();
+                int commentCount = buffer.getInt();
+                int shareCount = buffer.getInt();
+                int collectCount = buffer.getInt();
+                int flags = buffer.get();
+                String title = readString(buffer);
+                long authorId = buffer.getLong();
+                String authorName = readString(buffer);
+                int authorAvatar = buffer.getInt();
+                videos.add(new VideoBean(videoId, coverResId, videoResId, title,
+                        internAuthor(authorId, authorName, authorAvatar)));
+                counterStore.register(videoId, likeCount, commentCount, shareCount, collectCount,
+                        (flags & FLAG_LIKED) != 0, (flags & FLAG_COLLECTED) != 0);
+            }
+            return new FeedSnapshot(scrollPosition, Collections.unmodifiableList(videos));
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            // 文件被截断或内容损坏
+            return null;
+        }
+    }
+
+    /**
+     * 原地更新快照中的滚动位置，不重写视频数据
+     * @param file 快照文件
+     * @param scrollPosition 滚动位置
+     */
+    public static void updateScrollPosition(File file, int scrollPosition) throws IOException {
+        if (!file.exists() || file.length() < SCROLL_POSITION_OFFSET + 4) {
+            return;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SCROLL_POSITION_OFFSET + 4);
+            if (buffer.getInt(0) != MAGIC) {
+                return;
+            }
+            buffer.putInt(SCROLL_POSITION_OFFSET, scrollPosition);
+            buffer.force();
+        }
+    }
+
+    private static AuthorBean internAuthor(long authorId, String authorName, int authorAvatar) {
+        if (authorId == 0) {
+            return new AuthorBean(0, authorName, authorAvatar);
+        }
+        return AuthorRegistry.getInstance().intern(authorId, authorName, authorAvatar);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("字符串长度非法: " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
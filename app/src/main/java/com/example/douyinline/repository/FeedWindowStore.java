@@ -0,0 +1,198 @@
+package com.example.douyinline.repository;
+
+import com.example.douyinline.bean.FeedEntry;
+import com.example.douyinline.bean.VideoBean;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 滑动窗口视频流存储
+ * 1. 只为当前位置附近的视频保留完整的 VideoBean
+ * 2. 窗口外的视频只保留条目ID存根，保存在 long 数组中，每个位置 8 字节，
+ *    条目ID区分同一视频在推荐流不同轮次中的重复出现，列表差异按条目ID计算，
+ *    视频ID由条目ID的低位得到，封面等其余字段在还原时从视频池的对象读取
+ * 3. 滑回窗口内时通过 Hydrator 还原完整的视频对象
+ * 窗口只限制推荐流中每个位置持有的完整对象：存储本身的占用为窗口内的对象加上每个位置一条存根，
+ * 还原使用的完整对象来自仓库的视频池，每个视频只有一份，不随推荐流变长而增长
+ * 非线程安全，创建、填充和读取都在主线程进行
+ */
+public class FeedWindowStore extends AbstractList<VideoBean> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * 视频存根还原接口
+     */
+    public interface Hydrator {
+        VideoBean hydrate(long videoId);
+    }
+
+    private final int windowBefore;
+    private final int windowAfter;
+    private final Hydrator hydrator;
+
+    // 所有位置的视频存根
+    private long[] stubEntryIds = new long[INITIAL_CAPACITY];
+    private int size = 0;
+
+    // 窗口内的完整视频对象，按 position % 窗口容量 存放
+    private final VideoBean[] windowItems;
+    private final int[] windowPositions;
+    private int currentPosition = 0;
+
+    /**
+     * @param windowBefore 当前位置之前保留完整对象的条数
+     * @param windowAfter 当前位置之后保留完整对象的条数
+     * @param hydrator 存根还原器
+     */
+    public FeedWindowStore(int windowBefore, int windowAfter, Hydrator hydrator) {
+        if (windowBefore < 0 || windowAfter < 0) {
+            throw new IllegalArgumentException("窗口大小不能为负数: before=" + windowBefore + ", after=" + windowAfter);
+        }
+        this.windowBefore = windowBefore;
+        this.windowAfter = windowAfter;
+        this.hydrator = hydrator;
+        int capacity = windowBefore + windowAfter + 1;
+        windowItems = new VideoBean[capacity];
+        windowPositions = new int[capacity];
+        Arrays.fill(windowPositions, -1);
+    }
+
+    @Override
+    public VideoBean get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("position=" + position + ", size=" + size);
+        }
+        int slot = position % windowItems.length;
+        if (windowPositions[slot] == position) {
+            return windowItems[slot];
+        }
+        VideoBean video = hydrator.hydrate(FeedEntry.videoIdOf(stubEntryIds[position]));
+        // 只有窗口内的位置才缓存完整对象，窗口外的访问不占用窗口
+        if (isInWindow(position)) {
+            windowItems[slot] = video;
+            windowPositions[slot] = position;
+        }
+        return video;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 追加一条视频，条目ID与视频ID相同，视为第 0 轮
+     * @param video 视频对象
+     */
+    @Override
+    public boolean add(VideoBean video) {
+        append(video.getVideoId(), video);
+        return true;
+    }
+
+    /**
+     * 追加一条推荐流条目，保留条目ID
+     * @param entry 推荐流条目
+     */
+    public void addEntry(FeedEntry entry) {
+        append(entry.getEntryId(), entry.getVideo());
+    }
+
+    /**
+     * 依次追加推荐流条目
+     * @param entries 推荐流条目列表
+     */
+    public void addEntries(List<FeedEntry> entries) {
+        ensureCapacity(size + entries.size());
+        for (FeedEntry entry : entries) {
+            addEntry(entry);
+        }
+    }
+
+    private void append(long entryId, VideoBean video) {
+        ensureCapacity(size + 1);
+        int position = size;
+        stubEntryIds[position] = entryId;
+        size++;
+        modCount++;
+        if (isInWindow(position)) {
+            int slot = position % windowItems.length;
+            windowItems[slot] = video;
+            windowPositions[slot] = position;
+        }
+    }
+
+    /**
+     * 移动窗口中心，窗口外的完整对象会被丢弃，只保留存根
+     * @param position 当前位置
+     */
+    public void moveTo(int position) {
+        currentPosition = Math.max(0, position);
+        for (int slot = 0; slot < windowItems.length; slot++) {
+            if (windowPositions[slot] != -1 && !isInWindow(windowPositions[slot])) {
+                windowItems[slot] = null;
+                windowPositions[slot] = -1;
+            }
+        }
+    }
+
+    /**
+     * 清空所有数据
+     */
+    @Override
+    public void clear() {
+        size = 0;
+        currentPosition = 0;
+        Arrays.fill(windowItems, null);
+        Arrays.fill(windowPositions, -1);
+        modCount++;
+    }
+
+    /**
+     * 获取指定位置的条目ID，不会还原完整对象
+     */
+    public long getEntryId(int position) {
+        return stubEntryIds[position];
+    }
+
+    /**
+     * 获取指定位置的视频ID，不会还原完整对象
+     */
+    public long getVideoId(int position) {
+        return FeedEntry.videoIdOf(stubEntryIds[position]);
+    }
+
+    /**
+     * 获取当前窗口中心位置
+     */
+    public int getCurrentPosition() {
+        return currentPosition;
+    }
+
+    /**
+     * 获取当前保留的完整对象数量
+     */
+    public int getHydratedCount() {
+        int count = 0;
+        for (VideoBean video : windowItems) {
+            if (video != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean isInWindow(int position) {
+        return position >= currentPosition - windowBefore && position <= currentPosition + windowAfter;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= stubEntryIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(required, stubEntryIds.length * 2);
+        stubEntryIds = Arrays.copyOf(stubEntryIds, newCapacity);
+    }
+}
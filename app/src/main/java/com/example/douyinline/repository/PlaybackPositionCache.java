@@ -0,0 +1,217 @@
+package com.example.douyinline.repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 每个视频上次播放到的位置，按最近使用淘汰
+ * 回到看过的视频时从上次的位置继续，同时记录当时缓冲到的位置作为提示
+ * 开头和结尾附近的位置不记录，这些情况直接从头播放
+ * 线程安全
+ *
+ * 文件格式：魔数、版本号、条数，之后按从旧到新的顺序每条记录
+ * 视频ID（long）、播放位置、缓冲位置、时长（int，毫秒），每条 20 字节
+ */
+public class PlaybackPositionCache {
+    private static final int MAGIC = 0x44595050;  // "DYPP"
+    private static final short FORMAT_VERSION = 1;
+    // 播放不到这个时长时不记录
+    static final long MIN_RESUME_POSITION_MS = 1_000;
+    // 距离结尾不到这个时长时不记录
+    static final long END_MARGIN_MS = 1_000;
+
+    /**
+     * 一个视频的播放位置
+     */
+    public static final class Entry {
+        private final long positionMs;
+        private final long bufferedPositionMs;
+        private final long durationMs;
+
+        Entry(long positionMs, long bufferedPositionMs, long durationMs) {
+            this.positionMs = positionMs;
+            this.bufferedPositionMs = bufferedPositionMs;
+            this.durationMs = durationMs;
+        }
+
+        public long getPositionMs() {
+            return positionMs;
+        }
+
+        /**
+         * 离开时已经缓冲到的位置，播放位置到这里之间的数据大概率还在视频缓存中
+         */
+        public long getBufferedPositionMs() {
+            return bufferedPositionMs;
+        }
+
+        /**
+         * 视频时长，未知时为 0
+         */
+        public long getDurationMs() {
+            return durationMs;
+        }
+    }
+
+    private final int capacity;
+    private LinkedHashMap<Long, Entry> entries;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * @param capacity 最多记录的视频数
+     */
+    public PlaybackPositionCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity 必须大于 0: " + capacity);
+        }
+        this.capacity = capacity;
+        this.entries = newMap();
+    }
+
+    private LinkedHashMap<Long, Entry> newMap() {
+        return new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * 查询上次的播放位置，计入命中率
+     * @return 播放位置，没有记录时返回 null
+     */
+    public synchronized Entry get(long videoId) {
+        Entry entry = entries.get(videoId);
+        if (entry == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return entry;
+    }
+
+    /**
+     * 记录播放位置，开头和结尾附近的位置会清除已有的记录
+     * @param positionMs 播放位置
+     * @param bufferedPositionMs 缓冲到的位置
+     * @param durationMs 视频时长，未知时传 0 或负数
+     */
+    public synchronized void put(long videoId, long positionMs, long bufferedPositionMs, long durationMs) {
+        long duration = Math.max(0, durationMs);
+        if (positionMs < MIN_RESUME_POSITION_MS
+                || (duration > 0 && positionMs >= duration - END_MARGIN_MS)) {
+            entries.remove(videoId);
+            return;
+        }
+        entries.put(videoId, new Entry(positionMs, Math.max(positionMs, bufferedPositionMs), duration));
+    }
+
+    public synchronized void remove(long videoId) {
+        entries.remove(videoId);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * 查询命中率，还没有查询时返回 0
+     */
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * 写入文件，先写临时文件再替换
+     */
+    public void write(File file) throws IOException {
+        long[] ids;
+        Entry[] values;
+        synchronized (this) {
+            ids = new long[entries.size()];
+            values = new Entry[entries.size()];
+            int i = 0;
+            for (Map.Entry<Long, Entry> entry : entries.entrySet()) {
+                ids[i] = entry.getKey();
+                values[i] = entry.getValue();
+                i++;
+            }
+        }
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeInt(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                out.writeLong(ids[i]);
+                out.writeInt(clampToInt(values[i].positionMs));
+                out.writeInt(clampToInt(values[i].bufferedPositionMs));
+                out.writeInt(clampToInt(values[i].durationMs));
+            }
+        }
+        if (!tmpFile.renameTo(file)) {
+            tmpFile.delete();
+            throw new IOException("替换播放位置文件失败: " + file);
+        }
+    }
+
+    /**
+     * 从文件读取记录，读到的记录视为比内存中已有的更旧，同一个视频保留内存中的记录
+     * 文件不存在时不做任何事
+     */
+    public void readFrom(File file) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        List<Entry> values = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readShort() != FORMAT_VERSION) {
+                throw new IOException("播放位置文件格式不匹配: " + file);
+            }
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("播放位置条数无效: " + count);
+            }
+            for (int i = 0; i < count; i++) {
+                ids.add(in.readLong());
+                values.add(new Entry(in.readInt(), in.readInt(), in.readInt()));
+            }
+        }
+        synchronized (this) {
+            LinkedHashMap<Long, Entry> merged = newMap();
+            for (int i = 0; i < ids.size(); i++) {
+                if (!entries.containsKey(ids.get(i))) {
+                    merged.put(ids.get(i), values.get(i));
+                }
+            }
+            merged.putAll(entries);
+            entries = merged;
+        }
+    }
+
+    private static int clampToInt(long value) {
+        return (int) Math.min(Integer.MAX_VALUE, value);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.douyinline.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.ListenableFuturePagingSource;
+import androidx.paging.PagingState;
+
+import com.example.douyinline.bean.FeedEntry;
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * 推荐流分页数据源
+ * 以推荐流中的绝对位置作为游标，每次只加载一页数据，
+ * 避免加载更多时整表复制
+ * 条目带有会话内唯一的ID，重复出现的视频也能被正确区分
+ */
+public class RecommendPagingSource extends ListenableFuturePagingSource<Integer, FeedEntry> {
+    private final VideoRepository videoRepository;
+
+    public RecommendPagingSource(VideoRepository videoRepository) {
+        this.videoRepository = videoRepository;
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<LoadResult<Integer, FeedEntry>> loadFuture(@NonNull LoadParams<Integer> params) {
+        int startKey = params.getKey() == null ? 0 : params.getKey();
+        int loadSize = params.getLoadSize();
+        return FluentFuture.from(videoRepository.loadFeedPageAsync(startKey, loadSize))
+                // 推荐流无限长，只向后翻页
+                .<LoadResult<Integer, FeedEntry>>transform(
+                        page -> new LoadResult.Page<>(page, null, startKey + page.size()),
+                        MoreExecutors.directExecutor())
+                // 被下拉刷新取消的分页请求属于旧会话，让分页库丢弃而不是当作错误
+                .catching(CancellationException.class, e -> new LoadResult.Invalid<>(), MoreExecutors.directExecutor())
+                .catching(Exception.class, e -> new LoadResult.Error<>(e), MoreExecutors.directExecutor());
+    }
+
+    /**
+     * 下拉刷新会更换推荐会话，新的推荐流总是从头开始加载
+     */
+    @Nullable
+    @Override
+    public Integer getRefreshKey(@NonNull PagingState<Integer, FeedEntry> state) {
+        return null;
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.douyinline.repository;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 已看视频的布隆过滤器，内存映射到文件，跨会话保留
+ * 由两代位数组组成：新看的视频写入当前代，查询时两代都检查；
+ * 当前代写满或超过最长保留时间时轮换，清空较旧的一代作为新的当前代，
+ * 因此每条记录保留一到两代的时间，占用的内存和文件大小固定
+ * 两代都会产生误判，每代按目标误判率的一半计算位数，整体误判率不超过目标值
+ * 线程安全
+ *
+ * 文件格式：
+ * 头部 HEADER_SIZE 字节：魔数、版本号、每代 long 数、哈希函数个数、每代容量、当前代，
+ *          以及每代的插入数和创建时间
+ * 之后依次是每一代的位数组
+ */
+public class SeenVideoFilter implements Closeable {
+    /**
+     * 时间来源，便于测试轮换
+     */
+    interface Clock {
+        long currentTimeMillis();
+    }
+
+    private static final int MAGIC = 0x53564246; // "SVBF"
+    private static final int VERSION = 1;
+    static final int GENERATIONS = 2;
+    private static final int HEADER_SIZE = 64;
+
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_WORDS = 8;
+    private static final int OFFSET_HASH_COUNT = 12;
+    private static final int OFFSET_CAPACITY = 16;
+    private static final int OFFSET_CURRENT = 20;
+    // 每代的插入数（int）和创建时间（long）
+    private static final int OFFSET_GENERATIONS = 24;
+    private static final int GENERATION_ENTRY_SIZE = 12;
+
+    private final RandomAccessFile raf;
+    private final MappedByteBuffer buffer;
+    private final Clock clock;
+    // 每代容量，当前代插入数达到后轮换
+    private final int capacity;
+    private final long maxGenerationAgeMillis;
+    private final int wordsPerGeneration;
+    private final long bitsPerGeneration;
+    private final int hashCount;
+    private int current;
+
+    private SeenVideoFilter(RandomAccessFile raf, MappedByteBuffer buffer, Clock clock, int capacity,
+                            long maxGenerationAgeMillis, int wordsPerGeneration, int hashCount) {
+        this.raf = raf;
+        this.buffer = buffer;
+        this.clock = clock;
+        this.capacity = capacity;
+        this.maxGenerationAgeMillis = maxGenerationAgeMillis;
+        this.wordsPerGeneration = wordsPerGeneration;
+        this.bitsPerGeneration = (long) wordsPerGeneration * Long.SIZE;
+        this.hashCount = hashCount;
+        this.current = buffer.getInt(OFFSET_CURRENT);
+    }
+
+    /**
+     * 打开或创建过滤器文件，文件损坏或参数变化时重新创建
+     * @param file 过滤器文件
+     * @param capacity 每代容量，总共记住 capacity 到 2 * capacity 条最近看过的视频
+     * @param falsePositiveRate 目标误判率
+     * @param maxGenerationAgeMillis 每代最长保留时间，超过后即使没写满也轮换
+     */
+    public static SeenVideoFilter open(File file, int capacity, double falsePositiveRate,
+                                       long maxGenerationAgeMillis) throws IOException {
+        return open(file, capacity, falsePositiveRate, maxGenerationAgeMillis, System::currentTimeMillis);
+    }
+
+    static SeenVideoFilter open(File file, int capacity, double falsePositiveRate,
+                                long maxGenerationAgeMillis, Clock clock) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity 必须大于 0: " + capacity);
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate 必须在 (0, 1) 之间: " + falsePositiveRate);
+        }
+        // 两代都参与查询，每代按一半的误判率计算
+        double generationRate = falsePositiveRate / GENERATIONS;
+        long bits = (long) Math.ceil(-capacity * Math.log(generationRate) / (Math.log(2) * Math.log(2)));
+        long words = (bits + Long.SIZE - 1) / Long.SIZE;
+        if (HEADER_SIZE + words * Long.BYTES * GENERATIONS > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("过滤器过大: capacity=" + capacity + ", falsePositiveRate=" + falsePositiveRate);
+        }
+        int wordsPerGeneration = (int) words;
+        int hashCount = Math.max(1, (int) Math.round((double) wordsPerGeneration * Long.SIZE / capacity * Math.log(2)));
+        int fileSize = HEADER_SIZE + wordsPerGeneration * Long.BYTES * GENERATIONS;
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            boolean valid = raf.length() == fileSize;
+            if (!valid) {
+                raf.setLength(0);
+                raf.setLength(fileSize);
+            }
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            valid = valid
+                    && buffer.getInt(OFFSET_MAGIC) == MAGIC
+                    && buffer.getInt(OFFSET_VERSION) == VERSION
+                    && buffer.getInt(OFFSET_WORDS) == wordsPerGeneration
+                    && buffer.getInt(OFFSET_HASH_COUNT) == hashCount
+                    && buffer.getInt(OFFSET_CAPACITY) == capacity
+                    && buffer.getInt(OFFSET_CURRENT) >= 0
+                    && buffer.getInt(OFFSET_CURRENT) < GENERATIONS;
+            if (!valid) {
+                initialize(buffer, wordsPerGeneration, hashCount, capacity, clock.currentTimeMillis());
+            }
+            return new SeenVideoFilter(raf, buffer, clock, capacity, maxGenerationAgeMillis,
+                    wordsPerGeneration, hashCount);
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    private static void initialize(MappedByteBuffer buffer, int wordsPerGeneration, int hashCount,
+                                   int capacity, long now) {
+        for (int offset = 0; offset < buffer.capacity(); offset += Long.BYTES) {
+            buffer.putLong(offset, 0L);
+        }
+        buffer.putInt(OFFSET_VERSION, VERSION);
+        buffer.putInt(OFFSET_WORDS, wordsPerGeneration);
+        buffer.putInt(OFFSET_HASH_COUNT, hashCount);
+        buffer.putInt(OFFSET_CAPACITY, capacity);
+        buffer.putInt(OFFSET_CURRENT, 0);
+        for (int generation = 0; generation < GENERATIONS; generation++) {
+            buffer.putLong(generationOffset(generation) + 4, now);
+        }
+        // 魔数最后写入，中途失败时下次打开会重新初始化
+        buffer.putInt(OFFSET_MAGIC, MAGIC);
+    }
+
+    /**
+     * 记录看过的视频
+     */
+    public synchronized void put(long videoId) {
+        rotateIfNeeded();
+        long hash1 = mix(videoId);
+        long hash2 = mix(hash1) | 1;
+        if (containsIn(current, hash1, hash2)) {
+            return;
+        }
+        int base = dataOffset(current);
+        long combined = hash1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bitsPerGeneration;
+            int offset = base + (int) (bit >>> 6) * Long.BYTES;
+            buffer.putLong(offset, buffer.getLong(offset) | (1L << bit));
+            combined += hash2;
+        }
+        int countOffset = generationOffset(current);
+        buffer.putInt(countOffset, buffer.getInt(countOffset) + 1);
+    }
+
+    /**
+     * 视频是否可能看过，返回 false 时一定没看过
+     */
+    public synchronized boolean mightContain(long videoId) {
+        long hash1 = mix(videoId);
+        long hash2 = mix(hash1) | 1;
+        for (int generation = 0; generation < GENERATIONS; generation++) {
+            if (containsIn(generation, hash1, hash2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 两代中记录的视频条数之和（同一视频在两代中各算一次）
+     */
+    public synchronized int approximateCount() {
+        int count = 0;
+        for (int generation = 0; generation < GENERATIONS; generation++) {
+            count += buffer.getInt(generationOffset(generation));
+        }
+        return count;
+    }
+
+    /**
+     * 把映射内存中的修改写回文件
+     */
+    public synchronized void flush() {
+        buffer.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        raf.close();
+    }
+
+    /**
+     * 当前代写满或过期时，清空较旧的一代并切换为当前代
+     */
+    private void rotateIfNeeded() {
+        int countOffset = generationOffset(current);
+        long now = clock.currentTimeMillis();
+        long createdAt = buffer.getLong(countOffset + 4);
+        if (buffer.getInt(countOffset) < capacity && now - createdAt < maxGenerationAgeMillis) {
+            return;
+        }
+        int next = (current + 1) % GENERATIONS;
+        int base = dataOffset(next);
+        for (int word = 0; word < wordsPerGeneration; word++) {
+            buffer.putLong(base + word * Long.BYTES, 0L);
+        }
+        int nextOffset = generationOffset(next);
+        buffer.putInt(nextOffset, 0);
+        buffer.putLong(nextOffset + 4, now);
+        buffer.putInt(OFFSET_CURRENT, next);
+        current = next;
+    }
+
+    private boolean containsIn(int generation, long hash1, long hash2) {
+        int base = dataOffset(generation);
+        long combined = hash1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bitsPerGeneration;
+            if ((buffer.getLong(base + (int) (bit >>> 6) * Long.BYTES) & (1L << bit)) == 0) {
+                return false;
+            }
+            combined += hash2;
+        }
+        return true;
+    }
+
+    private static int generationOffset(int generation) {
+        return OFFSET_GENERATIONS + generation * GENERATION_ENTRY_SIZE;
+    }
+
+    private int dataOffset(int generation) {
+        return HEADER_SIZE + generation * wordsPerGeneration * Long.BYTES;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.douyinline.repository;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * 请求合并层
+ * 相同键的请求在进行中时共享同一个任务，只执行一次；
+ * 每个调用方拿到独立的 Future 视图，取消自己的视图不会影响其他调用方
+ * 线程安全
+ * @param <K> 请求键，需要正确实现 equals 和 hashCode
+ */
+public class SingleFlight<K> {
+    /**
+     * 请求键筛选接口
+     */
+    public interface KeyFilter<K> {
+        boolean matches(K key);
+    }
+
+    private final ListeningExecutorService executor;
+    // 进行中的任务
+    private final Map<K, ListenableFuture<?>> inFlight = new HashMap<>();
+
+    public SingleFlight(ListeningExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 提交请求，相同键的请求仍在进行中时直接共享它的结果
+     * @param key 请求键
+     * @param task 请求任务
+     * @return 请求结果的 Future
+     */
+    @SuppressWarnings("unchecked")
+    public <V> ListenableFuture<V> submit(K key, Callable<V> task) {
+        ListenableFuture<V> future;
+        synchronized (inFlight) {
+            ListenableFuture<?> existing = inFlight.get(key);
+            if (existing != null) {
+                return Futures.nonCancellationPropagating((ListenableFuture<V>) existing);
+            }
+            future = executor.submit(task);
+            inFlight.put(key, future);
+        }
+        // 任务结束后移除记录（只移除自己，避免误删同键的新任务）
+        ListenableFuture<V> submitted = future;
+        future.addListener(() -> {
+            synchronized (inFlight) {
+                if (inFlight.get(key) == submitted) {
+                    inFlight.remove(key);
+                }
+            }
+        }, MoreExecutors.directExecutor());
+        return Futures.nonCancellationPropagating(future);
+    }
+
+    /**
+     * 取消所有匹配的进行中任务，共享这些任务的调用方都会收到取消
+     * @param filter 请求键筛选
+     * @return 被取消的任务数
+     */
+    public int cancel(KeyFilter<K> filter) {
+        List<ListenableFuture<?>> cancelled = new ArrayList<>();
+        synchronized (inFlight) {
+            for (Map.Entry<K, ListenableFuture<?>> entry : inFlight.entrySet()) {
+                if (filter.matches(entry.getKey())) {
+                    cancelled.add(entry.getValue());
+                }
+            }
+        }
+        // 在锁外取消，移除记录的监听会重新获取锁
+        for (ListenableFuture<?> future : cancelled) {
+            future.cancel(true);
+        }
+        return cancelled.size();
+    }
+
+    /**
+     * 进行中的任务数
+     */
+    public int inFlightCount() {
+        synchronized (inFlight) {
+            return inFlight.size();
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.douyinline.repository;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 视频互动计数存储（单例）
+ * 点赞、评论、分享、收藏数按列存放在并行的 int 数组中，点赞和收藏状态存放在 BitSet 中，
+ * 视频ID通过开放寻址表映射到连续的序号，读写都不产生装箱对象
+ * 视频流解析出的整页计数通过 applyCounts 一次性写入，写入后通知监听方刷新可见的计数
+ * 线程安全，解析线程、同步线程和主线程都可以调用
+ */
+public class VideoCounterStore {
+    private static volatile VideoCounterStore INSTANCE;
+
+    private static final int INITIAL_CAPACITY = 64;
+    // 序号表中的空槽位
+    private static final int EMPTY_SLOT = -1;
+
+    /**
+     * 计数变化监听，在写入计数的线程上回调
+     */
+    public interface OnCountersChangedListener {
+        void onCountersChanged();
+    }
+
+    // 按序号排列的列
+    private long[] videoIds = new long[INITIAL_CAPACITY];
+    private int[] likeCounts = new int[INITIAL_CAPACITY];
+    private int[] commentCounts = new int[INITIAL_CAPACITY];
+    private int[] shareCounts = new int[INITIAL_CAPACITY];
+    private int[] collectCounts = new int[INITIAL_CAPACITY];
+    private final BitSet liked = new BitSet();
+    private final BitSet collected = new BitSet();
+    private int size = 0;
+
+    // 视频ID到序号的开放寻址表，容量为 2 的幂，槽位中保存序号
+    private int[] slots = newSlots(INITIAL_CAPACITY * 2);
+
+    private final CopyOnWriteArrayList<OnCountersChangedListener> listeners = new CopyOnWriteArrayList<>();
+
+    VideoCounterStore() {
+    }
+
+    public static VideoCounterStore getInstance() {
+        if (INSTANCE == null) {
+            synchronized (VideoCounterStore.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new VideoCounterStore();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * 登记视频的初始计数
+     * 已登记过的视频保持当前计数和状态不变，避免本地的点赞、收藏被旧数据覆盖
+     * @return 视频的序号
+     */
+    public synchronized int register(long videoId, int likeCount, int commentCount, int shareCount,
+                                     int collectCount, boolean isLiked, boolean isCollected) {
+        int ordinal = ordinalOf(videoId);
+        if (ordinal != EMPTY_SLOT) {
+            return ordinal;
+        }
+        ordinal = append(videoId);
+        likeCounts[ordinal] = likeCount;
+        commentCounts[ordinal] = commentCount;
+        shareCounts[ordinal] = shareCount;
+        collectCounts[ordinal] = collectCount;
+        liked.set(ordinal, isLiked);
+        collected.set(ordinal, isCollected);
+        return ordinal;
+    }
+
+    /**
+     * 批量写入同步来的计数，整页只加锁一次，未登记的视频会被登记
+     * 点赞、收藏状态属于本地用户，不会被覆盖
+     * 各数组按下标一一对应
+     */
+    public void applyCounts(long[] ids, int[] likes, int[] comments, int[] shares, int[] collects) {
+        int count = ids.length;
+        if (likes.length != count || comments.length != count || shares.length != count || collects.length != count) {
+            throw new IllegalArgumentException("计数数组长度不一致");
+        }
+        synchronized (this) {
+            for (int i = 0; i < count; i++) {
+                int ordinal = ordinalOf(ids[i]);
+                if (ordinal == EMPTY_SLOT) {
+                    ordinal = append(ids[i]);
+                }
+                likeCounts[ordinal] = likes[i];
+                commentCounts[ordinal] = comments[i];
+                shareCounts[ordinal] = shares[i];
+                collectCounts[ordinal] = collects[i];
+            }
+        }
+        notifyChanged();
+    }
+
+    /**
+     * 获取视频的序号
+     * @return 序号，未登记时返回 -1
+     */
+    public synchronized int ordinalOf(long videoId) {
+        int mask = slots.length - 1;
+        for (int slot = hash(videoId) & mask; ; slot = (slot + 1) & mask) {
+            int ordinal = slots[slot];
+            if (ordinal == EMPTY_SLOT || videoIds[ordinal] == videoId) {
+                return ordinal;
+            }
+        }
+    }
+
+    public synchronized int getLikeCount(long videoId) {
+        int ordinal = ordinalOf(videoId);
+        return ordinal == EMPTY_SLOT ? 0 : likeCounts[ordinal];
+    }
+
+    public synchronized int getCommentCount(long videoId) {
+        int ordinal = ordinalOf(videoId);
+        return ordinal == EMPTY_SLOT ? 0 : commentCounts[ordinal];
+    }
+
+    public synchronized int getShareCount(long videoId) {
+        int ordinal = ordinalOf(videoId);
+        return ordinal == EMPTY_SLOT ? 0 : shareCounts[ordinal];
+    }
+
+    public synchronized int getCollectCount(long videoId) {
+        int ordinal = ordinalOf(videoId);
+        return ordinal == EMPTY_SLOT ? 0 : collectCounts[ordinal];
+    }
+
+    public synchronized boolean isLiked(long videoId) {
+        int ordinal = ordinalOf(videoId);
+        return ordinal != EMPTY_SLOT && liked.get(ordinal);
+    }
+
+    public synchronized boolean isCollected(long videoId) {
+        int ordinal = ordinalOf(videoId);
+        return ordinal != EMPTY_SLOT && collected.get(ordinal);
+    }
+
+    /**
+     * 切换点赞状态并更新点赞数
+     * @return 切换后的点赞状态，视频未登记时返回 false
+     */
+    public synchronized boolean toggleLike(long videoId) {
+        int ordinal = ordinalOf(videoId);
+        if (ordinal == EMPTY_SLOT) {
+            return false;
+        }
+        boolean newLikedState = !liked.get(ordinal);
+        liked.set(ordinal, newLikedState);
+        likeCounts[ordinal] = newLikedState ? likeCounts[ordinal] + 1 : Math.max(0, likeCounts[ordinal] - 1);
+        return newLikedState;
+    }
+
+    /**
+     * 切换收藏状态并更新收藏数
+     * @return 切换后的收藏状态，视频未登记时返回 false
+     */
+    public synchronized boolean toggleCollect(long videoId) {
+        int ordinal = ordinalOf(videoId);
+        if (ordinal == EMPTY_SLOT) {
+            return false;
+        }
+        boolean newCollectedState = !collected.get(ordinal);
+        collected.set(ordinal, newCollectedState);
+        collectCounts[ordinal] = newCollectedState ? collectCounts[ordinal] + 1 : Math.max(0, collectCounts[ordinal] - 1);
+        return newCollectedState;
+    }
+
+    /**
+     * 评论数加一
+     * @return 更新后的评论数，视频未登记时返回 0
+     */
+    public synchronized int incrementCommentCount(long videoId) {
+        int ordinal = ordinalOf(videoId);
+        if (ordinal == EMPTY_SLOT) {
+            return 0;
+        }
+        return ++commentCounts[ordinal];
+    }
+
+    /**
+     * 已登记的视频数量
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    public void addOnCountersChangedListener(OnCountersChangedListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeOnCountersChangedListener(OnCountersChangedListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyChanged() {
+        for (OnCountersChangedListener listener : listeners) {
+            listener.onCountersChanged();
+        }
+    }
+
+    /**
+     * 追加一个新序号，调用方需保证视频ID未登记
+     */
+    private int append(long videoId) {
+        if (size == videoIds.length) {
+            int capacity = size * 2;
+            videoIds = Arrays.copyOf(videoIds, capacity);
+            likeCounts = Arrays.copyOf(likeCounts, capacity);
+            commentCounts = Arrays.copyOf(commentCounts, capacity);
+            shareCounts = Arrays.copyOf(shareCounts, capacity);
+            collectCounts = Arrays.copyOf(collectCounts, capacity);
+        }
+        int ordinal = size++;
+        videoIds[ordinal] = videoId;
+        // 负载因子保持在 0.5 以下
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        } else {
+            insertSlot(ordinal);
+        }
+        return ordinal;
+    }
+
+    private void rehash(int slotCount) {
+        slots = newSlots(slotCount);
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            insertSlot(ordinal);
+        }
+    }
+
+    private void insertSlot(int ordinal) {
+        int mask = slots.length - 1;
+        int slot = hash(videoIds[ordinal]) & mask;
+        while (slots[slot] != EMPTY_SLOT) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = ordinal;
+    }
+
+    private static int[] newSlots(int slotCount) {
+        int[] newSlots = new int[slotCount];
+        Arrays.fill(newSlots, EMPTY_SLOT);
+        return newSlots;
+    }
+
+    private static int hash(long videoId) {
+        // 打散连续的视频ID
+        long h = videoId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.douyinline.repository;
+
+import com.example.douyinline.bean.AuthorBean;
+import com.example.douyinline.bean.VideoBean;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 视频流 JSON 流式加载器
+ * 基于 JsonReader 边解析边按页回调，不会先把整个文件读成对象树，
+ * 首屏可以在文件读完前就渲染，文件再大内存占用也只和页大小有关
+ *
+ * 文件格式：
+ * {"videos": [{"id": 1, "title": "...", "video": "video_1", "cover": "img_cover_1",
+ *   "likeCount": 0, "commentCount": 0, "shareCount": 0, "collectCount": 0,
+ *   "author": {"id": 1, "name": "...", "avatar": "img_avatar_1"}}]}
+ * 带ID的作者会通过 AuthorRegistry 驻留，同一作者的视频共享一个实例
+ * 互动计数不保存在视频对象上，每页通过 VideoCounterStore.applyCounts 一次写入，
+ * 冷启动从快照恢复的视频也会更新为文件中的计数，本地的点赞、收藏状态保留
+ */
+public class VideoFeedLoader {
+    public static final String TYPE_RAW = "raw";
+    public static final String TYPE_DRAWABLE = "drawable";
+
+    /**
+     * 资源名称到资源ID的解析接口
+     */
+    public interface ResourceResolver {
+        int resolve(String type, String name);
+    }
+
+    /**
+     * 分页回调接口，在解析线程上调用
+     */
+    public interface PageCallback {
+        void onPage(List<VideoBean> page);
+    }
+
+    private final ResourceResolver resolver;
+    private final AuthorRegistry authorRegistry;
+    private final VideoCounterStore counterStore;
+    private final int pageSize;
+    // 资源名称解析缓存，同一个资源只解析一次
+    private final Map<String, Integer> resolvedIds = new HashMap<>();
+
+    public VideoFeedLoader(ResourceResolver resolver, int pageSize) {
+        this(resolver, AuthorRegistry.getInstance(), VideoCounterStore.getInstance(), pageSize);
+    }
+
+    public VideoFeedLoader(ResourceResolver resolver, AuthorRegistry authorRegistry,
+                           VideoCounterStore counterStore, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize 必须大于 0: " + pageSize);
+        }
+        this.resolver = resolver;
+        this.authorRegistry = authorRegistry;
+        this.counterStore = counterStore;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * 流式解析视频流，每解析满一页回调一次，最后不足一页的部分也会回调
+     * @param in 视频流 JSON
+     * @param callback 分页回调
+     * @return 解析出的视频总数
+     */
+    public int load(Reader in, PageCallback callback) throws IOException {
+        int total = 0;
+        try (JsonReader reader = new JsonReader(in)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!"videos".equals(reader.nextName())) {
+                    reader.skipValue();
+                    continue;
+                }
+                List<VideoBean> page = new ArrayList<>(pageSize);
+                PageCounts counts = new PageCounts(pageSize);
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    page.add(readVideo(reader, counts, page.size()));
+                    total++;
+                    if (page.size() == pageSize) {
+                        counts.applyTo(counterStore, pageSize);
+                        callback.onPage(page);
+                        page = new ArrayList<>(pageSize);
+                    }
+                }
+                reader.endArray();
+                if (!page.isEmpty()) {
+                    counts.applyTo(counterStore, page.size());
+                    callback.onPage(page);
+                }
+            }
+            reader.endObject();
+        }
+        return total;
+    }
+
+    /**
+     * 解析单个视频对象，互动计数写入当前页的第 index 行
+     */
+    private VideoBean readVideo(JsonReader reader, PageCounts counts, int index) throws IOException {
+        long id = 0;
+        String title = "";
+        int videoResId = 0;
+        int coverResId = 0;
+        int likeCount = 0;
+        int commentCount = 0;
+        int shareCount = 0;
+        int collectCount = 0;
+        AuthorBean author = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    id = reader.nextLong();
+                    break;
+                case "title":
+                    title = reader.nextString();
+                    break;
+                case "video":
+                    videoResId = resolveCached(TYPE_RAW, reader.nextString());
+                    break;
+                case "cover":
+                    coverResId = resolveCached(TYPE_DRAWABLE, reader.nextString());
+                    break;
+                case "likeCount":
+                    likeCount = reader.nextInt();
+                    break;
+                case "commentCount":
+                    commentCount = reader.nextInt();
+                    break;
+                case "shareCount":
+                    shareCount = reader.nextInt();
+                    break;
+                case "collectCount":
+                    collectCount = reader.nextInt();
+                    break;
+                case "author":
+                    author = readAuthor(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        counts.set(index, id, likeCount, commentCount, shareCount, collectCount);
+        return new VideoBean(id, coverResId, videoResId, title, author);
+    }
+
+    /**
+     * 解析作者对象
+     */
+    private AuthorBean readAuthor(JsonReader reader) throws IOException {
+        long authorId = 0;
+        String authorName = "";
+        int avatarResId = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("id".equals(name)) {
+                authorId = reader.nextLong();
+            } else if ("name".equals(name)) {
+                authorName = reader.nextString();
+            } else if ("avatar".equals(name)) {
+                avatarResId = resolveCached(TYPE_DRAWABLE, reader.nextString());
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (authorId == 0) {
+            // 没有ID的作者无法驻留
+            return new AuthorBean(0, authorName, avatarResId);
+        }
+        return authorRegistry.intern(authorId, authorName, avatarResId);
+    }
+
+    private int resolveCached(String type, String name) {
+        String key = type + "/" + name;
+        Integer cached = resolvedIds.get(key);
+        if (cached == null) {
+            cached = resolver.resolve(type, name);
+            resolvedIds.put(key, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * 一页视频的互动计数，按列存放，整页解析完后一次写入 VideoCounterStore
+     * 同一个实例在各页之间复用
+     */
+    private static final class PageCounts {
+        private final long[] ids;
+        private final int[] likes;
+        private final int[] comments;
+        private final int[] shares;
+        private final int[] collects;
+
+        PageCounts(int pageSize) {
+            ids = new long[pageSize];
+            likes = new int[pageSize];
+            comments = new int[pageSize];
+            shares = new int[pageSize];
+            collects = new int[pageSize];
+        }
+
+        void set(int index, long id, int like, int comment, int share, int collect) {
+            ids[index] = id;
+            likes[index] = like;
+            comments[index] = comment;
+            shares[index] = share;
+            collects[index] = collect;
+        }
+
+        /**
+         * 写入前 count 行，最后不足一页时截取
+         */
+        void applyTo(VideoCounterStore store, int count) {
+            if (count == ids.length) {
+                store.applyCounts(ids, likes, comments, shares, collects);
+            } else {
+                store.applyCounts(Arrays.copyOf(ids, count), Arrays.copyOf(likes, count),
+                        Arrays.copyOf(comments, count), Arrays.copyOf(shares, count),
+                        Arrays.copyOf(collects, count));
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.douyinline.repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 推荐流视频的元数据索引：时长、宽高、旋转角度和编码格式
+ * 在后台探测视频文件后写入，播放页绑定时按视频比例确定画面高度，不用等播放器解析出视频尺寸再重新布局；
+ * 播放器池按视频流实际的编码格式和分辨率查询解码器能力
+ * 线程安全
+ *
+ * 文件格式：魔数、版本号、构建标识、条数，之后每条记录
+ * 视频ID（long）、时长（int，毫秒）、宽、高（int）、旋转角度（short）、编码格式（UTF）
+ * 视频ID对应的资源只在同一次安装内不变，构建标识不一致时整个文件作废
+ */
+public class VideoMetadataIndex {
+    private static final int MAGIC = 0x4459564D;  // "DYVM"
+    private static final short FORMAT_VERSION = 1;
+
+    /**
+     * 一个视频的元数据
+     */
+    public static final class Entry {
+        private final long durationMs;
+        private final int width;
+        private final int height;
+        private final int rotationDegrees;
+        private final String mimeType;
+
+        /**
+         * @param durationMs 时长，未知时为 0
+         * @param width 编码宽度
+         * @param height 编码高度
+         * @param rotationDegrees 显示时顺时针旋转的角度，0、90、180 或 270
+         * @param mimeType 视频编码格式，例如 video/avc
+         */
+        public Entry(long durationMs, int width, int height, int rotationDegrees, String mimeType) {
+            if (width <= 0 || height <= 0) {
+                throw new IllegalArgumentException("视频尺寸无效: " + width + "x" + height);
+            }
+            this.durationMs = Math.max(0, durationMs);
+            this.width = width;
+            this.height = height;
+            this.rotationDegrees = ((rotationDegrees % 360) + 360) % 360;
+            this.mimeType = mimeType;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public int getRotationDegrees() {
+            return rotationDegrees;
+        }
+
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        /**
+         * 旋转之后的显示宽高比（宽 / 高）
+         */
+        public float getDisplayAspectRatio() {
+            boolean swapped = rotationDegrees == 90 || rotationDegrees == 270;
+            return swapped ? (float) height / width : (float) width / height;
+        }
+
+        /**
+         * 解码的像素数，用于比较解码负担
+         */
+        long pixelCount() {
+            return (long) width * height;
+        }
+    }
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    // 上次写入文件后是否有新的记录
+    private boolean dirty = false;
+
+    /**
+     * @return 视频的元数据，还没有探测过时返回 null
+     */
+    public synchronized Entry get(long videoId) {
+        return entries.get(videoId);
+    }
+
+    public synchronized boolean contains(long videoId) {
+        return entries.containsKey(videoId);
+    }
+
+    public synchronized void put(long videoId, Entry entry) {
+        entries.put(videoId, entry);
+        dirty = true;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 上次写入文件后是否有新的记录
+     */
+    public synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * 解码负担最大（像素数最多）的视频，用于按最坏情况查询解码器能力
+     * @return 元数据，索引为空时返回 null
+     */
+    public synchronized Entry getMostDemanding() {
+        Entry most = null;
+        for (Entry entry : entries.values()) {
+            if (most == null || entry.pixelCount() > most.pixelCount()) {
+                most = entry;
+            }
+        }
+        return most;
+    }
+
+    /**
+     * 写入文件，先写临时文件再替换
+     * @param buildStamp 构建标识
+     */
+    public void write(File file, long buildStamp) throws IOException {
+        Map<Long, Entry> copy;
+        synchronized (this) {
+            copy = new LinkedHashMap<>(entries);
+            dirty = false;
+        }
+        File tmpFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeLong(buildStamp);
+            out.writeInt(copy.size());
+            for (Map.Entry<Long, Entry> item : copy.entrySet()) {
+                Entry entry = item.getValue();
+                out.writeLong(item.getKey());
+                out.writeInt((int) Math.min(Integer.MAX_VALUE, entry.durationMs));
+                out.writeInt(entry.width);
+                out.writeInt(entry.height);
+                out.writeShort(entry.rotationDegrees);
+                out.writeUTF(entry.mimeType == null ? "" : entry.mimeType);
+            }
+        } catch (IOException e) {
+            markDirty();
+            throw e;
+        }
+        if (!tmpFile.renameTo(file)) {
+            tmpFile.delete();
+            markDirty();
+            throw new IOException("替换视频元数据文件失败: " + file);
+        }
+    }
+
+    /**
+     * 从文件读取记录，同一个视频保留内存中已有的记录
+     * 文件不存在或构建标识不一致时不做任何事
+     * @param buildStamp 构建标识
+     * @return 是否读取了文件中的记录
+     */
+    public boolean readFrom(File file, long buildStamp) throws IOException {
+        if (!file.exists()) {
+            return false;
+        }
+        Map<Long, Entry> loaded = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readShort() != FORMAT_VERSION) {
+                throw new IOException("视频元数据文件格式不匹配: " + file);
+            }
+            if (in.readLong() != buildStamp) {
+                return false;
+            }
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("视频元数据条数无效: " + count);
+            }
+            for (int i = 0; i < count; i++) {
+                long videoId = in.readLong();
+                int durationMs = in.readInt();
+                int width = in.readInt();
+                int height = in.readInt();
+                int rotation = in.readShort();
+                String mimeType = in.readUTF();
+                try {
+                    loaded.put(videoId, new Entry(durationMs, width, height, rotation,
+                            mimeType.isEmpty() ? null : mimeType));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("视频元数据记录无效: videoId=" + videoId, e);
+                }
+            }
+        }
+        synchronized (this) {
+            for (Map.Entry<Long, Entry> item : loaded.entrySet()) {
+                entries.putIfAbsent(item.getKey(), item.getValue());
+            }
+        }
+        return true;
+    }
+
+    private synchronized void markDirty() {
+        dirty = true;
+    }
+}
@@ -1,19 +1,46 @@
 package com.example.douyinline.repository;
 
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.Resources;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.os.SystemClock;
+
 import com.example.douyinline.R;
 import com.example.douyinline.bean.AuthorBean;
+import com.example.douyinline.bean.FeedEntry;
 import com.example.douyinline.bean.VideoBean;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
 
 /**
  * 视频数据仓库
  * 负责数据的获取和管理
+ * 对外只提供异步接口，数据在仓库专用线程上读取，结果通过 ListenableFuture 返回
  */
 public class VideoRepository {
-    private final List<VideoBean> videoList = new ArrayList<>();
+    private static final String TAG = "VideoRepository";
     private static final int[] VIDEO_POOL = {R.raw.video_1, R.raw.video_2, R.raw.video_3, R.raw.video_4, R.raw.video_5,
             R.raw.video_6, R.raw.video_7, R.raw.video_8, R.raw.video_9, R.raw.video_10};
     private static final int[] AVATAR_POOL = {R.drawable.img_avatar_1, R.drawable.img_avatar_2, R.drawable.img_avatar_3,
@@ -57,56 +84,748 @@ public class VideoRepository {
         return INSTANCE;
     }
 
-    // 视频池数据，用于推荐视频的随机展示
-    private final List<VideoBean> poolData = generateVideos();
-    
+    /**
+     * 请求类型
+     */
+    private enum RequestKind {
+        RECOMMEND,
+        REFRESH,
+        PAGE
+    }
+
+    /**
+     * 请求键，相同的请求在进行中时会被合并
+     */
+    private static final class RequestKey {
+        final RequestKind kind;
+        final int startKey;
+        final int loadSize;
+
+        RequestKey(RequestKind kind, int startKey, int loadSize) {
+            this.kind = kind;
+            this.startKey = startKey;
+            this.loadSize = loadSize;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RequestKey)) {
+                return false;
+            }
+            RequestKey other = (RequestKey) o;
+            return kind == other.kind && startKey == other.startKey && loadSize == other.loadSize;
+        }
+
+        @Override
+        public int hashCode() {
+            return (kind.hashCode() * 31 + startKey) * 31 + loadSize;
+        }
+    }
+
+    private static final RequestKey RECOMMEND_KEY = new RequestKey(RequestKind.RECOMMEND, 0, 0);
+    private static final RequestKey REFRESH_KEY = new RequestKey(RequestKind.REFRESH, 0, 0);
+
+    // 仓库专用后台线程，所有数据读取都在这里执行
+    private final ListeningExecutorService repositoryExecutor = MoreExecutors.listeningDecorator(
+            Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "VideoRepository")));
+    // 请求合并层，相同的进行中请求共享一个任务
+    private final SingleFlight<RequestKey> requests = new SingleFlight<>(repositoryExecutor);
+
+    // 视频流数据文件
+    private static final String FEED_ASSET = "VideoFeed.json";
+    // 推荐流快照文件
+    private static final String SNAPSHOT_FILE = "feed_snapshot.bin";
+    // 已看视频过滤器文件，每代记住的条数、误判率和最长保留时间
+    private static final String SEEN_FILTER_FILE = "seen_videos.bloom";
+    private static final int SEEN_FILTER_CAPACITY = 200_000;
+    private static final double SEEN_FILTER_FALSE_POSITIVE_RATE = 0.01;
+    private static final long SEEN_FILTER_MAX_AGE_MILLIS = 30L * 24 * 60 * 60 * 1000;
+    // 播放位置文件和最多记录的视频数
+    private static final String PLAYBACK_POSITION_FILE = "playback_positions.bin";
+    private static final int PLAYBACK_POSITION_CAPACITY = 500;
+    // 视频元数据索引文件
+    private static final String VIDEO_METADATA_FILE = "video_metadata.bin";
+
+    // 冷启动快照：上次刷新的首页数据，排在冷启动推荐流的最前面
+    private List<VideoBean> snapshotVideos = Collections.emptyList();
+    private final Set<Long> snapshotIds = new HashSet<>();
+    // 冷启动会话中接在快照后面的视频，按文件顺序排列并去掉快照里已有的视频
+    private final List<VideoBean> coldStartTail = new ArrayList<>();
+    private boolean snapshotResolved = false;
+    // 快照中记录的滚动位置，只恢复一次
+    private int restoredScrollPosition = -1;
+    private File snapshotFile;
+    private long buildStamp;
+    // 冷启动计时，用于统计首屏数据就绪耗时
+    private long initStartMillis;
+    private boolean firstPageReported = false;
+
+    // 视频池数据，用于推荐视频的随机展示，由 VideoFeed.json 流式解析逐页追加
+    private final List<VideoBean> poolData = new ArrayList<>();
+    // 按ID索引的视频池，主线程还原推荐流存根时无锁读取
+    private final Map<Long, VideoBean> poolById = new ConcurrentHashMap<>();
+    // 视频池是否正在加载、是否已经加载完成
+    private boolean poolLoading = false;
+    private boolean poolComplete = false;
+
+    // 推荐流每页条数
+    public static final int PAGE_SIZE = 10;
+    // 当前推荐会话的随机种子，刷新时更换
+    private long sessionSeed = System.nanoTime();
+    // 冷启动会话的第一轮按文件顺序展示，不需要等整个文件解析完
+    private boolean fileOrderSession = true;
+    // 当前会话已经分页加载过的条数，供全屏播放页获取同一份视频流
+    private int loadedCount = 0;
+    // 最近一次计算的乱序轮次，同一轮内的分页复用同一个乱序结果
+    private int shuffledRound = -1;
+
+    // 相邻两轮衔接处不重复的条数
+    private static final int NO_REPEAT_WINDOW = PAGE_SIZE;
+    // 乱序引擎，复用同一个 int[]，翻页时不再分配列表
+    private final FeedShuffler shuffler = new FeedShuffler(NO_REPEAT_WINDOW);
+    // 排序引擎，候选按加入顺序编号，与视频池下标一致
+    private final FeedRanker ranker = new FeedRanker(PAGE_SIZE, VideoCounterStore.getInstance());
+    // 刷新时排名最高的视频池下标，刷新后的会话第 0 轮先展示它们
+    private final int[] rankedHead = new int[PAGE_SIZE];
+    private int rankedCount = 0;
+    // 跨会话的已看视频过滤器，在加载线程打开
+    private volatile SeenVideoFilter seenFilter;
+    // 每个视频上次的播放位置，在加载线程读取文件后合并
+    private final PlaybackPositionCache playbackPositions = new PlaybackPositionCache(PLAYBACK_POSITION_CAPACITY);
+    private volatile File playbackPositionFile;
+    // 每个视频的时长、尺寸和编码格式，在加载线程读取文件并探测缺少的视频
+    private final VideoMetadataIndex videoMetadata = new VideoMetadataIndex();
+    // 视频元数据读取和探测都结束后完成
+    private final SettableFuture<VideoMetadataIndex> videoMetadataReady = SettableFuture.create();
+    // 刷新后的会话开始时已经看过的视频池下标，只在会话内计算一次，保证同一位置的视频不变
+    private int[] sessionSeen = new int[0];
+    private int sessionSeenCount = 0;
+    private boolean sessionSeenResolved = false;
+
     /**
      * 视频列表随机乱序
+     * 推荐流由无限多轮视频池乱序拼接而成，第 round 轮的顺序只由会话种子和轮次决定，
+     * 因此任意位置的视频都可以直接计算出来，不需要保存历史列表
+     */
+    private void reshuffle(int round){
+        if (round == 0) {
+            shuffleRankedRound();
+        } else if (round == 1) {
+            // 第 0 轮不是单纯的乱序结果，第 1 轮开头避开它实际的末尾
+            int[] tail = fileOrderSession ? fileOrderTail() : rankedRoundTail();
+            shuffler.shuffleAfter(sessionSeed, round, poolData.size(), tail, tail.length);
+        } else {
+            shuffler.shuffle(sessionSeed, round, poolData.size());
+        }
+        shuffledRound = round;
+    }
+
+    /**
+     * 刷新后会话的第 0 轮：排名最高的视频在前，其余视频按乱序排列，
+     * 之前会话看过的视频排在最后
+     */
+    private void shuffleRankedRound() {
+        shuffler.shuffle(sessionSeed, 0, poolData.size());
+        if (!fileOrderSession) {
+            resolveSessionSeen();
+            shuffler.moveToBack(sessionSeen, sessionSeenCount);
+            shuffler.moveToFront(rankedHead, rankedCount);
+        }
+    }
+
+    /**
+     * 在会话第一次生成第 0 轮时查询已看视频过滤器，排名靠前但已经看过的视频不再放在开头
+     */
+    private void resolveSessionSeen() {
+        if (sessionSeenResolved) {
+            return;
+        }
+        sessionSeenResolved = true;
+        sessionSeenCount = 0;
+        SeenVideoFilter filter = seenFilter;
+        if (filter == null) {
+            return;
+        }
+        if (sessionSeen.length < poolData.size()) {
+            sessionSeen = new int[poolData.size()];
+        }
+        for (int poolIndex = 0; poolIndex < poolData.size(); poolIndex++) {
+            if (filter.mightContain(poolData.get(poolIndex).getVideoId())) {
+                sessionSeen[sessionSeenCount++] = poolIndex;
+            }
+        }
+        int kept = 0;
+        for (int i = 0; i < rankedCount; i++) {
+            if (!filter.mightContain(poolData.get(rankedHead[i]).getVideoId())) {
+                rankedHead[kept++] = rankedHead[i];
+            }
+        }
+        rankedCount = kept;
+        android.util.Log.d(TAG, "本次会话视频池中已看过 " + sessionSeenCount + "/" + poolData.size() + " 条");
+    }
+
+    /**
+     * 刷新后会话第 0 轮末尾窗口内的视频池下标，按展示顺序排列
+     */
+    private int[] rankedRoundTail() {
+        shuffleRankedRound();
+        int window = Math.min(NO_REPEAT_WINDOW, poolData.size());
+        int[] tail = new int[window];
+        for (int i = 0; i < window; i++) {
+            tail[i] = shuffler.get(poolData.size() - window + i);
+        }
+        return tail;
+    }
+
+    /**
+     * 冷启动会话第 0 轮末尾窗口内视频的视频池下标，按展示顺序排列
+     */
+    private int[] fileOrderTail() {
+        int roundSize = snapshotVideos.size() + coldStartTail.size();
+        int window = Math.min(NO_REPEAT_WINDOW, roundSize);
+        Map<Long, Integer> tailPositions = new HashMap<>(window * 2);
+        for (int i = roundSize - window; i < roundSize; i++) {
+            VideoBean video = i < snapshotVideos.size()
+                    ? snapshotVideos.get(i) : coldStartTail.get(i - snapshotVideos.size());
+            tailPositions.put(video.getVideoId(), i - (roundSize - window));
+        }
+        int[] tail = new int[window];
+        Arrays.fill(tail, -1);
+        for (int poolIndex = 0; poolIndex < poolData.size(); poolIndex++) {
+            Integer position = tailPositions.get(poolData.get(poolIndex).getVideoId());
+            if (position != null) {
+                tail[position] = poolIndex;
+            }
+        }
+        // 快照中已经不在视频池里的视频不参与去重
+        int found = 0;
+        for (int poolIndex : tail) {
+            if (poolIndex >= 0) {
+                tail[found++] = poolIndex;
+            }
+        }
+        return found == window ? tail : Arrays.copyOf(tail, found);
+    }
+
+    /**
+     * 初始化视频池，在后台线程流式解析 VideoFeed.json
+     * 每解析完一页就追加到视频池，等待中的分页请求随即返回
+     * @param context 上下文
+     */
+    public void init(Context context) {
+        synchronized (this) {
+            if (poolLoading || poolComplete) {
+                return;
+            }
+            poolLoading = true;
+            initStartMillis = SystemClock.elapsedRealtime();
+        }
+        Context appContext = context.getApplicationContext();
+        Thread loaderThread = new Thread(() -> {
+            restoreSnapshot(appContext);
+            loadVideoMetadata(appContext);
+            openSeenFilter(appContext);
+            loadPlaybackPositions(appContext);
+            loadPoolFromAssets(appContext);
+            try {
+                probeVideoMetadata(appContext);
+            } finally {
+                videoMetadataReady.set(videoMetadata);
+            }
+        }, "VideoFeedLoader");
+        loaderThread.start();
+    }
+
+    /**
+     * 打开已看视频过滤器，失败时不做跨会话去重
+     */
+    private void openSeenFilter(Context appContext) {
+        try {
+            seenFilter = SeenVideoFilter.open(new File(appContext.getFilesDir(), SEEN_FILTER_FILE),
+                    SEEN_FILTER_CAPACITY, SEEN_FILTER_FALSE_POSITIVE_RATE, SEEN_FILTER_MAX_AGE_MILLIS);
+        } catch (java.io.IOException e) {
+            android.util.Log.e(TAG, "打开已看视频过滤器失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 读取上次保存的播放位置，失败时从空记录开始
+     */
+    private void loadPlaybackPositions(Context appContext) {
+        File file = new File(appContext.getFilesDir(), PLAYBACK_POSITION_FILE);
+        try {
+            playbackPositions.readFrom(file);
+        } catch (java.io.IOException e) {
+            android.util.Log.e(TAG, "读取播放位置失败: " + e.getMessage());
+        }
+        playbackPositionFile = file;
+    }
+
+    /**
+     * 读取上次探测的视频元数据，需要在读取快照之后调用，构建标识不一致时重新探测
+     */
+    private void loadVideoMetadata(Context appContext) {
+        long stamp;
+        synchronized (this) {
+            stamp = buildStamp;
+        }
+        try {
+            videoMetadata.readFrom(new File(appContext.getFilesDir(), VIDEO_METADATA_FILE), stamp);
+        } catch (java.io.IOException e) {
+            android.util.Log.e(TAG, "读取视频元数据失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 探测视频池中还没有元数据的视频，多个视频使用同一个资源时只探测一次
+     * 在加载线程执行，有新的记录时写回文件
+     */
+    private void probeVideoMetadata(Context appContext) {
+        List<VideoBean> videos;
+        long stamp;
+        synchronized (this) {
+            videos = new ArrayList<>(poolData);
+            stamp = buildStamp;
+        }
+        long start = SystemClock.elapsedRealtime();
+        Resources resources = appContext.getResources();
+        Map<Integer, VideoMetadataIndex.Entry> probed = new HashMap<>();
+        for (VideoBean video : videos) {
+            if (videoMetadata.contains(video.getVideoId())) {
+                continue;
+            }
+            int resId = video.getVideoResourceId();
+            if (!probed.containsKey(resId)) {
+                probed.put(resId, probeVideoResource(resources, resId));
+            }
+            VideoMetadataIndex.Entry entry = probed.get(resId);
+            if (entry != null) {
+                videoMetadata.put(video.getVideoId(), entry);
+            }
+        }
+        if (!videoMetadata.isDirty()) {
+            return;
+        }
+        android.util.Log.d(TAG, "视频元数据探测完成，探测 " + probed.size() + " 个资源，共 " + videoMetadata.size()
+                + " 条，耗时 " + (SystemClock.elapsedRealtime() - start) + "ms");
+        try {
+            videoMetadata.write(new File(appContext.getFilesDir(), VIDEO_METADATA_FILE), stamp);
+        } catch (java.io.IOException e) {
+            android.util.Log.e(TAG, "写入视频元数据失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 用 MediaExtractor 读取视频资源第一条视频轨道的格式，只解析文件头，不解码
+     * @return 元数据，资源无法读取或没有视频轨道时返回 null
+     */
+    private static VideoMetadataIndex.Entry probeVideoResource(Resources resources, int resId) {
+        MediaExtractor extractor = new MediaExtractor();
+        try (AssetFileDescriptor afd = resources.openRawResourceFd(resId)) {
+            extractor.setDataSource(afd);
+            for (int i = 0; i < extractor.getTrackCount(); i++) {
+                MediaFormat format = extractor.getTrackFormat(i);
+                String mimeType = format.getString(MediaFormat.KEY_MIME);
+                if (mimeType == null || !mimeType.startsWith("video/")) {
+                    continue;
+                }
+                long durationUs = format.containsKey(MediaFormat.KEY_DURATION) ? format.getLong(MediaFormat.KEY_DURATION) : 0;
+                int rotation = format.containsKey(MediaFormat.KEY_ROTATION) ? format.getInteger(MediaFormat.KEY_ROTATION) : 0;
+                return new VideoMetadataIndex.Entry(durationUs / 1000, format.getInteger(MediaFormat.KEY_WIDTH),
+                        format.getInteger(MediaFormat.KEY_HEIGHT), rotation, mimeType);
+            }
+        } catch (java.io.IOException | RuntimeException e) {
+            android.util.Log.e(TAG, "探测视频元数据失败: resId=" + resId + ", " + e.getMessage());
+        } finally {
+            extractor.release();
+        }
+        return null;
+    }
+
+    /**
+     * 视频元数据索引，视频还没有探测时查询结果为 null
+     */
+    public VideoMetadataIndex getVideoMetadata() {
+        return videoMetadata;
+    }
+
+    /**
+     * 视频元数据读取和探测都结束后完成，在加载线程回调
+     * 之后索引中包含视频池里所有能探测到的视频，可以按视频流实际的格式做决定
+     * @return 视频元数据索引的 Future，没有初始化过时不会完成
+     */
+    public ListenableFuture<VideoMetadataIndex> getVideoMetadataReadyAsync() {
+        return Futures.nonCancellationPropagating(videoMetadataReady);
+    }
+
+    /**
+     * 每个视频上次的播放位置
+     */
+    public PlaybackPositionCache getPlaybackPositions() {
+        return playbackPositions;
+    }
+
+    /**
+     * 在仓库线程把播放位置写回文件
+     */
+    public void savePlaybackPositionsAsync() {
+        File file = playbackPositionFile;
+        if (file == null) {
+            return;
+        }
+        repositoryExecutor.execute(() -> {
+            try {
+                playbackPositions.write(file);
+            } catch (java.io.IOException e) {
+                android.util.Log.e(TAG, "写入播放位置失败: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 记录用户看过的视频，之后刷新的会话会把它排到第 0 轮最后
+     * 过滤器的写入会修改内存映射文件，可能触发缺页读盘，放到仓库线程执行，和刷新会话的读取保持先后顺序
+     * @param videoId 视频ID
+     */
+    public void markWatched(long videoId) {
+        SeenVideoFilter filter = seenFilter;
+        if (filter != null) {
+            repositoryExecutor.execute(() -> filter.put(videoId));
+        }
+    }
+
+    /**
+     * 在仓库线程把已看视频过滤器写回文件
+     */
+    public void flushSeenVideosAsync() {
+        SeenVideoFilter filter = seenFilter;
+        if (filter != null) {
+            repositoryExecutor.execute(filter::flush);
+        }
+    }
+
+    /**
+     * 读取冷启动快照，读到后首屏可以不等视频流解析直接展示
+     */
+    private void restoreSnapshot(Context appContext) {
+        File file = new File(appContext.getFilesDir(), SNAPSHOT_FILE);
+        long stamp = 0;
+        FeedSnapshot snapshot = null;
+        try {
+            // 资源ID只在同一次安装内有效，用安装时间作为构建标识
+            stamp = appContext.getPackageManager().getPackageInfo(appContext.getPackageName(), 0).lastUpdateTime;
+            snapshot = FeedSnapshot.read(file, stamp, VideoCounterStore.getInstance());
+        } catch (PackageManager.NameNotFoundException | java.io.IOException e) {
+            android.util.Log.e(TAG, "读取推荐流快照失败: " + e.getMessage());
+        }
+        synchronized (this) {
+            snapshotFile = file;
+            buildStamp = stamp;
+            if (snapshot != null) {
+                snapshotVideos = snapshot.getVideos();
+                restoredScrollPosition = snapshot.getScrollPosition();
+                for (VideoBean video : snapshotVideos) {
+                    poolById.put(video.getVideoId(), video);
+                    snapshotIds.add(video.getVideoId());
+                }
+            }
+            snapshotResolved = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * 在仓库线程写入推荐流快照
+     * @param videos 刷新后的首页数据
+     */
+    private void saveSnapshot(List<VideoBean> videos) {
+        File file;
+        long stamp;
+        synchronized (this) {
+            file = snapshotFile;
+            stamp = buildStamp;
+        }
+        if (file == null) {
+            return;
+        }
+        repositoryExecutor.execute(() -> {
+            try {
+                FeedSnapshot.write(file, stamp, 0, videos, VideoCounterStore.getInstance());
+            } catch (java.io.IOException e) {
+                android.util.Log.e(TAG, "写入推荐流快照失败: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 保存推荐页的滚动位置，原地更新快照文件
+     * @param position 第一个可见条目的位置
+     */
+    public void saveScrollPositionAsync(int position) {
+        File file;
+        synchronized (this) {
+            file = snapshotFile;
+        }
+        if (file == null) {
+            return;
+        }
+        repositoryExecutor.execute(() -> {
+            try {
+                FeedSnapshot.updateScrollPosition(file, position);
+            } catch (java.io.IOException e) {
+                android.util.Log.e(TAG, "更新滚动位置失败: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 取出快照中记录的滚动位置，只会返回一次
+     * @return 滚动位置，没有时返回 -1
+     */
+    public synchronized int consumeRestoredScrollPosition() {
+        int position = restoredScrollPosition;
+        restoredScrollPosition = -1;
+        return position;
+    }
+
+    /**
+     * 从 assets 流式加载视频池
+     */
+    private void loadPoolFromAssets(Context appContext) {
+        Resources resources = appContext.getResources();
+        String packageName = appContext.getPackageName();
+        VideoFeedLoader loader = new VideoFeedLoader(
+                (type, name) -> resources.getIdentifier(name, type, packageName), PAGE_SIZE);
+        try (Reader reader = new BufferedReader(new InputStreamReader(
+                appContext.getAssets().open(FEED_ASSET), StandardCharsets.UTF_8))) {
+            int total = loader.load(reader, this::appendPool);
+            android.util.Log.d(TAG, "视频流加载完成，共 " + total + " 条");
+        } catch (Exception e) {
+            android.util.Log.e(TAG, "视频流加载失败: " + e.getMessage());
+        } finally {
+            finishPoolLoading();
+        }
+    }
+
+    /**
+     * 追加一页解析好的视频，并唤醒等待中的请求
      */
-    private List<Integer> shuffleList = new ArrayList<>();
-    private void reshuffle(){
-       shuffleList = new ArrayList<>();
-       for(int i = 0; i < poolData.size(); i++){
-           shuffleList.add(i);
-       }
-       Collections.shuffle(shuffleList);
+    private synchronized void appendPool(List<VideoBean> page) {
+        for (VideoBean video : page) {
+            // 重复的视频ID只保留第一条，保证排序引擎的候选编号与视频池下标一致
+            if (ranker.addCandidate(video) != poolData.size()) {
+                continue;
+            }
+            poolData.add(video);
+            poolById.put(video.getVideoId(), video);
+            if (!snapshotIds.contains(video.getVideoId())) {
+                coldStartTail.add(video);
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * 视频池加载结束，文件缺失或解析失败时退回内置的模拟数据
+     */
+    private synchronized void finishPoolLoading() {
+        if (poolData.isEmpty()) {
+            appendPool(generateVideos());
+        }
+        poolLoading = false;
+        poolComplete = true;
+        notifyAll();
+    }
+
+    /**
+     * 等待视频池中至少有 count 条数据，或者视频池加载完成
+     * 没有初始化过时直接使用内置的模拟数据
+     */
+    private synchronized void awaitPool(int count) throws InterruptedException {
+        if (!poolLoading && !poolComplete) {
+            finishPoolLoading();
+        }
+        while (poolData.size() < count && !poolComplete) {
+            wait();
+        }
+    }
+
+    /**
+     * 等待冷启动快照读取完成
+     */
+    private synchronized void awaitSnapshot() throws InterruptedException {
+        while (poolLoading && !snapshotResolved) {
+            wait();
+        }
+    }
+
+    /**
+     * 获取推荐流中指定位置的条目
+     * 文件顺序部分属于第 0 轮，之后每轮都是整个视频池的一次乱序
+     * @param index 在推荐流中的绝对位置
+     * @return 推荐流条目
+     */
+    private synchronized FeedEntry feedEntryAt(int index) throws InterruptedException {
+        // 冷启动会话最前面是快照数据，之后第一轮按文件顺序，只需要等到该位置解析出来
+        if (fileOrderSession) {
+            awaitSnapshot();
+            if (index < snapshotVideos.size()) {
+                return new FeedEntry(0, snapshotVideos.get(index));
+            }
+            int tailIndex = index - snapshotVideos.size();
+            if (!poolLoading && !poolComplete) {
+                finishPoolLoading();
+            }
+            while (coldStartTail.size() <= tailIndex && !poolComplete) {
+                wait();
+            }
+            if (tailIndex < coldStartTail.size()) {
+                return new FeedEntry(0, coldStartTail.get(tailIndex));
+            }
+        }
+        // 之后的轮次需要整个视频池参与乱序
+        awaitPool(Integer.MAX_VALUE);
+        int round = index / poolData.size();
+        if(round != shuffledRound){
+            reshuffle(round);
+        }
+        return new FeedEntry(round, poolData.get(shuffler.get(index % poolData.size())));
     }
 
     /**
      * 获取推荐视频数据
-     * @return 推荐视频数据列表
+     * 返回当前会话中已经加载过的条目，保证与推荐页的位置一一对应，条目ID与推荐页一致
+     * @return 推荐流条目列表
      */
-    public synchronized List<VideoBean> getRecommendVideos() {
-        if(videoList.isEmpty()){
+    private synchronized List<FeedEntry> getRecommendVideos() throws InterruptedException {
+        if(loadedCount == 0){
             // 模拟从数据库或网络获取视频数据
-            videoList.addAll(generateVideos());
+            loadedCount = PAGE_SIZE;
+        }
+        List<FeedEntry> entries = new ArrayList<>(loadedCount);
+        for(int i = 0; i < loadedCount; i++){
+            entries.add(feedEntryAt(i));
         }
-        return new ArrayList<>(videoList);
+        return entries;
     }
 
     /**
      * 刷新推荐视频数据
-     * @return 推荐视频数据列表
+     * 更换会话种子，推荐流从头开始重新乱序，第一页是当前排名最高且没看过的视频
      */
-    public synchronized List<VideoBean> refreshShuffle(){
-        videoList.clear();
-        reshuffle();
-        for(int i = 0; i < poolData.size(); i++){
-            videoList.add(poolData.get(shuffleList.get(i)));
+    private synchronized void refreshShuffle(){
+        sessionSeed = System.nanoTime();
+        fileOrderSession = false;
+        loadedCount = 0;
+        shuffledRound = -1;
+        rankedCount = ranker.topPage(PAGE_SIZE, rankedHead);
+        sessionSeenResolved = false;
+    }
+
+    /**
+     * 用户点赞、收藏或评论后调用，更新该视频和同一作者视频的排名
+     * 只调整排序引擎中受影响的候选，不会重新排序整个视频池
+     * @param videoId 视频ID
+     */
+    public void onUserInteraction(long videoId) {
+        ranker.onInteraction(videoId);
+    }
+
+    /**
+     * 按游标分页加载推荐视频数据
+     * 游标即推荐流中的绝对位置，每次只生成本页的数据
+     * @param startKey 本页第一条视频的位置
+     * @param loadSize 本页条数
+     * @return 本页推荐流条目列表
+     */
+    private synchronized List<FeedEntry> loadFeedPage(int startKey, int loadSize) throws InterruptedException {
+        if (fileOrderSession) {
+            awaitSnapshot();
+            // 快照部分单独成页立即返回，不等待视频流解析
+            if (startKey < snapshotVideos.size()) {
+                loadSize = Math.min(loadSize, snapshotVideos.size() - startKey);
+            }
+        }
+        List<FeedEntry> page = new ArrayList<>(loadSize);
+        for(int i = startKey; i < startKey + loadSize; i++){
+            page.add(feedEntryAt(i));
+        }
+        loadedCount = Math.max(loadedCount, startKey + loadSize);
+        if (startKey == 0) {
+            reportFirstPage();
+            // 快照本身提供的首页不需要再写回
+            if (!fileOrderSession || snapshotVideos.isEmpty()) {
+                List<VideoBean> videos = new ArrayList<>(page.size());
+                for (FeedEntry entry : page) {
+                    videos.add(entry.getVideo());
+                }
+                saveSnapshot(videos);
+            }
         }
-        return new ArrayList<>(videoList);
+        return page;
     }
-    
+
     /**
-     * 加载更多推荐视频数据
-     * @return 推荐视频数据列表
+     * 统计冷启动首屏数据就绪耗时（区分是否命中快照）
      */
-    public synchronized List<VideoBean> loadMoreShuffle(){
-        reshuffle();
-        for(int i = 0; i < poolData.size(); i++){
-            videoList.add(poolData.get(shuffleList.get(i)));
+    private void reportFirstPage() {
+        if (firstPageReported || initStartMillis == 0) {
+            return;
         }
-        return new ArrayList<>(videoList);
+        firstPageReported = true;
+        android.util.Log.i(TAG, "冷启动首屏数据就绪耗时: " + (SystemClock.elapsedRealtime() - initStartMillis)
+                + "ms, snapshot=" + !snapshotVideos.isEmpty());
+    }
+
+    /**
+     * 异步获取推荐视频数据
+     * 进行中的相同请求会被合并
+     * @return 推荐流条目列表的 Future
+     */
+    public ListenableFuture<List<FeedEntry>> getRecommendVideosAsync() {
+        return requests.submit(RECOMMEND_KEY, this::getRecommendVideos);
+    }
+
+    /**
+     * 异步刷新推荐视频数据
+     * 进行中的刷新请求会被合并；刷新会开启新的推荐会话，尚未完成的分页请求直接取消
+     * @return 刷新完成的 Future
+     */
+    public ListenableFuture<Void> refreshShuffleAsync() {
+        int cancelled = requests.cancel(key -> key.kind == RequestKind.PAGE);
+        if (cancelled > 0) {
+            android.util.Log.d(TAG, "刷新取消了 " + cancelled + " 个分页请求");
+        }
+        return requests.submit(REFRESH_KEY, () -> {
+            refreshShuffle();
+            return null;
+        });
+    }
+
+    /**
+     * 异步按游标分页加载推荐视频数据
+     * 推荐页和全屏页同时请求同一页时只加载一次
+     * @param startKey 本页第一条视频的位置
+     * @param loadSize 本页条数
+     * @return 本页推荐流条目列表的 Future
+     */
+    public ListenableFuture<List<FeedEntry>> loadFeedPageAsync(int startKey, int loadSize) {
+        return requests.submit(new RequestKey(RequestKind.PAGE, startKey, loadSize),
+                () -> loadFeedPage(startKey, loadSize));
+    }
+
+    /**
+     * 根据视频ID查找视频
+     * 用于把滑动窗口外的视频存根还原为完整的视频对象，在主线程调用，
+     * 不获取仓库锁，避免等待仓库线程上的视频流解析
+     * @param videoId 视频ID
+     * @return 视频对象，找不到时返回 null
+     */
+    public VideoBean findVideoById(long videoId){
+        return poolById.get(videoId);
     }
 
     /**
@@ -121,18 +840,18 @@ public class VideoRepository {
             int commentCount = (int) (Math.random() * 1000);
             int shareCount = (int) (Math.random() * 1000);
             int collectCount = (int) (Math.random() * 1000);
-            AuthorBean authorDetail = new AuthorBean(
+            AuthorBean authorDetail = AuthorRegistry.getInstance().intern(
+                    i + 1,
                     AUTHOR_POOL[i],
                     AVATAR_POOL[i]
             );
+            VideoCounterStore.getInstance().register(i + 1, likeCount, commentCount, shareCount,
+                    collectCount, false, false);
             videos.add(new VideoBean(
+                    i + 1,
                     COVER_POOL[i],
                     VIDEO_POOL[i],
                     TITLE_POOL[i],
-                    likeCount,
-                    commentCount,
-                    shareCount,
-                    collectCount,
                     authorDetail
             ));
         }
@@ -12,17 +12,22 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.LoadState;
+import androidx.paging.PagingData;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.recyclerview.widget.StaggeredGridLayoutManager;
 
 import com.example.douyinline.R;
+import com.example.douyinline.bean.FeedEntry;
 import com.example.douyinline.bean.VideoBean;
 import com.example.douyinline.event.NavigationEvent;
+import com.example.douyinline.repository.VideoCounterStore;
+import com.example.douyinline.repository.VideoRepository;
+import com.example.douyinline.ui.video.FirstFrameTracker;
 import com.example.douyinline.ui.video.VideoPlayActivity;
 import com.scwang.smart.refresh.layout.api.RefreshLayout;
 
-import java.util.ArrayList;
-import java.util.List;
+import kotlin.Unit;
 
 /**
  * 推荐页Fragment
@@ -32,6 +37,16 @@ public class RecommendFragment extends Fragment {
     private RecyclerView recyclerView;
     private RecommendViewModel viewModel;
     private RefreshLayout refreshLayout;
+    // 冷启动快照中的滚动位置是否已经处理过
+    private boolean scrollRestoreChecked = false;
+    // 批量同步计数后局部刷新可见卡片
+    private final VideoCounterStore.OnCountersChangedListener countersChangedListener = () -> {
+        RecyclerView view = recyclerView;
+        if (view != null) {
+            view.post(() -> videoCardAdapter.notifyItemRangeChanged(0,
+                    videoCardAdapter.getItemCount(), VideoCardAdapter.PAYLOAD_COUNTS));
+        }
+    };
 
     public RecommendFragment() {
         // Required empty public constructor
@@ -62,27 +77,28 @@ public class RecommendFragment extends Fragment {
 
         // 初始化刷新布局
         initRefreshLayout();
+
+        VideoCounterStore.getInstance().addOnCountersChangedListener(countersChangedListener);
+    }
+
+    @Override
+    public void onDestroyView() {
+        VideoCounterStore.getInstance().removeOnCountersChangedListener(countersChangedListener);
+        recyclerView = null;
+        super.onDestroyView();
     }
     /**
      * 初始化刷新布局
      */
     private void initRefreshLayout() {
-        refreshLayout.setEnableLoadMore(true);
+        // 加载更多由分页库在滑动到底部附近时自动触发
+        refreshLayout.setEnableLoadMore(false);
         refreshLayout.setEnableRefresh(true);
-        // 监听刷新事件
+        // 监听刷新事件，数据真正到达后再结束刷新动画
         refreshLayout.setOnRefreshListener(refreshLayout -> {
-            // 调用ViewModel的方法加载推荐视频列表
+            // 调用ViewModel的方法刷新推荐视频列表
             viewModel.refreshRecommendVideos();
-            refreshLayout.finishRefresh();
-        });
-        // 监听加载更多事件
-        refreshLayout.setOnLoadMoreListener(refreshLayout -> {
-            // 调用ViewModel的方法加载更多推荐视频列表
-            viewModel.loadMoreRecommendVideos();
-            refreshLayout.finishLoadMore();
         });
-        // 首次进入刷新列表
-        viewModel.refreshRecommendVideos();
     }
     /**
      * 初始化 RecyclerView
@@ -108,18 +124,79 @@ public class RecommendFragment extends Fragment {
         recyclerView.setLayoutManager(layoutManager);
         recyclerView.setAdapter(videoCardAdapter);
 
+        // 将分页加载状态同步给ViewModel
+        videoCardAdapter.addLoadStateListener(loadStates -> {
+            LoadState refresh = loadStates.getRefresh();
+            LoadState append = loadStates.getAppend();
+            Throwable error = null;
+            if (refresh instanceof LoadState.Error) {
+                error = ((LoadState.Error) refresh).getError();
+            } else if (append instanceof LoadState.Error) {
+                error = ((LoadState.Error) append).getError();
+            }
+            viewModel.onLoadStateChanged(refresh instanceof LoadState.Loading,
+                    append instanceof LoadState.Loading, error);
+            if (refresh instanceof LoadState.NotLoading && videoCardAdapter.getItemCount() > 0) {
+                restoreScrollPosition();
+            }
+            return Unit.INSTANCE;
+        });
+
+    }
+
+    /**
+     * 首页数据到达后恢复上次退出时的滚动位置，只执行一次
+     */
+    private void restoreScrollPosition() {
+        if (scrollRestoreChecked) {
+            return;
+        }
+        scrollRestoreChecked = true;
+        int position = VideoRepository.getInstance().consumeRestoredScrollPosition();
+        if (position > 0 && position < videoCardAdapter.getItemCount()) {
+            recyclerView.scrollToPosition(position);
+        }
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        // 记录第一个可见条目的位置，下次冷启动时恢复
+        if (recyclerView != null && recyclerView.getLayoutManager() instanceof StaggeredGridLayoutManager) {
+            int[] firstPositions = ((StaggeredGridLayoutManager) recyclerView.getLayoutManager())
+                    .findFirstVisibleItemPositions(null);
+            int first = RecyclerView.NO_POSITION;
+            for (int position : firstPositions) {
+                if (position != RecyclerView.NO_POSITION && (first == RecyclerView.NO_POSITION || position < first)) {
+                    first = position;
+                }
+            }
+            if (first != RecyclerView.NO_POSITION) {
+                VideoRepository.getInstance().saveScrollPositionAsync(first);
+            }
+        }
     }
 
     /**
      * 观察ViewModel的数据变化，更新UI
      */
     public void observeViewModel() {
-        // 观察视频列表变化
-        viewModel.getVideoListLiveData().observe(getViewLifecycleOwner(), new Observer<List<VideoBean>>() {
+        // 观察分页数据变化
+        viewModel.getVideoPagingLiveData().observe(getViewLifecycleOwner(), new Observer<PagingData<FeedEntry>>() {
+            @Override
+            public void onChanged(PagingData<FeedEntry> pagingData) {
+                if (pagingData != null) {
+                    videoCardAdapter.submitData(getViewLifecycleOwner().getLifecycle(), pagingData);
+                }
+            }
+        });
+
+        // 观察刷新状态变化，首页数据到达后结束刷新动画
+        viewModel.getRefreshStatusLiveData().observe(getViewLifecycleOwner(), new Observer<Boolean>() {
             @Override
-            public void onChanged(List<VideoBean> videoList) {
-                if (videoList != null) {
-                    videoCardAdapter.setVideoList(videoList);
+            public void onChanged(Boolean refreshing) {
+                if (refreshLayout != null && !Boolean.TRUE.equals(refreshing)) {
+                    refreshLayout.finishRefresh();
                 }
             }
         });
@@ -139,8 +216,8 @@ public class RecommendFragment extends Fragment {
         viewModel.getHasMoreDataLiveData().observe(getViewLifecycleOwner(), new Observer<Boolean>() {
             @Override
             public void onChanged(Boolean hasMoreData) {
-                if (refreshLayout != null) {
-                    refreshLayout.setEnableLoadMore(Boolean.TRUE.equals(hasMoreData));
+                if (refreshLayout != null && !Boolean.TRUE.equals(hasMoreData)) {
+                    refreshLayout.setNoMoreData(true);
                 }
             }
         });
@@ -150,9 +227,13 @@ public class RecommendFragment extends Fragment {
             @Override
             public void onChanged(NavigationEvent navigationEvent) {
                 if (navigationEvent != null) {
+                    // 启动耗时从点击开始计时，到播放页第一帧结束
+                    FirstFrameTracker.getInstance().onLaunchRequested();
                     Intent intent = new Intent(requireContext(), VideoPlayActivity.class);
                     intent.putExtra("startPosition", navigationEvent.getPosition());
                     intent.putExtra("coverResId", navigationEvent.getCoverResId());
+                    intent.putExtra("videoId", navigationEvent.getVideoId());
+                    intent.putExtra("videoResId", navigationEvent.getVideoResId());
                     startActivity(intent);
                     // 禁用默认转场动画，使封面过渡更自然
                     requireActivity().overridePendingTransition(android.R.anim.fade_in, android.R.anim.fade_out);
@@ -1,25 +1,41 @@
 package com.example.douyinline.ui.home.recommend;
 
+import androidx.lifecycle.LiveData;
 import androidx.lifecycle.ViewModel;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.ViewModelKt;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 
-
+import com.example.douyinline.bean.FeedEntry;
 import com.example.douyinline.bean.VideoBean;
 import com.example.douyinline.event.NavigationEvent;
+import com.example.douyinline.repository.RecommendPagingSource;
 import com.example.douyinline.repository.VideoRepository;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
 
-import java.util.List;
-import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
 
 /**
  * 推荐页ViewModel
  * 负责处理业务逻辑，管理UI状态
  */
 public class RecommendViewModel extends ViewModel {
+    // 距离列表底部还剩多少条时开始预加载下一页
+    private static final int PREFETCH_DISTANCE = 4;
+
     private VideoRepository videoRepository;
 
-    // LiveData 用于存储推荐视频数据变化
-    private MutableLiveData<List<VideoBean>> videoListLiveData;
+    // LiveData 用于存储推荐视频分页数据变化
+    private final LiveData<PagingData<FeedEntry>> videoPagingLiveData;
+    // 当前正在使用的分页数据源，刷新时使其失效
+    private volatile RecommendPagingSource currentPagingSource;
+    // 下拉刷新后是否已经观察到首页开始加载，用于判断刷新数据是否真正到达
+    private boolean refreshLoadStarted = false;
     // LiveData 用于显示Toast
     private MutableLiveData<String> toastMessageLiveData;
     // 刷新状态
@@ -39,17 +55,27 @@ public class RecommendViewModel extends ViewModel {
    
     public RecommendViewModel() {
         videoRepository = VideoRepository.getInstance();
-        videoListLiveData = new MutableLiveData<>(new ArrayList<>());
         toastMessageLiveData = new MutableLiveData<>();
+
+        // 每页只加载 PAGE_SIZE 条，首屏加载两页
+        PagingConfig pagingConfig = new PagingConfig(VideoRepository.PAGE_SIZE, PREFETCH_DISTANCE,
+                false, VideoRepository.PAGE_SIZE * 2);
+        Pager<Integer, FeedEntry> pager = new Pager<>(pagingConfig, () -> {
+            currentPagingSource = new RecommendPagingSource(videoRepository);
+            return currentPagingSource;
+        });
+        // 缓存在 ViewModel 作用域内，配置变更后不会重新加载
+        videoPagingLiveData = PagingLiveData.cachedIn(PagingLiveData.getLiveData(pager),
+                ViewModelKt.getViewModelScope(this));
     }
 
     /**
-     * 获取视频列表的LiveData
-     * Fragment观察该LiveData，当数据变化时，会自动更新UI
-     * @return 视频列表的LiveData
+     * 获取视频分页数据的LiveData
+     * Fragment观察该LiveData，并提交给分页适配器
+     * @return 视频分页数据的LiveData
      */
-    public MutableLiveData<List<VideoBean>> getVideoListLiveData() {
-        return videoListLiveData;
+    public LiveData<PagingData<FeedEntry>> getVideoPagingLiveData() {
+        return videoPagingLiveData;
     }
 
     /**
@@ -101,20 +127,6 @@ public class RecommendViewModel extends ViewModel {
         return navigateToVideoLiveData;
     }
 
-    /**
-     * 加载推荐视频列表方法
-     * 调用VideoRepository的getRecommendVideos方法获取数据
-     */
-    public void loadRecommendVideos() {
-        // 从数据库或网络获取视频数据
-        List<VideoBean> videoList = videoRepository.getRecommendVideos();
-        if(videoList == null || videoList.isEmpty()){
-            toastMessageLiveData.setValue("没有获取到推荐视频数据");
-        }else{
-            videoListLiveData.setValue(videoList);
-        }
-    }
-
     /**
      * 处理视频卡片点击事件方法
      * 跳转到视频详情页
@@ -123,43 +135,57 @@ public class RecommendViewModel extends ViewModel {
      */
     public void onVideoCardClick(VideoBean video, int position) {
         if (video == null){ return;}
-        // 发送导航事件，包含视频的位置信息和封面资源 ID（用于转场动画）
-        navigateToVideoLiveData.setValue(new NavigationEvent(position, video.getCoverResourceId()));
+        // 发送导航事件，包含视频的位置信息、封面资源 ID（用于转场动画）和查找首帧用的视频信息
+        navigateToVideoLiveData.setValue(new NavigationEvent(position, video.getCoverResourceId(),
+                video.getVideoId(), video.getVideoResourceId()));
     }
 
     /**
      * 刷新推荐视频列表方法
-     * 调用VideoRepository的refreshShuffle方法刷新数据
+     * 在仓库线程开启新的推荐会话，完成后让当前分页数据源失效，分页库会从头重新加载
      */
     public void refreshRecommendVideos() {
         refreshStatusLiveData.setValue(true);
-        try {
-            // 从数据库或网络获取视频数据
-            List<VideoBean> videoList = videoRepository.refreshShuffle();
-            videoListLiveData.setValue(videoList);
-            hasMoreDataLiveData.setValue(true);
-        }catch(Exception e){
-            errorStatusLiveData.setValue("刷新推荐视频数据失败：" + e.getMessage());
-        }finally{
-            refreshStatusLiveData.setValue(false);
-        }
+        refreshLoadStarted = false;
+        Futures.addCallback(videoRepository.refreshShuffleAsync(), new FutureCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                RecommendPagingSource pagingSource = currentPagingSource;
+                if (pagingSource != null) {
+                    pagingSource.invalidate();
+                }
+                hasMoreDataLiveData.postValue(true);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                // 被取消时由之后的请求负责结束刷新
+                if (t instanceof CancellationException) {
+                    return;
+                }
+                errorStatusLiveData.postValue("刷新推荐视频数据失败：" + t.getMessage());
+                refreshStatusLiveData.postValue(false);
+            }
+        }, MoreExecutors.directExecutor());
     }
 
     /**
-     * 加载更多推荐视频列表方法
-     * 调用VideoRepository的loadMoreShuffle方法加载更多数据
+     * 分页加载状态变化时调用
+     * 下拉刷新只有在新的首页加载完成后才结束
+     * @param refreshing 首页是否仍在加载
+     * @param loadingMore 下一页是否仍在加载
+     * @param error 加载失败的异常，没有则为 null
      */
-    public void loadMoreRecommendVideos() {
-        loadMoreStatusLiveData.setValue(true);
-        try {
-            // 从数据库或网络获取视频数据
-            List<VideoBean> videoList = videoRepository.loadMoreShuffle();
-            videoListLiveData.setValue(videoList);
-            hasMoreDataLiveData.setValue(true);
-        }catch(Exception e){
-            errorStatusLiveData.setValue("加载更多推荐视频数据失败：" + e.getMessage());
-        }finally{
-            loadMoreStatusLiveData.setValue(false);
+    public void onLoadStateChanged(boolean refreshing, boolean loadingMore, Throwable error) {
+        if (refreshing) {
+            refreshLoadStarted = true;
+        } else if (refreshLoadStarted || error != null) {
+            refreshLoadStarted = false;
+            refreshStatusLiveData.setValue(false);
+        }
+        loadMoreStatusLiveData.setValue(loadingMore);
+        if (error != null) {
+            errorStatusLiveData.setValue("加载推荐视频数据失败：" + error.getMessage());
         }
     }
 
@@ -2,6 +2,7 @@ package com.example.douyinline.ui.home.recommend;
 
 import android.content.Context;
 import android.graphics.BitmapFactory;
+import android.net.Uri;
 import android.util.DisplayMetrics;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -11,24 +12,66 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.resource.bitmap.CenterCrop;
 import com.bumptech.glide.request.RequestOptions;
 import com.example.douyinline.R;
+import com.example.douyinline.bean.FeedEntry;
 import com.example.douyinline.bean.VideoBean;
+import com.example.douyinline.repository.VideoCounterStore;
+import com.example.douyinline.ui.video.ThumbnailExtractor;
+import com.example.douyinline.ui.video.VideoCache;
 
+import java.io.File;
 import java.util.List;
+import java.util.Objects;
 
 /**
- * 推荐页双列视频流RecyclerView适配器
+ * 推荐页双列视频流分页适配器
+ * 分页数据由 PagingDataAdapter 按页追加，只通知新增范围；差异在后台线程按条目ID计算
  */
-public class VideoCardAdapter extends RecyclerView.Adapter<VideoCardAdapter.VideoCardViewHolder> {
+public class VideoCardAdapter extends PagingDataAdapter<FeedEntry, VideoCardAdapter.VideoCardViewHolder> {
+    // 局部刷新标记：只更新互动计数
+    public static final Object PAYLOAD_COUNTS = new Object();
+
+    private final VideoCounterStore counterStore = VideoCounterStore.getInstance();
     private Context context;
-    private List<VideoBean> videoList;
+    private ThumbnailExtractor thumbnailExtractor;
     private OnItemClickListener listener;
 
+    // 条目对比规则，刷新时用于计算差异
+    // 同一视频会在不同轮次重复出现，必须按条目ID而不是视频对象判断是否为同一条目
+    private static final DiffUtil.ItemCallback<FeedEntry> DIFF_CALLBACK = new DiffUtil.ItemCallback<FeedEntry>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull FeedEntry oldItem, @NonNull FeedEntry newItem) {
+            return oldItem.getEntryId() == newItem.getEntryId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull FeedEntry oldItem, @NonNull FeedEntry newItem) {
+            // 互动计数不在视频对象上，计数变化通过 PAYLOAD_COUNTS 局部刷新
+            return oldItem.getVideo().getCoverResourceId() == newItem.getVideo().getCoverResourceId()
+                    && Objects.equals(oldItem.getVideo().getTitle(), newItem.getVideo().getTitle());
+        }
+    };
+
+    public VideoCardAdapter() {
+        super(DIFF_CALLBACK);
+    }
+
+    /**
+     * 获取指定位置的视频
+     * @return 视频对象，分页数据尚未加载时为 null
+     */
+    private VideoBean getVideo(int position) {
+        FeedEntry entry = getItem(position);
+        return entry == null ? null : entry.getVideo();
+    }
+
     // 点击事件的回调接口
     public interface OnItemClickListener {
         void onItemClick(VideoBean video, int position);
@@ -39,28 +82,37 @@ public class VideoCardAdapter extends RecyclerView.Adapter<VideoCardAdapter.Vide
         this.listener = listener;
     }
 
-    // 设置获取数据的方法
-    public void setVideoList(List<VideoBean> videoList) {
-        this.videoList = videoList;
-        notifyDataSetChanged();
-    }
-
     @NonNull
     @Override
     public VideoCardViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         this.context = parent.getContext();
+        this.thumbnailExtractor = ThumbnailExtractor.getInstance(context);
         View view = LayoutInflater.from(context).inflate(R.layout.item_video_card, parent, false);
-        return new VideoCardViewHolder(view);
+        VideoCardViewHolder holder = new VideoCardViewHolder(view);
+        holder.firstFrameCallback = (readyVideoId, file) -> {
+            // 提取期间卡片可能已经绑定了别的视频
+            if (holder.boundVideoId == readyVideoId) {
+                loadCover(holder, file);
+            }
+        };
+        return holder;
     }
 
     @Override
-    public void onBindViewHolder(@NonNull VideoCardViewHolder holder, int position) {
-        // 视频列表空值检查
-        if(videoList == null || videoList.isEmpty() || position < 0 || position >= videoList.size()){
+    public void onBindViewHolder(@NonNull VideoCardViewHolder holder, int position, @NonNull List<Object> payloads) {
+        VideoBean videoBean = getVideo(position);
+        if (videoBean != null && !payloads.isEmpty() && payloads.stream().allMatch(payload -> payload == PAYLOAD_COUNTS)) {
+            // 只有计数变化时不重新加载封面
+            holder.tvLikeCount.setText(String.valueOf(counterStore.getLikeCount(videoBean.getVideoId())));
             return;
         }
-        // 视频对象空值检查
-        VideoBean videoBean = videoList.get(position);
+        onBindViewHolder(holder, position);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull VideoCardViewHolder holder, int position) {
+        // 视频对象空值检查（分页数据尚未加载时为 null）
+        VideoBean videoBean = getVideo(position);
         if(videoBean == null){
             return;
         }
@@ -71,42 +123,66 @@ public class VideoCardAdapter extends RecyclerView.Adapter<VideoCardAdapter.Vide
         // 根据图片宽高比设置封面显示比例
         setCoverAspectRatio(holder, videoBean.getCoverResourceId());
 
-        // 图片裁切 - 使用centerCrop对视频封面进行中心裁切
-        RequestOptions options = new RequestOptions()
-                .transform(new CenterCrop());
-
-        Glide.with(holder.itemView.getContext())
-                .load(videoBean.getCoverResourceId())
-                .apply(options)
-                .into(holder.ivCover);
+        // 优先显示已经提取的视频首帧，没有时先显示封面，后台提取完成后再换成首帧
+        long videoId = videoBean.getVideoId();
+        if (holder.boundVideoId != videoId) {
+            cancelFirstFrame(holder);
+            holder.boundVideoId = videoId;
+        }
+        Uri videoUri = VideoCache.buildVideoUri(context.getPackageName(), videoBean.getVideoResourceId());
+        File firstFrame = thumbnailExtractor.request(videoId, videoUri, holder.firstFrameCallback);
+        loadCover(holder, firstFrame != null ? firstFrame : videoBean.getCoverResourceId());
 
         // 设置作者头像
         holder.ivAuthorAvatar.setImageResource(videoBean.getAuthorDetail().getAuthorAvatar());
 
         // 设置文字
         holder.tvTitle.setText(videoBean.getTitle());
-        holder.tvLikeCount.setText(String.valueOf(videoBean.getLikeCount()));
+        holder.tvLikeCount.setText(String.valueOf(counterStore.getLikeCount(videoBean.getVideoId())));
         holder.tvAuthorName.setText(videoBean.getAuthorDetail().getAuthorName());
 
         // 设置点击事件
         holder.itemView.setOnClickListener(v->{
             if(listener != null){
                 int currentPosition = holder.getBindingAdapterPosition();
-                listener.onItemClick(videoList.get(currentPosition), currentPosition);
+                if(currentPosition != RecyclerView.NO_POSITION){
+                    listener.onItemClick(getVideo(currentPosition), currentPosition);
+                }
             }
         });
     }
 
-    @Override
-    public int getItemCount() {
-        return videoList == null ? 0 : videoList.size(); // 防止空指针
-    }
-
     @Override
     public void onViewRecycled(@NonNull VideoCardViewHolder holder) {
         super.onViewRecycled(holder);
         // 清除 Glide 的加载请求，避免复用时显示旧图片
         Glide.with(holder.itemView.getContext()).clear(holder.ivAuthorAvatar);
+        // 卡片滑出屏幕后不再需要它的首帧
+        cancelFirstFrame(holder);
+    }
+
+    /**
+     * 加载卡片封面，model 为封面资源 ID 或首帧文件
+     */
+    private void loadCover(@NonNull VideoCardViewHolder holder, Object model) {
+        // 图片裁切 - 使用centerCrop对视频封面进行中心裁切
+        RequestOptions options = new RequestOptions()
+                .transform(new CenterCrop());
+
+        Glide.with(holder.itemView.getContext())
+                .load(model)
+                .apply(options)
+                .into(holder.ivCover);
+    }
+
+    /**
+     * 取消卡片上还没完成的首帧提取
+     */
+    private void cancelFirstFrame(@NonNull VideoCardViewHolder holder) {
+        if (holder.boundVideoId != VideoCardViewHolder.NO_VIDEO && thumbnailExtractor != null) {
+            thumbnailExtractor.cancel(holder.boundVideoId, holder.firstFrameCallback);
+        }
+        holder.boundVideoId = VideoCardViewHolder.NO_VIDEO;
     }
 
     /**
@@ -159,12 +235,18 @@ public class VideoCardAdapter extends RecyclerView.Adapter<VideoCardAdapter.Vide
         }
     }
     public static class VideoCardViewHolder extends RecyclerView.ViewHolder {
+        static final long NO_VIDEO = -1;
+
         ImageView ivCover;
         ImageView ivAuthorAvatar;
         ImageView ivLikeIcon;
         TextView tvTitle;
         TextView tvAuthorName;
         TextView tvLikeCount;
+        // 当前绑定的视频ID，首帧提取完成时用来判断卡片是否已被复用
+        long boundVideoId = NO_VIDEO;
+        // 卡片作为首帧请求方登记的回调，取消时只移除这张卡片的请求
+        ThumbnailExtractor.Callback firstFrameCallback;
 
         public VideoCardViewHolder(@NonNull View itemView){
             super(itemView);
@@ -0,0 +1,43 @@
+package com.example.douyinline.ui.video;
+
+/**
+ * 按解码器实例数和内存级别决定播放器池规模
+ * 1. 播放器数量不超过视频流格式和分辨率下解码器可以同时创建的实例数
+ * 2. 每个播放器按 MEMORY_PER_PLAYER_MB 估算缓冲占用，不超过应用内存级别能容纳的数量
+ * 3. 低内存设备只保留一个播放器，不做预加载
+ * 当前页占一个播放器，其余的用于滑动方向上的预加载
+ */
+public class AdaptivePoolSizingPolicy implements PoolSizingPolicy {
+    static final int MIN_POOL_SIZE = 1;
+    static final int MAX_POOL_SIZE = 4;
+    // 读不到解码器实例数时按原来的固定值处理
+    static final int FALLBACK_DECODER_INSTANCES = 2;
+    // 每个 4K 播放器的缓冲和解码输出大致占用的内存
+    static final int MEMORY_PER_PLAYER_MB = 64;
+
+    private final String mimeType;
+    private final int width;
+    private final int height;
+
+    /**
+     * @param mimeType 视频流的编码格式
+     * @param width 视频流的最大宽度
+     * @param height 视频流的最大高度
+     */
+    public AdaptivePoolSizingPolicy(String mimeType, int width, int height) {
+        this.mimeType = mimeType;
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public PoolSizing decide(DeviceProfile profile) {
+        int decoders = profile.getMaxDecoderInstances(mimeType, width, height);
+        if (decoders <= 0) {
+            decoders = FALLBACK_DECODER_INSTANCES;
+        }
+        int byMemory = profile.isLowRamDevice() ? MIN_POOL_SIZE : profile.getMemoryClassMb() / MEMORY_PER_PLAYER_MB;
+        int poolSize = Math.max(MIN_POOL_SIZE, Math.min(MAX_POOL_SIZE, Math.min(decoders, byMemory)));
+        return new PoolSizing(poolSize, poolSize, poolSize - 1);
+    }
+}
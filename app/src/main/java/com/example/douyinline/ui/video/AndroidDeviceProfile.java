@@ -0,0 +1,78 @@
+package com.example.douyinline.ui.video;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecList;
+import android.os.Build;
+
+/**
+ * 从 MediaCodecList 和 ActivityManager 读取的真实设备能力
+ */
+public class AndroidDeviceProfile implements DeviceProfile {
+    private static final String TAG = "AndroidDeviceProfile";
+    private final ActivityManager activityManager;
+
+    public AndroidDeviceProfile(Context context) {
+        this.activityManager = (ActivityManager) context.getApplicationContext()
+                .getSystemService(Context.ACTIVITY_SERVICE);
+    }
+
+    /**
+     * 遍历所有支持该格式和分辨率的解码器，取硬件解码器中最大的同时实例数
+     * 软件解码器的实例数只受内存限制，不代表硬件解码能力，只在没有硬件解码器时使用
+     */
+    @Override
+    public int getMaxDecoderInstances(String mimeType, int width, int height) {
+        int maxHardwareInstances = 0;
+        int maxSoftwareInstances = 0;
+        MediaCodecList codecList = new MediaCodecList(MediaCodecList.REGULAR_CODECS);
+        for (MediaCodecInfo info : codecList.getCodecInfos()) {
+            if (info.isEncoder()) {
+                continue;
+            }
+            for (String type : info.getSupportedTypes()) {
+                if (!type.equalsIgnoreCase(mimeType)) {
+                    continue;
+                }
+                try {
+                    MediaCodecInfo.CodecCapabilities capabilities = info.getCapabilitiesForType(type);
+                    MediaCodecInfo.VideoCapabilities video = capabilities.getVideoCapabilities();
+                    if (video == null || !video.isSizeSupported(width, height)) {
+                        continue;
+                    }
+                    int instances = capabilities.getMaxSupportedInstances();
+                    if (isHardwareDecoder(info)) {
+                        maxHardwareInstances = Math.max(maxHardwareInstances, instances);
+                    } else {
+                        maxSoftwareInstances = Math.max(maxSoftwareInstances, instances);
+                    }
+                } catch (IllegalArgumentException e) {
+                    android.util.Log.e(TAG, "读取解码器能力失败: " + info.getName() + ", " + e.getMessage());
+                }
+            }
+        }
+        return maxHardwareInstances > 0 ? maxHardwareInstances : maxSoftwareInstances;
+    }
+
+    /**
+     * Android 10 起由系统标记是否硬件加速，之前的版本按平台软件解码器的名称前缀判断
+     */
+    private static boolean isHardwareDecoder(MediaCodecInfo info) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return info.isHardwareAccelerated();
+        }
+        String name = info.getName();
+        return !name.startsWith("OMX.google.") && !name.startsWith("c2.android.");
+    }
+
+    @Override
+    public int getMemoryClassMb() {
+        return activityManager.getMemoryClass();
+    }
+
+    @Override
+    public boolean isLowRamDevice() {
+        return activityManager.isLowRamDevice();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.douyinline.ui.video;
+
+/**
+ * 播放器缓冲配置，对应 DefaultLoadControl 的各项参数
+ * SHORT_VIDEO 用于 15–60 秒的循环短视频：缓冲小、几百毫秒即可起播、限制回看缓冲
+ * LONG_FORM 与 DefaultLoadControl 的默认值一致
+ */
+public class BufferProfile {
+    // 不限制每个播放器的缓冲字节数，由 DefaultLoadControl 按轨道类型计算
+    public static final int UNSET_BYTES = -1;
+
+    public static final BufferProfile SHORT_VIDEO = new BufferProfile(
+            "short_video", 2_000, 10_000, 300, 1_000, 5_000, 16 * 1024 * 1024);
+    public static final BufferProfile LONG_FORM = new BufferProfile(
+            "long_form", 50_000, 50_000, 2_500, 5_000, 0, UNSET_BYTES);
+
+    private final String name;
+    // 缓冲低于该时长时继续加载
+    private final int minBufferMs;
+    // 缓冲达到该时长时停止加载
+    private final int maxBufferMs;
+    // 起播需要的缓冲时长
+    private final int bufferForPlaybackMs;
+    // 卡顿后恢复播放需要的缓冲时长
+    private final int bufferForPlaybackAfterRebufferMs;
+    // 保留的已播放部分的时长
+    private final int backBufferMs;
+    // 每个播放器的缓冲字节数，池的总上限为它乘以池大小
+    private final int bufferBytesPerPlayer;
+
+    public BufferProfile(String name, int minBufferMs, int maxBufferMs, int bufferForPlaybackMs,
+                         int bufferForPlaybackAfterRebufferMs, int backBufferMs, int bufferBytesPerPlayer) {
+        if (bufferForPlaybackMs < 0 || bufferForPlaybackAfterRebufferMs < 0 || backBufferMs < 0) {
+            throw new IllegalArgumentException("缓冲时长不能为负数: " + name);
+        }
+        if (bufferForPlaybackMs > minBufferMs || bufferForPlaybackAfterRebufferMs > minBufferMs) {
+            throw new IllegalArgumentException("起播缓冲不能超过最小缓冲: " + name);
+        }
+        if (minBufferMs > maxBufferMs) {
+            throw new IllegalArgumentException("最小缓冲不能超过最大缓冲: " + name);
+        }
+        if (bufferBytesPerPlayer <= 0 && bufferBytesPerPlayer != UNSET_BYTES) {
+            throw new IllegalArgumentException("缓冲字节数无效: " + bufferBytesPerPlayer);
+        }
+        this.name = name;
+        this.minBufferMs = minBufferMs;
+        this.maxBufferMs = maxBufferMs;
+        this.bufferForPlaybackMs = bufferForPlaybackMs;
+        this.bufferForPlaybackAfterRebufferMs = bufferForPlaybackAfterRebufferMs;
+        this.backBufferMs = backBufferMs;
+        this.bufferBytesPerPlayer = bufferBytesPerPlayer;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMinBufferMs() {
+        return minBufferMs;
+    }
+
+    public int getMaxBufferMs() {
+        return maxBufferMs;
+    }
+
+    public int getBufferForPlaybackMs() {
+        return bufferForPlaybackMs;
+    }
+
+    public int getBufferForPlaybackAfterRebufferMs() {
+        return bufferForPlaybackAfterRebufferMs;
+    }
+
+    public int getBackBufferMs() {
+        return backBufferMs;
+    }
+
+    public int getBufferBytesPerPlayer() {
+        return bufferBytesPerPlayer;
+    }
+
+    /**
+     * 整个播放器池的缓冲字节数上限，不限制时返回 UNSET_BYTES
+     * @param poolSize 池中的播放器数量
+     */
+    public int poolBufferBytes(int poolSize) {
+        if (bufferBytesPerPlayer == UNSET_BYTES) {
+            return UNSET_BYTES;
+        }
+        long total = (long) bufferBytesPerPlayer * poolSize;
+        return (int) Math.min(Integer.MAX_VALUE, total);
+    }
+
+    @Override
+    public String toString() {
+        return "BufferProfile{" + name + "}";
+    }
+}
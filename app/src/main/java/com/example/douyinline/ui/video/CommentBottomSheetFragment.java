@@ -21,7 +21,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import com.example.douyinline.R;
-import com.example.douyinline.bean.VideoBean;
+import com.example.douyinline.repository.VideoRepository;
 import com.google.android.material.bottomsheet.BottomSheetBehavior;
 import com.google.android.material.bottomsheet.BottomSheetDialogFragment;
 
@@ -35,10 +35,11 @@ public class CommentBottomSheetFragment extends BottomSheetDialogFragment {
     private EditText editComment;
     private TextView tvSendComment;
     private ProgressBar progressBar;
-    private static final String ARG_VIDEO = "video";
+    private static final String ARG_VIDEO_ID = "videoId";
     private static final String ARG_POSITION = "position";
+    private static final String ARG_COMMENT_COUNT = "commentCount";
     private CommentViewModel commentViewModel;
-    private VideoBean video;
+    private long videoId;
     private boolean isLoading = false;
     private CommentSheetAdapter commentAdapter;
     private boolean hasMore = false;
@@ -46,13 +47,17 @@ public class CommentBottomSheetFragment extends BottomSheetDialogFragment {
 
     /**
      * 创建实例
-     * @param video 输入视频对象，确认评论来源
+     * 参数只携带视频ID和显示用的评论数，不序列化整个视频
+     * 进程被回收后重建弹窗时不依赖仓库中的视频池，计数存储恢复之前先显示参数里的评论数
+     * @param videoId 视频ID，确认评论来源
+     * @param commentCount 打开时的评论数
      * @return fragment
      */
-    public static CommentBottomSheetFragment newInstance(VideoBean video, int position){
+    public static CommentBottomSheetFragment newInstance(long videoId, int commentCount, int position){
         CommentBottomSheetFragment fragment = new CommentBottomSheetFragment();
         Bundle args = new Bundle();
-        args.putSerializable(ARG_VIDEO, video);
+        args.putLong(ARG_VIDEO_ID, videoId);
+        args.putInt(ARG_COMMENT_COUNT, commentCount);
         args.putInt(ARG_POSITION, position);
         fragment.setArguments(args);
         return fragment;
@@ -103,15 +108,15 @@ public class CommentBottomSheetFragment extends BottomSheetDialogFragment {
 
         progressBar.setVisibility(View.GONE);
         commentViewModel = new ViewModelProvider(requireActivity()).get(CommentViewModel.class);
-        if (getArguments() != null){
-            video = (VideoBean) getArguments().getSerializable(ARG_VIDEO);
-            videoPosition = getArguments().getInt(ARG_POSITION);
-            if (video != null){
-                tvCommentCount.setText(video.getCommentCount() + "条评论");
-                commentViewModel.setVideo(video);
-            }else{
-                tvCommentCount.setText("0条评论");
-            }
+        Bundle args = getArguments();
+        boolean hasVideo = args != null && args.containsKey(ARG_VIDEO_ID);
+        if (hasVideo){
+            videoId = args.getLong(ARG_VIDEO_ID);
+            videoPosition = args.getInt(ARG_POSITION);
+            commentViewModel.setVideo(videoId, args.getInt(ARG_COMMENT_COUNT));
+            tvCommentCount.setText(commentViewModel.getVideoCommentCount() + "条评论");
+        }else{
+            tvCommentCount.setText("0条评论");
         }
 
         // 初始化监听器
@@ -124,8 +129,8 @@ public class CommentBottomSheetFragment extends BottomSheetDialogFragment {
         observeViewModel();
 
         // 更新评论列表
-        if (video != null){
-            loadComments(video, videoPosition);
+        if (hasVideo){
+            loadComments(videoPosition);
         }
     }
 
@@ -141,8 +146,9 @@ public class CommentBottomSheetFragment extends BottomSheetDialogFragment {
                 editComment.clearFocus();
                 Toast.makeText(getContext(), "评论已发送", Toast.LENGTH_SHORT).show();
                 // 更新标题显示的评论数
-                video.setCommentCount(video.getCommentCount() + 1);
-                tvCommentCount.setText(video.getCommentCount() + "条评论");
+                int commentCount = commentViewModel.incrementCommentCount();
+                VideoRepository.getInstance().onUserInteraction(videoId);
+                tvCommentCount.setText(commentCount + "条评论");
                 // 发送新评论后滚动到顶部显示
                 rvCommentList.scrollToPosition(0);
             } else {
@@ -202,10 +208,10 @@ public class CommentBottomSheetFragment extends BottomSheetDialogFragment {
 
     /**
      * 加载评论
-     * @param video 视频对象
+     * @param position 视频在播放页的位置
      */
-    private void loadComments(VideoBean video, int position) {
-        commentViewModel.loadCommentsFirst(video);
+    private void loadComments(int position) {
+        commentViewModel.loadCommentsFirst();
         commentViewModel.getCurrentVideoPosition().setValue(position);
     }
 }
\ No newline at end of file
@@ -6,7 +6,9 @@ import androidx.lifecycle.ViewModel;
 import com.example.douyinline.R;
 import com.example.douyinline.bean.AuthorBean;
 import com.example.douyinline.bean.CommentBean;
-import com.example.douyinline.bean.VideoBean;
+import com.example.douyinline.repository.AuthorRegistry;
+import com.example.douyinline.repository.CommentCounter;
+import com.example.douyinline.repository.VideoCounterStore;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -24,8 +26,39 @@ public class CommentViewModel extends ViewModel {
     private final MutableLiveData<List<CommentBean>> commentListLiveData = new MutableLiveData<>();
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
     private final MutableLiveData<Boolean> hasMoreLiveData = new MutableLiveData<>(false);  // 改为 LiveData
-    private VideoBean video;
+    // 当前视频的评论总数
+    private CommentCounter commentCounter;
     private final int ADD_COMMENT_COUNT = 10;
+    // 评论区作者ID，和视频作者的ID区分开
+    private static final long COMMENT_AUTHOR_ID_BASE = 1000;
+    private static final long SELF_AUTHOR_ID = 10000;
+
+    private static final String[] COMMENT_AUTHOR_NAMES = {"小明", "小红", "张三", "李四", "王五", "小美", "大壮", "阿花", "老王", "小李"};
+    private static final int[] COMMENT_AUTHOR_AVATARS = {
+            R.drawable.img_avatar_1, R.drawable.img_avatar_2, R.drawable.img_avatar_3,
+            R.drawable.img_avatar_4, R.drawable.img_avatar_5, R.drawable.img_avatar_6,
+            R.drawable.img_avatar_7, R.drawable.img_avatar_8, R.drawable.img_avatar_9,
+            R.drawable.img_avatar_10
+    };
+    private static final String[] COMMENT_CONTENTS = {
+            "哈哈哈太搞笑了！",
+            "这也太可爱了吧",
+            "已关注，期待更多作品",
+            "666666",
+            "第一次看就被圈粉了",
+            "支持支持！",
+            "这个创意太棒了",
+            "笑死我了",
+            "每天都要来看一遍",
+            "这就是我想要的生活",
+            "太有才了",
+            "哇，学到了！",
+            "这不得火？",
+            "直接关注了",
+            "我的快乐源泉"
+    };
+    private static final String[] COMMENT_TIMES = {"刚刚", "1分钟前", "5分钟前", "10分钟前", "30分钟前",
+            "1小时前", "2小时前", "3小时前", "昨天", "2天前"};
     private int hasLoaded = 0;  // 已加载的评论数量
     private MutableLiveData<Integer> commentCountToTal = new MutableLiveData<>(0);
 
@@ -70,13 +103,13 @@ public class CommentViewModel extends ViewModel {
     /**
      * 首次加载数据
      */
-    public void loadCommentsFirst(VideoBean video) {
+    public void loadCommentsFirst() {
         // 防止重复加载
         if (Boolean.TRUE.equals(isLoading.getValue())) {return;}
         
         // 模拟加载评论数据
-        getCommentCountToTal().setValue(video.getCommentCount());
-        int shouldLoadCount = video.getCommentCount() - hasLoaded;
+        getCommentCountToTal().setValue(getVideoCommentCount());
+        int shouldLoadCount = getVideoCommentCount() - hasLoaded;
         if (shouldLoadCount <= 0) {
             hasMoreLiveData.setValue(false);
             return;
@@ -89,7 +122,7 @@ public class CommentViewModel extends ViewModel {
         currentComments.addAll(comments);
         
         // 判断是否还有更多数据
-        boolean stillHasMore = hasLoaded < video.getCommentCount();
+        boolean stillHasMore = hasLoaded < getVideoCommentCount();
         hasMoreLiveData.setValue(stillHasMore);
         
         commentListLiveData.setValue(currentComments);
@@ -108,14 +141,14 @@ public class CommentViewModel extends ViewModel {
         
         // 使用Handler在后台延迟执行
         new android.os.Handler(android.os.Looper.getMainLooper()).postDelayed(() -> {
-            int shouldLoadCount = video.getCommentCount() - hasLoaded;
+            int shouldLoadCount = getVideoCommentCount() - hasLoaded;
             // 模拟加载评论数据
             List<CommentBean> comments = generateComments(shouldLoadCount);
             hasLoaded += comments.size();
             currentComments.addAll(comments);
             
             // 判断是否还有更多数据
-            boolean stillHasMore = hasLoaded < video.getCommentCount();
+            boolean stillHasMore = hasLoaded < getVideoCommentCount();
             hasMoreLiveData.setValue(stillHasMore);
             
             commentListLiveData.setValue(currentComments);
@@ -125,9 +158,11 @@ public class CommentViewModel extends ViewModel {
     /**
      * 设置当前视频
      * 切换视频时需要重置评论相关状态
+     * @param videoId 视频ID
+     * @param commentCount 打开弹窗时的评论数，计数存储中还没有该视频时使用
      */
-    public void setVideo(VideoBean video) {
-        this.video = video;
+    public void setVideo(long videoId, int commentCount) {
+        this.commentCounter = new CommentCounter(VideoCounterStore.getInstance(), videoId, commentCount);
         // 重置评论状态，防止不同视频共享同一份评论数据
         this.currentComments.clear();
         this.hasLoaded = 0;
@@ -152,7 +187,7 @@ public class CommentViewModel extends ViewModel {
                 false, // 默认未点赞
                 0, // 点赞数
                 "刚刚", // 时间
-                new AuthorBean("我", R.drawable.img_avatar_1), // 作者
+                AuthorRegistry.getInstance().intern(SELF_AUTHOR_ID, "我", R.drawable.img_avatar_1), // 作者
                 content); // 评论内容
 
         // 添加到评论列表
@@ -162,50 +197,41 @@ public class CommentViewModel extends ViewModel {
         comments.add(0, newComment);
         commentListLiveData.setValue(comments);
     }
+    /**
+     * 当前视频的评论总数
+     */
+    public int getVideoCommentCount() {
+        return commentCounter == null ? 0 : commentCounter.get();
+    }
+
+    /**
+     * 发送评论后评论总数加一
+     * @return 加一后的评论总数
+     */
+    public int incrementCommentCount() {
+        return commentCounter == null ? 0 : commentCounter.increment();
+    }
+
     /**
      * 模拟生成评论数据
      * @return 评论列表
      */
     private List<CommentBean> generateComments(int count) {
         List<CommentBean> comments = new ArrayList<>();
-        String[] names = {"小明", "小红", "张三", "李四", "王五", "小美", "大壮", "阿花", "老王", "小李"};
-        String[] contents = {
-                "哈哈哈太搞笑了！",
-                "这也太可爱了吧",
-                "已关注，期待更多作品",
-                "666666",
-                "第一次看就被圈粉了",
-                "支持支持！",
-                "这个创意太棒了",
-                "笑死我了",
-                "每天都要来看一遍",
-                "这就是我想要的生活",
-                "太有才了",
-                "哇，学到了！",
-                "这不得火？",
-                "直接关注了",
-                "我的快乐源泉"
-        };
-        String[] times = {"刚刚", "1分钟前", "5分钟前", "10分钟前", "30分钟前",
-                "1小时前", "2小时前", "3小时前", "昨天", "2天前"};
-        int[] avatars = {
-                R.drawable.img_avatar_1, R.drawable.img_avatar_2, R.drawable.img_avatar_3,
-                R.drawable.img_avatar_4, R.drawable.img_avatar_5, R.drawable.img_avatar_6,
-                R.drawable.img_avatar_7, R.drawable.img_avatar_8, R.drawable.img_avatar_9,
-                R.drawable.img_avatar_10
-        };
-
+        AuthorRegistry authorRegistry = AuthorRegistry.getInstance();
         int load_count = Math.min(count, ADD_COMMENT_COUNT);
         Random random = new Random();
         for (int i = 0; i < load_count; i++) {
+            // 随机作者，同一作者共享一个实例
+            int authorIndex = random.nextInt(COMMENT_AUTHOR_NAMES.length);
+            AuthorBean author = authorRegistry.intern(COMMENT_AUTHOR_ID_BASE + authorIndex,
+                    COMMENT_AUTHOR_NAMES[authorIndex], COMMENT_AUTHOR_AVATARS[authorIndex]);
             CommentBean comment = new CommentBean(
                     false, // 默认未点赞
                     random.nextInt(1000), // 随机点赞数
-                    times[random.nextInt(times.length)], // 随机时间
-                    new AuthorBean(
-                        names[random.nextInt(names.length)],
-                        avatars[random.nextInt(avatars.length)]), // 随机作者
-                    contents[random.nextInt(contents.length)] // 随机评论内容
+                    COMMENT_TIMES[random.nextInt(COMMENT_TIMES.length)], // 随机时间
+                    author,
+                    COMMENT_CONTENTS[random.nextInt(COMMENT_CONTENTS.length)] // 随机评论内容
 
             );
             comments.add(comment);
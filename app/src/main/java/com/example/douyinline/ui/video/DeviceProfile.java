@@ -0,0 +1,23 @@
+package com.example.douyinline.ui.video;
+
+/**
+ * 设备能力，用于决定播放器池的大小
+ * 真实设备由 AndroidDeviceProfile 读取，单元测试中可以使用假的实现
+ */
+public interface DeviceProfile {
+    /**
+     * 支持指定格式和分辨率的硬件解码器最多可以同时创建的实例数，没有硬件解码器时取软件解码器的
+     * @return 实例数，无法判断时返回 0
+     */
+    int getMaxDecoderInstances(String mimeType, int width, int height);
+
+    /**
+     * 应用的内存级别（MB），即 ActivityManager.getMemoryClass()
+     */
+    int getMemoryClassMb();
+
+    /**
+     * 是否低内存设备
+     */
+    boolean isLowRamDevice();
+}
@@ -0,0 +1,244 @@
+package com.example.douyinline.ui.video;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+
+/**
+ * 切换页面的首帧耗时统计
+ * 从 ViewPager2.onPageSelected 开始计时，到新页面的播放器渲染出第一帧结束，
+ * 按播放器的来源（复用、预加载、新准备）分别记入直方图，单位为微秒
+ * 另外统计从推荐页点击到播放页第一帧的启动耗时，按打开时播放器池是否已经预热分开记录
+ * 事件回调只在主线程调用，查询和导出可以在任意线程
+ */
+public class FirstFrameTracker {
+    private static final String TAG = "FirstFrameTracker";
+    // 直方图记录的最大耗时，60 秒
+    private static final long HIGHEST_TRACKABLE_MICROS = 60_000_000L;
+
+    /**
+     * 选中页面时播放器的来源
+     */
+    public enum StartType {
+        // 页面上已经有播放器（不是预加载的），例如回到刚刚还在播放的页面
+        REUSED,
+        // 预加载命中
+        PRELOADED,
+        // 选中后从池中获取播放器重新准备
+        FRESH
+    }
+
+    /**
+     * 打开播放页时播放器池的状态
+     */
+    public enum LaunchType {
+        // 池中已经有空闲的播放器
+        WARM_POOL,
+        // 需要现场创建播放器
+        COLD_POOL
+    }
+
+    private static volatile FirstFrameTracker INSTANCE;
+
+    public static FirstFrameTracker getInstance() {
+        if (INSTANCE == null) {
+            synchronized (FirstFrameTracker.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new FirstFrameTracker(System::nanoTime);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    private final LongSupplier nanoClock;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[StartType.values().length];
+    private final LatencyHistogram[] launchHistograms = new LatencyHistogram[LaunchType.values().length];
+    private final ExecutorService exportExecutor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "FirstFrameExport"));
+
+    // 正在计时的页面，没有时为 -1；播放器来源在开始播放时确定
+    private int pendingPosition = -1;
+    private long pendingStartNanos;
+    private StartType pendingType;
+    // 还没出首帧就切走的次数
+    private volatile long abandonedCount = 0;
+    // 正在计时的启动，播放器池状态在播放页租用播放器池时确定
+    private boolean launchPending = false;
+    private long launchStartNanos;
+    private LaunchType launchType;
+
+    FirstFrameTracker(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram(HIGHEST_TRACKABLE_MICROS);
+        }
+        for (int i = 0; i < launchHistograms.length; i++) {
+            launchHistograms[i] = new LatencyHistogram(HIGHEST_TRACKABLE_MICROS);
+        }
+    }
+
+    /**
+     * 在推荐页点击视频、打开播放页之前调用，开始启动计时
+     */
+    public void onLaunchRequested() {
+        launchPending = true;
+        launchStartNanos = nanoClock.getAsLong();
+        launchType = null;
+        // 上一个播放页没出首帧就关闭了，不计入切走的次数
+        pendingPosition = -1;
+        pendingType = null;
+    }
+
+    /**
+     * 播放页租用播放器池
+     * @param warm 池中是否已经有空闲的播放器
+     */
+    public void onPoolLeased(boolean warm) {
+        if (launchPending && launchType == null) {
+            launchType = warm ? LaunchType.WARM_POOL : LaunchType.COLD_POOL;
+        }
+    }
+
+    /**
+     * 选中页面，开始计时
+     */
+    public void onPageSelected(int position) {
+        if (pendingPosition != -1) {
+            abandonedCount++;
+            // 第一页没出首帧就切走，这次启动不计入
+            launchPending = false;
+        }
+        pendingPosition = position;
+        pendingStartNanos = nanoClock.getAsLong();
+        pendingType = null;
+    }
+
+    /**
+     * 开始播放选中的页面
+     * @param position 页面位置，不是正在计时的页面时忽略
+     * @param type 播放器来源
+     * @param firstFrameShown 第一帧是否已经显示，预加载好的播放器在选中前就停在了第一帧
+     */
+    public void onPlaybackStarted(int position, StartType type, boolean firstFrameShown) {
+        if (position != pendingPosition || pendingType != null) {
+            return;
+        }
+        pendingType = type;
+        if (firstFrameShown) {
+            finish();
+        }
+    }
+
+    /**
+     * 播放器渲染出第一帧
+     * @param position 播放器所在的页面，不是正在计时的页面时忽略（例如预加载的页面）
+     */
+    public void onFirstFrameRendered(int position) {
+        if (position != pendingPosition || pendingType == null) {
+            return;
+        }
+        finish();
+    }
+
+    private void finish() {
+        long elapsedMicros = (nanoClock.getAsLong() - pendingStartNanos) / 1_000;
+        histograms[pendingType.ordinal()].record(Math.max(0, elapsedMicros));
+        if (launchPending && launchType != null) {
+            long launchMicros = (nanoClock.getAsLong() - launchStartNanos) / 1_000;
+            launchHistograms[launchType.ordinal()].record(Math.max(0, launchMicros));
+            launchPending = false;
+        }
+        pendingPosition = -1;
+        pendingType = null;
+    }
+
+    /**
+     * 指定来源的首帧耗时百分位，单位微秒
+     * @param percentile 0 到 100
+     */
+    public long percentileMicros(StartType type, double percentile) {
+        return histograms[type.ordinal()].valueAtPercentile(percentile);
+    }
+
+    public LatencyHistogram getHistogram(StartType type) {
+        return histograms[type.ordinal()];
+    }
+
+    /**
+     * 启动耗时百分位，单位微秒
+     * @param percentile 0 到 100
+     */
+    public long launchPercentileMicros(LaunchType type, double percentile) {
+        return launchHistograms[type.ordinal()].valueAtPercentile(percentile);
+    }
+
+    public LatencyHistogram getLaunchHistogram(LaunchType type) {
+        return launchHistograms[type.ordinal()];
+    }
+
+    public long getAbandonedCount() {
+        return abandonedCount;
+    }
+
+    /**
+     * 每种来源和启动类型的次数和 p50/p90/p99，单位毫秒
+     */
+    public String summary() {
+        StringBuilder builder = new StringBuilder("首帧耗时(ms)");
+        for (StartType type : StartType.values()) {
+            appendPercentiles(builder, type.name(), histograms[type.ordinal()]);
+        }
+        builder.append(" 启动耗时(ms)");
+        for (LaunchType type : LaunchType.values()) {
+            appendPercentiles(builder, type.name(), launchHistograms[type.ordinal()]);
+        }
+        return builder.toString();
+    }
+
+    private static void appendPercentiles(StringBuilder builder, String name, LatencyHistogram histogram) {
+        builder.append(String.format(Locale.US, " %s[n=%d p50=%.1f p90=%.1f p99=%.1f]",
+                name, histogram.getTotalCount(),
+                histogram.valueAtPercentile(50) / 1000.0,
+                histogram.valueAtPercentile(90) / 1000.0,
+                histogram.valueAtPercentile(99) / 1000.0));
+    }
+
+    /**
+     * 导出摘要和每种来源的百分位分布，值以毫秒输出
+     */
+    public void exportTo(Writer out) throws IOException {
+        out.write(summary());
+        out.write(String.format(Locale.US, "%n切走时还没出首帧: %d%n", abandonedCount));
+        for (StartType type : StartType.values()) {
+            out.write(String.format(Locale.US, "%n# %s%n", type));
+            histograms[type.ordinal()].writePercentileDistribution(out, 1000.0);
+        }
+        for (LaunchType type : LaunchType.values()) {
+            out.write(String.format(Locale.US, "%n# 启动 %s%n", type));
+            launchHistograms[type.ordinal()].writePercentileDistribution(out, 1000.0);
+        }
+    }
+
+    /**
+     * 在后台线程导出到文件，覆盖已有的内容
+     */
+    public void exportAsync(File file) {
+        exportExecutor.execute(() -> {
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(file), StandardCharsets.UTF_8))) {
+                exportTo(out);
+            } catch (IOException e) {
+                android.util.Log.e(TAG, "导出首帧耗时失败: " + e.getMessage());
+            }
+        });
+    }
+}
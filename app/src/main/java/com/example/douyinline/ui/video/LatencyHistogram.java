@@ -0,0 +1,155 @@
+package com.example.douyinline.ui.video;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * HDR 风格的延迟直方图
+ * 每个 2 的幂区间分成 64 个等宽的子桶，小于 128 的值精确记录，
+ * 其余的值相对误差不超过 1/64；记录和查询都不分配对象
+ * 超过上限的值按上限记录，所有方法线程安全
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+
+    private final long highestTrackableValue;
+    private final long[] counts;
+    private long totalCount = 0;
+    private long minValue = Long.MAX_VALUE;
+    private long maxValue = 0;
+    private long sum = 0;
+
+    /**
+     * @param highestTrackableValue 可以记录的最大值，更大的值按它记录
+     */
+    public LatencyHistogram(long highestTrackableValue) {
+        if (highestTrackableValue < SUB_BUCKET_COUNT) {
+            throw new IllegalArgumentException("highestTrackableValue 不能小于 " + SUB_BUCKET_COUNT);
+        }
+        this.highestTrackableValue = highestTrackableValue;
+        this.counts = new long[indexOf(highestTrackableValue) + 1];
+    }
+
+    /**
+     * 记录一个值
+     * @param value 非负的延迟
+     */
+    public synchronized void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value 不能为负数: " + value);
+        }
+        long clamped = Math.min(value, highestTrackableValue);
+        counts[indexOf(clamped)]++;
+        totalCount++;
+        sum += clamped;
+        minValue = Math.min(minValue, clamped);
+        maxValue = Math.max(maxValue, clamped);
+    }
+
+    /**
+     * 百分位上的值，返回所在子桶的上界（不超过记录过的最大值），没有记录时返回 0
+     * @param percentile 0 到 100
+     */
+    public synchronized long valueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        double clampedPercentile = Math.max(0, Math.min(100, percentile));
+        long target = Math.max(1, (long) Math.ceil(clampedPercentile / 100 * totalCount));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= target) {
+                return Math.min(highestEquivalentValue(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    public synchronized long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * 记录过的最小值，没有记录时返回 0
+     */
+    public synchronized long getMin() {
+        return totalCount == 0 ? 0 : minValue;
+    }
+
+    public synchronized long getMax() {
+        return maxValue;
+    }
+
+    public synchronized double getMean() {
+        return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    public synchronized void reset() {
+        java.util.Arrays.fill(counts, 0);
+        totalCount = 0;
+        minValue = Long.MAX_VALUE;
+        maxValue = 0;
+        sum = 0;
+    }
+
+    /**
+     * 按 HdrHistogram 的百分位分布格式输出每个非空子桶
+     * @param out 输出
+     * @param unitScale 输出时值除以的比例，例如微秒输出为毫秒时传 1000
+     */
+    public synchronized void writePercentileDistribution(Writer out, double unitScale) throws IOException {
+        out.write(String.format(Locale.US, "%12s %14s %10s%n", "Value", "Percentile", "TotalCount"));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            cumulative += counts[i];
+            long value = Math.min(highestEquivalentValue(i), maxValue);
+            out.write(String.format(Locale.US, "%12.3f %14.12f %10d%n",
+                    value / unitScale, (double) cumulative / totalCount, cumulative));
+        }
+        out.write(String.format(Locale.US, "#[Mean = %.3f, Max = %.3f, Total count = %d]%n",
+                getMean() / unitScale, maxValue / unitScale, totalCount));
+    }
+
+    /**
+     * 值对应的子桶下标，小于 SUB_BUCKET_COUNT 的值一个值一个桶，
+     * 之后每个 2 的幂区间占 SUB_BUCKET_HALF_COUNT 个桶
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> exponent);
+        return exponent * SUB_BUCKET_HALF_COUNT + subBucket;
+    }
+
+    /**
+     * 子桶中的最小值
+     */
+    static long lowestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_HALF_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return subBucket << exponent;
+    }
+
+    /**
+     * 子桶中的最大值
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_HALF_COUNT - 1;
+        return lowestEquivalentValue(index) + (1L << exponent) - 1;
+    }
+}
@@ -1,18 +1,47 @@
 package com.example.douyinline.ui.video;
 
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 
 import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+import androidx.annotation.OptIn;
+import androidx.media3.common.C;
+import androidx.media3.common.MimeTypes;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.DefaultLoadControl;
 import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.LoadControl;
+import androidx.media3.exoplayer.source.DefaultMediaSourceFactory;
+import androidx.media3.exoplayer.upstream.DefaultAllocator;
+
+import com.example.douyinline.repository.VideoMetadataIndex;
+import com.example.douyinline.repository.VideoRepository;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
  * ExoPlayer 播放器池
  * 用于复用播放器实例，避免频繁创建和销毁
+ * 池大小、解码器预算和预加载深度按设备的解码器能力和内存级别决定：
+ * 创建时先使用保守的默认规模，视频元数据探测完成后在后台线程查询解码器能力，再回到主线程应用
+ * 同一缓冲配置的播放器共用一个 DefaultLoadControl 和它的分配器，缓冲配置可以随时切换：
+ * 空闲的播放器立即按新配置的 LoadControl 重建，使用中的播放器归还时替换
+ * 进程内共用一个池（getShared），应用启动后在主线程空闲时预热，
+ * 每个播放页打开时租用、关闭时归还；没有租用时空闲的播放器超时后释放，
+ * 内存紧张时按 onTrimMemory 的级别释放空闲的播放器
  * 所有操作必须在主线程执行
  */
 public class PlayerPool {
@@ -21,37 +50,400 @@ public class PlayerPool {
     private final List<ExoPlayer> allPlayers = new ArrayList<>();  // 跟踪所有创建的播放器
     private final Context appContext;
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
-    public final int MAX_PLAYERS = 2;  // 使用延迟加载策略，只需要 2 个播放器
-    private boolean isInitialized = false;
+    // 视频元数据还没有探测时假定的视频流编码格式和最大分辨率，用于查询解码器能力
+    public static final String FEED_MIME_TYPE = MimeTypes.VIDEO_H264;
+    public static final int FEED_MAX_WIDTH = 3840;
+    public static final int FEED_MAX_HEIGHT = 2160;
+    // 设备能力按视频流格式缓存，格式不变时不重复查询，MediaCodecList 的查询比较慢，由 PlayerPool.class 保护
+    private static PoolSizing deviceSizing;
+    // deviceSizing 查询时使用的视频流格式，为 null 时按 4K H.264 的最坏情况查询
+    private static VideoMetadataIndex.Entry deviceSizingFormat;
+    // 进程内共用的播放器池
+    private static volatile PlayerPool SHARED;
+    // 没有租用时，空闲超过该时长的播放器会被释放，至少保留 MIN_WARM_PLAYERS 个
+    static final long IDLE_TIMEOUT_MS = 60_000;
+    static final int MIN_WARM_PLAYERS = 1;
+    // 查询解码器能力之前使用的默认规模，与原来的固定规模一致；低内存设备只保留一个播放器
+    private static final PoolSizing DEFAULT_SIZING = new PoolSizing(
+            AdaptivePoolSizingPolicy.FALLBACK_DECODER_INSTANCES, AdaptivePoolSizingPolicy.FALLBACK_DECODER_INSTANCES,
+            AdaptivePoolSizingPolicy.FALLBACK_DECODER_INSTANCES - 1);
+    private static final PoolSizing LOW_RAM_SIZING = new PoolSizing(
+            AdaptivePoolSizingPolicy.MIN_POOL_SIZE, AdaptivePoolSizingPolicy.MIN_POOL_SIZE, 0);
+    // 查询解码器能力的线程，MediaCodecList 的遍历不放在主线程
+    private static final Executor SIZING_EXECUTOR = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "PlayerPoolSizing"));
+
+    private int maxPlayers;  // 当前页一个，其余用于预加载
+    // 同时持有解码器的播放器上限，预加载不会超过这个数量，避免 MediaCodec 资源不足
+    private int decoderBudget;
+    // 滑动方向上预加载的页数
+    private int preloadDepth;
+    // 当前的缓冲配置，以及每个播放器创建时使用的配置
+    private BufferProfile bufferProfile = BufferProfile.SHORT_VIDEO;
+    // 当前缓冲配置下所有播放器共用的 LoadControl，切换配置时重新创建
+    private LoadControl loadControl;
+    private final Map<ExoPlayer, BufferProfile> playerProfiles = new IdentityHashMap<>();
+    // 空闲播放器归还到池中的时间（elapsedRealtime）
+    private final Map<ExoPlayer, Long> idleSince = new IdentityHashMap<>();
+    // 正在租用的播放页数量
+    private int leaseCount = 0;
+    private boolean isWarmingUp = false;
+    private final Runnable idleTrimRunnable = this::trimExpiredIdlePlayers;
+    private final CopyOnWriteArrayList<OnPlayerReleasedListener> releasedListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 播放器被池释放时的回调，在释放之前调用，持有播放器引用的对象在这里解除绑定并移除引用
+     */
+    public interface OnPlayerReleasedListener {
+        void onPlayerReleased(ExoPlayer player);
+    }
+
+    /**
+     * 进程内共用的播放器池
+     */
+    public static PlayerPool getShared(Context context) {
+        if (SHARED == null) {
+            synchronized (PlayerPool.class) {
+                if (SHARED == null) {
+                    SHARED = new PlayerPool(context);
+                }
+            }
+        }
+        return SHARED;
+    }
 
+    /**
+     * 先按默认规模创建，不在调用线程查询解码器能力，元数据就绪后再调整
+     */
     public PlayerPool(Context context) {
+        this(context, defaultSizing(context));
+        resizeWhenMetadataReady();
+    }
+
+    PlayerPool(Context context, PoolSizing sizing) {
         this.appContext = context.getApplicationContext();
+        this.maxPlayers = sizing.getPoolSize();
+        this.decoderBudget = sizing.getDecoderBudget();
+        this.preloadDepth = sizing.getPreloadDepth();
+        this.loadControl = createLoadControl(bufferProfile);
+    }
+
+    /**
+     * 按当前设备的解码器能力和内存级别决定播放器池规模，结果按视频流格式在进程内缓存
+     * 视频元数据索引中已有记录时，按视频流中解码负担最大的视频的编码格式和分辨率查询解码器，
+     * 否则按 4K H.264 的最坏情况查询；索引变化后再次调用会按新的格式重新查询
+     * 需要遍历 MediaCodecList，不要在主线程调用
+     */
+    public static PoolSizing getDeviceSizing(Context context) {
+        VideoMetadataIndex.Entry feedFormat = VideoRepository.getInstance().getVideoMetadata().getMostDemanding();
+        if (feedFormat != null && feedFormat.getMimeType() == null) {
+            feedFormat = null;
+        }
+        synchronized (PlayerPool.class) {
+            if (deviceSizing != null && sameFormat(feedFormat, deviceSizingFormat)) {
+                return deviceSizing;
+            }
+            String mimeType = feedFormat == null ? FEED_MIME_TYPE : feedFormat.getMimeType();
+            int width = feedFormat == null ? FEED_MAX_WIDTH : feedFormat.getWidth();
+            int height = feedFormat == null ? FEED_MAX_HEIGHT : feedFormat.getHeight();
+            PoolSizingPolicy policy = new AdaptivePoolSizingPolicy(mimeType, width, height);
+            deviceSizing = policy.decide(new AndroidDeviceProfile(context));
+            deviceSizingFormat = feedFormat;
+            android.util.Log.d(TAG, "播放器池规模: " + deviceSizing + "，按 " + mimeType + " " + width + "x" + height);
+            return deviceSizing;
+        }
+    }
+
+    /**
+     * 查询解码器能力之前使用的规模，只读取是否低内存设备
+     */
+    private static PoolSizing defaultSizing(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getApplicationContext()
+                .getSystemService(Context.ACTIVITY_SERVICE);
+        return activityManager != null && activityManager.isLowRamDevice() ? LOW_RAM_SIZING : DEFAULT_SIZING;
+    }
+
+    private static boolean sameFormat(VideoMetadataIndex.Entry a, VideoMetadataIndex.Entry b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.getMimeType().equals(b.getMimeType()) && a.getWidth() == b.getWidth() && a.getHeight() == b.getHeight();
     }
 
     /**
-     * 初始化ExoPlayer实例池
+     * 视频元数据读取和探测完成后，按视频流实际的格式重新决定规模
+     * 共用的池在应用启动时就创建，这时元数据可能还没读完，第一次安装时索引是空的，只能按 4K 的最坏情况决定
+     * 解码器查询在 SIZING_EXECUTOR 上进行，元数据已经就绪时也不会在调用线程上查询，结果回到主线程应用
+     */
+    private void resizeWhenMetadataReady() {
+        Futures.addCallback(VideoRepository.getInstance().getVideoMetadataReadyAsync(),
+                new FutureCallback<VideoMetadataIndex>() {
+                    @Override
+                    public void onSuccess(VideoMetadataIndex index) {
+                        PoolSizing sizing = getDeviceSizing(appContext);
+                        mainHandler.post(() -> applySizing(sizing));
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        android.util.Log.e(TAG, "等待视频元数据失败: " + t.getMessage());
+                    }
+                }, SIZING_EXECUTOR);
+    }
+
+    /**
+     * 应用新的规模
+     * 变小时立即释放多出来的空闲播放器，变大时在下次初始化、预热或获取时补足；
+     * 已经打开的播放页保留原来的预加载深度，解码器预算立即生效
      */
     @MainThread
-    public void initPool() {
-        if (isInitialized) {
-            android.util.Log.w(TAG, "PlayerPool 已经初始化过了");
+    private void applySizing(PoolSizing sizing) {
+        if (sizing.getPoolSize() == maxPlayers && sizing.getDecoderBudget() == decoderBudget
+                && sizing.getPreloadDepth() == preloadDepth) {
             return;
         }
-        for (int i = 0; i < MAX_PLAYERS; i++) {
+        maxPlayers = sizing.getPoolSize();
+        decoderBudget = sizing.getDecoderBudget();
+        preloadDepth = sizing.getPreloadDepth();
+        while (allPlayers.size() > maxPlayers && !availablePlayers.isEmpty()) {
+            discardPlayer(availablePlayers.remove(availablePlayers.size() - 1));
+        }
+        android.util.Log.d(TAG, "播放器池规模更新为 " + sizing + "，当前播放器: " + allPlayers.size());
+    }
+
+    /**
+     * 初始化ExoPlayer实例池，把播放器补足到 maxPlayers 个
+     * 已经预热过时不需要再创建
+     */
+    @MainThread
+    public void initPool() {
+        int created = 0;
+        while (allPlayers.size() < maxPlayers) {
             ExoPlayer player = createPlayer();
-            availablePlayers.add(player);
             allPlayers.add(player);
+            addAvailable(player);
+            created++;
+        }
+        android.util.Log.d(TAG, "PlayerPool 初始化完成，新创建了 " + created + " 个播放器");
+    }
+
+    /**
+     * 预热播放器池：主线程空闲时每次创建一个播放器，直到 maxPlayers 个
+     * ExoPlayer 只能在它的应用线程（主线程）上创建和访问，所以不放到工作线程，
+     * 而是分散到空闲时间，不阻塞启动时的绘制
+     */
+    @MainThread
+    public void warmUp() {
+        if (isWarmingUp || allPlayers.size() >= maxPlayers) {
+            return;
+        }
+        isWarmingUp = true;
+        warmUpStep();
+    }
+
+    private void warmUpStep() {
+        Looper.myQueue().addIdleHandler(() -> {
+            if (allPlayers.size() < maxPlayers) {
+                ExoPlayer player = createPlayer();
+                allPlayers.add(player);
+                addAvailable(player);
+            }
+            if (allPlayers.size() < maxPlayers) {
+                // 下一条消息处理完、再次空闲时继续
+                mainHandler.post(this::warmUpStep);
+            } else {
+                isWarmingUp = false;
+                android.util.Log.d(TAG, "播放器池预热完成: " + allPlayers.size());
+            }
+            return false;
+        });
+    }
+
+    /**
+     * 播放页打开时租用播放器池，租用期间不会因为空闲超时释放播放器
+     * @return 租用时池中是否已经有空闲的播放器（热启动）
+     */
+    @MainThread
+    public boolean acquireLease() {
+        leaseCount++;
+        mainHandler.removeCallbacks(idleTrimRunnable);
+        return !availablePlayers.isEmpty();
+    }
+
+    /**
+     * 播放页关闭时归还租用，所有租用都归还后开始空闲计时
+     */
+    @MainThread
+    public void releaseLease() {
+        if (leaseCount == 0) {
+            android.util.Log.w(TAG, "没有租用可以归还");
+            return;
+        }
+        leaseCount--;
+        if (leaseCount == 0) {
+            scheduleIdleTrim();
+        }
+    }
+
+    /**
+     * 按系统内存紧张程度释放空闲的播放器
+     * 应用进入后台或内存严重不足时全部释放，界面隐藏或内存偏低时保留 MIN_WARM_PLAYERS 个
+     * @param level ComponentCallbacks2 的 TRIM_MEMORY_* 级别
+     */
+    @MainThread
+    public void onTrimMemory(int level) {
+        int keep;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            keep = 0;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            keep = MIN_WARM_PLAYERS;
+        } else {
+            return;
+        }
+        int released = trimIdle(keep, Long.MAX_VALUE);
+        android.util.Log.d(TAG, "onTrimMemory(" + level + ") 释放空闲播放器: " + released
+                + "，剩余: " + allPlayers.size());
+    }
+
+    private void scheduleIdleTrim() {
+        mainHandler.removeCallbacks(idleTrimRunnable);
+        if (availablePlayers.size() > MIN_WARM_PLAYERS) {
+            mainHandler.postDelayed(idleTrimRunnable, IDLE_TIMEOUT_MS);
+        }
+    }
+
+    /**
+     * 没有租用时释放空闲超时的播放器，还有没到期的空闲播放器时继续计时
+     */
+    private void trimExpiredIdlePlayers() {
+        if (leaseCount > 0) {
+            return;
+        }
+        int released = trimIdle(MIN_WARM_PLAYERS, SystemClock.elapsedRealtime() - IDLE_TIMEOUT_MS);
+        if (released > 0) {
+            android.util.Log.d(TAG, "释放空闲超时的播放器: " + released + "，剩余: " + allPlayers.size());
+        }
+        scheduleIdleTrim();
+    }
+
+    /**
+     * 释放空闲时间不晚于 idleBefore 的播放器，先释放最近归还的，池中至少保留 keep 个空闲播放器
+     * @return 释放的数量
+     */
+    private int trimIdle(int keep, long idleBefore) {
+        int released = 0;
+        for (int i = availablePlayers.size() - 1; i >= 0 && availablePlayers.size() > keep; i--) {
+            ExoPlayer player = availablePlayers.get(i);
+            Long since = idleSince.get(player);
+            if (since != null && since <= idleBefore) {
+                availablePlayers.remove(i);
+                discardPlayer(player);
+                released++;
+            }
+        }
+        return released;
+    }
+
+    /**
+     * 放入空闲列表并记录空闲开始的时间
+     */
+    private void addAvailable(ExoPlayer player) {
+        availablePlayers.add(player);
+        idleSince.put(player, SystemClock.elapsedRealtime());
+        if (leaseCount == 0) {
+            scheduleIdleTrim();
         }
-        isInitialized = true;
-        android.util.Log.d(TAG, "PlayerPool 初始化完成，创建了 " + MAX_PLAYERS + " 个播放器");
     }
 
     /**
      * 创建一个新的 ExoPlayer 实例
+     * 所有播放器通过共享的 VideoCache 读取视频，按当前的缓冲配置加载
      */
+    @OptIn(markerClass = UnstableApi.class)
     private ExoPlayer createPlayer() {
-        return new ExoPlayer.Builder(appContext)
+        ExoPlayer player = new ExoPlayer.Builder(appContext)
+                .setMediaSourceFactory(new DefaultMediaSourceFactory(
+                        VideoCache.getInstance(appContext).getDataSourceFactory()))
+                .setLoadControl(loadControl)
                 .build();
+        playerProfiles.put(player, bufferProfile);
+        return player;
+    }
+
+    /**
+     * 按缓冲配置创建播放器共用的 LoadControl
+     * DefaultLoadControl 按播放器分别记录加载状态，分配器的目标大小是所有已准备播放器的目标字节数之和，
+     * 池中已分配的缓冲达到总目标后所有播放器都停止加载；最后一个播放器释放时才重置分配器，
+     * 因此分配器只能属于一个 LoadControl，不能跨配置共用
+     */
+    @OptIn(markerClass = UnstableApi.class)
+    private static LoadControl createLoadControl(BufferProfile profile) {
+        DefaultLoadControl.Builder builder = new DefaultLoadControl.Builder()
+                .setAllocator(new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE))
+                .setBufferDurationsMs(profile.getMinBufferMs(), profile.getMaxBufferMs(),
+                        profile.getBufferForPlaybackMs(), profile.getBufferForPlaybackAfterRebufferMs())
+                .setBackBuffer(profile.getBackBufferMs(), true);
+        if (profile.getBufferBytesPerPlayer() != BufferProfile.UNSET_BYTES) {
+            builder.setTargetBufferBytes(profile.getBufferBytesPerPlayer())
+                    .setPrioritizeTimeOverSizeThresholds(false);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 切换缓冲配置
+     * 新配置创建一个新的共用 LoadControl，空闲的播放器立即用它重建，
+     * 使用中的播放器继续使用旧配置，归还时释放并在下次获取时重建
+     * @param profile 新的缓冲配置
+     */
+    @MainThread
+    public void setBufferProfile(BufferProfile profile) {
+        if (profile == bufferProfile) {
+            return;
+        }
+        bufferProfile = profile;
+        loadControl = createLoadControl(profile);
+        for (int i = 0; i < availablePlayers.size(); i++) {
+            ExoPlayer stale = availablePlayers.get(i);
+            discardPlayer(stale);
+            ExoPlayer replacement = createPlayer();
+            allPlayers.add(replacement);
+            availablePlayers.set(i, replacement);
+            idleSince.put(replacement, SystemClock.elapsedRealtime());
+        }
+        android.util.Log.d(TAG, "缓冲配置切换为 " + profile.getName() + "，重建空闲播放器: " + availablePlayers.size());
+    }
+
+    public BufferProfile getBufferProfile() {
+        return bufferProfile;
+    }
+
+    @MainThread
+    public void addOnPlayerReleasedListener(OnPlayerReleasedListener listener) {
+        releasedListeners.addIfAbsent(listener);
+    }
+
+    @MainThread
+    public void removeOnPlayerReleasedListener(OnPlayerReleasedListener listener) {
+        releasedListeners.remove(listener);
+    }
+
+    private void notifyPlayerReleased(ExoPlayer player) {
+        for (OnPlayerReleasedListener listener : releasedListeners) {
+            listener.onPlayerReleased(player);
+        }
+    }
+
+    /**
+     * 释放播放器并停止跟踪
+     */
+    private void discardPlayer(ExoPlayer player) {
+        notifyPlayerReleased(player);
+        player.release();
+        allPlayers.remove(player);
+        playerProfiles.remove(player);
+        idleSince.remove(player);
     }
 
     /**
@@ -63,6 +455,7 @@ public class PlayerPool {
         ExoPlayer player;
         if (!availablePlayers.isEmpty()) {
             player = availablePlayers.remove(0);
+            idleSince.remove(player);
             android.util.Log.d(TAG, "从池中获取播放器，剩余: " + availablePlayers.size());
         } else {
             // 池为空，创建新的播放器
@@ -75,6 +468,21 @@ public class PlayerPool {
         return player;
     }
 
+    /**
+     * 获取一个用于预加载的播放器
+     * 正在使用的播放器已经达到解码器预算时返回 null，当前页的播放不受预算限制
+     * @return 可用的播放器，超出预算时返回 null
+     */
+    @MainThread
+    @Nullable
+    public ExoPlayer acquirePreloadPlayer() {
+        if (getInUseCount() >= decoderBudget) {
+            android.util.Log.d(TAG, "解码器预算已用完，跳过预加载，使用中: " + getInUseCount());
+            return null;
+        }
+        return acquirePlayer();
+    }
+
     /**
      * 归还播放器到池中
      * @param player 要归还的播放器
@@ -88,16 +496,16 @@ public class PlayerPool {
         // 先重置播放器状态
         resetPlayer(player);
         
-        // 如果池未满且播放器有效，归还到池中
-        if (availablePlayers.size() < MAX_PLAYERS && allPlayers.contains(player)) {
+        // 如果池未满、播放器有效且缓冲配置没有变化，归还到池中
+        if (availablePlayers.size() < maxPlayers && allPlayers.contains(player)
+                && playerProfiles.get(player) == bufferProfile) {
             if (!availablePlayers.contains(player)) {
-                availablePlayers.add(player);
+                addAvailable(player);
                 android.util.Log.d(TAG, "播放器归还到池中，可用: " + availablePlayers.size());
             }
         } else {
-            // 池已满或播放器不在跟踪列表中，直接释放
-            player.release();
-            allPlayers.remove(player);
+            // 池已满、播放器不在跟踪列表中或缓冲配置已经切换，直接释放
+            discardPlayer(player);
             android.util.Log.d(TAG, "播放器已释放，总数: " + allPlayers.size());
         }
     }
@@ -124,6 +532,20 @@ public class PlayerPool {
         }
     }
 
+    /**
+     * 同时持有解码器的播放器上限
+     */
+    public int getDecoderBudget() {
+        return decoderBudget;
+    }
+
+    /**
+     * 滑动方向上预加载的页数
+     */
+    public int getPreloadDepth() {
+        return preloadDepth;
+    }
+
     /**
      * 获取可用播放器数量
      */
@@ -131,6 +553,13 @@ public class PlayerPool {
         return availablePlayers.size();
     }
 
+    /**
+     * 获取正在使用的播放器数量
+     */
+    public int getInUseCount() {
+        return allPlayers.size() - availablePlayers.size();
+    }
+
     /**
      * 获取总播放器数量
      */
@@ -145,6 +574,7 @@ public class PlayerPool {
     public void releaseAllPlayers() {
         for (ExoPlayer player : allPlayers) {
             try {
+                notifyPlayerReleased(player);
                 player.release();
             } catch (Exception e) {
                 android.util.Log.e(TAG, "释放播放器失败: " + e.getMessage());
@@ -152,7 +582,9 @@ public class PlayerPool {
         }
         availablePlayers.clear();
         allPlayers.clear();
-        isInitialized = false;
+        playerProfiles.clear();
+        idleSince.clear();
+        mainHandler.removeCallbacks(idleTrimRunnable);
         android.util.Log.d(TAG, "所有播放器已释放");
     }
 }
\ No newline at end of file
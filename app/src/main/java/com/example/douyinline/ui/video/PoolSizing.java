@@ -0,0 +1,37 @@
+package com.example.douyinline.ui.video;
+
+/**
+ * 播放器池的规模
+ */
+public class PoolSizing {
+    // 池中保留的播放器数量
+    private final int poolSize;
+    // 同时持有解码器的播放器上限
+    private final int decoderBudget;
+    // 滑动方向上预加载的页数
+    private final int preloadDepth;
+
+    public PoolSizing(int poolSize, int decoderBudget, int preloadDepth) {
+        this.poolSize = poolSize;
+        this.decoderBudget = decoderBudget;
+        this.preloadDepth = preloadDepth;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getDecoderBudget() {
+        return decoderBudget;
+    }
+
+    public int getPreloadDepth() {
+        return preloadDepth;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolSizing{poolSize=" + poolSize + ", decoderBudget=" + decoderBudget
+                + ", preloadDepth=" + preloadDepth + "}";
+    }
+}
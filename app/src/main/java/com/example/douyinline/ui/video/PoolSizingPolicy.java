@@ -0,0 +1,8 @@
+package com.example.douyinline.ui.video;
+
+/**
+ * 根据设备能力决定播放器池规模的策略
+ */
+public interface PoolSizingPolicy {
+    PoolSizing decide(DeviceProfile profile);
+}
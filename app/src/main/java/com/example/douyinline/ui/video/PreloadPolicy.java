@@ -0,0 +1,70 @@
+package com.example.douyinline.ui.video;
+
+/**
+ * 播放页预加载策略
+ * 根据当前位置和滑动方向决定预先准备哪些页：默认准备滑动方向上接下来的几页，
+ * 到达列表一端时改为准备另一侧的相邻页
+ * 不依赖 Android，只在主线程使用
+ */
+public class PreloadPolicy {
+    public static final int FORWARD = 1;
+    public static final int BACKWARD = -1;
+
+    private int currentPosition = -1;
+    private int direction = FORWARD;
+
+    /**
+     * 选中新页面时调用，方向由前后两次选中的位置决定
+     * @param position 选中的位置
+     */
+    public void onPageSelected(int position) {
+        if (currentPosition != -1 && position != currentPosition) {
+            direction = position > currentPosition ? FORWARD : BACKWARD;
+        }
+        currentPosition = position;
+    }
+
+    /**
+     * 拖动中检测到的方向，与当前方向不同时改为预加载另一侧
+     * 还没有选中页面时忽略，调用方通过 getDirection 判断方向是否改变
+     * @param newDirection FORWARD 或 BACKWARD
+     */
+    public void onDragDirection(int newDirection) {
+        if (currentPosition != -1) {
+            direction = newDirection;
+        }
+    }
+
+    /**
+     * 按当前方向计算需要预加载的多个位置，离当前页近的在前
+     * 滑动方向上的页数不够 depth 时，用另一侧的相邻页补一个
+     * @param itemCount 列表条数
+     * @param depth 最多预加载的页数
+     * @param out 输出的位置，长度不小于 depth
+     * @return out 中的有效条数
+     */
+    public int targets(int itemCount, int depth, int[] out) {
+        if (currentPosition == -1 || depth <= 0) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = 1; i <= depth; i++) {
+            int next = currentPosition + direction * i;
+            if (next < 0 || next >= itemCount) {
+                break;
+            }
+            out[count++] = next;
+        }
+        if (count < depth) {
+            int opposite = currentPosition - direction;
+            if (opposite >= 0 && opposite < itemCount) {
+                out[count++] = opposite;
+            }
+        }
+        return count;
+    }
+
+    public int getDirection() {
+        return direction;
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.douyinline.ui.video;
+
+import android.content.Context;
+import android.graphics.SurfaceTexture;
+import android.view.Gravity;
+import android.view.Surface;
+import android.view.TextureView;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.OptIn;
+import androidx.media3.common.Player;
+import androidx.media3.common.VideoSize;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.ui.AspectRatioFrameLayout;
+
+/**
+ * 可以在页面之间移动的视频画面
+ * TextureView 从窗口移除时默认会释放 SurfaceTexture，这里在 onSurfaceTextureDestroyed 中保留它，
+ * 重新加入页面前通过 setSurfaceTexture 交还，交给播放器的 Surface 始终有效，
+ * 同一个播放器换页面时不需要重新设置解码输出
+ * 只在主线程使用
+ */
+@OptIn(markerClass = UnstableApi.class)
+public class SharedVideoSurface implements TextureView.SurfaceTextureListener {
+    private final AspectRatioFrameLayout container;
+    private final TextureView textureView;
+    private SurfaceTexture surfaceTexture;
+    private Surface surface;
+    // 当前输出到这个画面的播放器
+    private ExoPlayer player;
+    private boolean released = false;
+
+    private final Player.Listener videoListener = new Player.Listener() {
+        @Override
+        public void onVideoSizeChanged(@NonNull VideoSize videoSize) {
+            updateAspectRatio(videoSize);
+        }
+
+        @Override
+        public void onRenderedFirstFrame() {
+            textureView.setAlpha(1f);
+        }
+    };
+
+    SharedVideoSurface(Context context) {
+        container = new AspectRatioFrameLayout(context);
+        container.setResizeMode(AspectRatioFrameLayout.RESIZE_MODE_FIXED_WIDTH);
+        textureView = new TextureView(context);
+        textureView.setSurfaceTextureListener(this);
+        container.addView(textureView, new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+    }
+
+    /**
+     * 把播放器的视频输出到这个画面，同一个播放器重复绑定时不做任何事
+     * @param newPlayer 播放器，null 表示解除绑定
+     */
+    void bindPlayer(ExoPlayer newPlayer) {
+        if (newPlayer == player) {
+            return;
+        }
+        if (player != null) {
+            player.removeListener(videoListener);
+            if (surface != null) {
+                player.clearVideoSurface(surface);
+            }
+        }
+        player = newPlayer;
+        if (newPlayer != null) {
+            newPlayer.addListener(videoListener);
+            if (surface != null) {
+                newPlayer.setVideoSurface(surface);
+            }
+            updateAspectRatio(newPlayer.getVideoSize());
+        }
+    }
+
+    ExoPlayer getPlayer() {
+        return player;
+    }
+
+    /**
+     * 在播放器解析出视频尺寸之前按已知的比例布局，之后视频尺寸到达时比例不变，不会重新布局
+     * @param aspectRatio 视频显示比例（宽 / 高），未知时传 0
+     */
+    void presetAspectRatio(float aspectRatio) {
+        if (aspectRatio > 0) {
+            container.setAspectRatio(aspectRatio);
+        }
+    }
+
+    /**
+     * 放到页面的最底层，页面上的其他控件显示在视频上面
+     */
+    void attachTo(ViewGroup page) {
+        if (container.getParent() == page) {
+            return;
+        }
+        detach();
+        if (surfaceTexture != null && textureView.getSurfaceTexture() != surfaceTexture) {
+            textureView.setSurfaceTexture(surfaceTexture);
+        }
+        FrameLayout.LayoutParams lp = new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        lp.gravity = Gravity.CENTER;
+        page.addView(container, 0, lp);
+    }
+
+    /**
+     * 从页面上移除，SurfaceTexture 保留
+     */
+    void detach() {
+        ViewGroup parent = (ViewGroup) container.getParent();
+        if (parent != null) {
+            parent.removeView(container);
+        }
+    }
+
+    /**
+     * 播放器换了新的视频，在新视频的第一帧出来之前隐藏上一个视频的最后一帧
+     */
+    void hideUntilFirstFrame() {
+        textureView.setAlpha(0f);
+    }
+
+    /**
+     * 释放画面，之后不能再使用
+     */
+    void release() {
+        bindPlayer(null);
+        released = true;
+        boolean attached = textureView.isAttachedToWindow();
+        // 还在窗口中时由 TextureView 在移除时释放 SurfaceTexture
+        detach();
+        if (surface != null) {
+            surface.release();
+            surface = null;
+        }
+        if (!attached && surfaceTexture != null) {
+            surfaceTexture.release();
+        }
+        surfaceTexture = null;
+    }
+
+    private void updateAspectRatio(VideoSize videoSize) {
+        if (videoSize.width == 0 || videoSize.height == 0) {
+            return;
+        }
+        container.setAspectRatio(videoSize.width * videoSize.pixelWidthHeightRatio / videoSize.height);
+    }
+
+    @Override
+    public void onSurfaceTextureAvailable(@NonNull SurfaceTexture texture, int width, int height) {
+        // 只有第一次加入窗口时会创建新的 SurfaceTexture
+        surfaceTexture = texture;
+        surface = new Surface(texture);
+        if (player != null) {
+            player.setVideoSurface(surface);
+        }
+    }
+
+    @Override
+    public void onSurfaceTextureSizeChanged(@NonNull SurfaceTexture texture, int width, int height) {
+    }
+
+    @Override
+    public boolean onSurfaceTextureDestroyed(@NonNull SurfaceTexture texture) {
+        // 返回 false 时 TextureView 不释放 SurfaceTexture，重新加入页面时继续使用
+        return released;
+    }
+
+    @Override
+    public void onSurfaceTextureUpdated(@NonNull SurfaceTexture texture) {
+    }
+}
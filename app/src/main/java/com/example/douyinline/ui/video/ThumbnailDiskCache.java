@@ -0,0 +1,221 @@
+package com.example.douyinline.ui.video;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 视频首帧缩略图的磁盘缓存
+ * 每个视频一个文件，文件名由视频ID和视频 Uri 的哈希组成，视频内容换了 Uri 时自然失效
+ * 总大小超过上限时按最近使用淘汰，重启后按修改时间恢复使用顺序
+ * 读取在主线程进行，只查询内存中的文件名集合，不加锁也不访问磁盘；
+ * 读到的文件名先记下来，下一次在工作线程写入时再统一更新修改时间和使用顺序，
+ * 同时发现已经被系统清理的文件
+ * 文件名集合在工作线程扫描目录后才可用，之前的读取都返回 null
+ * 不依赖 Android，线程安全
+ */
+public class ThumbnailDiskCache {
+    private static final String SUFFIX = ".webp";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final File directory;
+    private final long maxBytes;
+    // 文件名 -> 字节数，按访问顺序排列，第一次写入或 loadIndex 时才扫描目录，由 this 保护
+    private LinkedHashMap<String, Long> index;
+    private long totalBytes = 0;
+    // 与 index 相同的文件名集合，读取时不加锁查询
+    private final Set<String> cachedNames = ConcurrentHashMap.newKeySet();
+    // 读取过、还没有更新修改时间的文件名
+    private final Set<String> pendingTouches = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param directory 缓存目录，不存在时在第一次写入时创建
+     * @param maxBytes 缓存总大小上限
+     */
+    public ThumbnailDiskCache(File directory, long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes 必须为正数: " + maxBytes);
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 缓存文件名：视频ID_Uri哈希.webp
+     */
+    static String fileName(long videoId, String uri) {
+        return videoId + "_" + Long.toHexString(hash(uri)) + SUFFIX;
+    }
+
+    /**
+     * 64 位 FNV-1a 哈希
+     */
+    static long hash(String value) {
+        long h = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+
+    /**
+     * 获取已经缓存的缩略图，同时记下待标记为最近使用
+     * 只查询内存中的文件名集合，不加锁、不访问磁盘，可以在主线程调用
+     * @return 缩略图文件，没有缓存或还没有扫描过目录时返回 null
+     */
+    public File get(long videoId, String uri) {
+        String name = fileName(videoId, uri);
+        if (!cachedNames.contains(name)) {
+            return null;
+        }
+        pendingTouches.add(name);
+        return new File(directory, name);
+    }
+
+    /**
+     * 扫描目录建立索引，之后 get 才能读到上次留下的文件，在工作线程调用
+     */
+    public synchronized void loadIndex() {
+        ensureIndex();
+    }
+
+    /**
+     * 写入缩略图，先写临时文件再重命名，之后按最近使用淘汰到上限以内
+     * @return 缩略图文件，单个文件超过上限或写入失败时返回 null
+     */
+    public synchronized File put(long videoId, String uri, byte[] data) {
+        if (data.length > maxBytes) {
+            return null;
+        }
+        ensureIndex();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            return null;
+        }
+        String name = fileName(videoId, uri);
+        File file = new File(directory, name);
+        File tmp = new File(directory, name + TMP_SUFFIX);
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(data);
+        } catch (IOException e) {
+            tmp.delete();
+            return null;
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            return null;
+        }
+        Long old = index.put(name, (long) data.length);
+        totalBytes += data.length - (old == null ? 0 : old);
+        cachedNames.add(name);
+        trimToSize(maxBytes);
+        return file;
+    }
+
+    /**
+     * 按最近使用淘汰，直到总大小不超过 limit，淘汰前先应用读取记下的使用顺序
+     */
+    public synchronized void trimToSize(long limit) {
+        ensureIndex();
+        applyTouches();
+        Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+        while (totalBytes > limit && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            cachedNames.remove(eldest.getKey());
+            new File(directory, eldest.getKey()).delete();
+            totalBytes -= eldest.getValue();
+            it.remove();
+        }
+    }
+
+    /**
+     * 缓存文件的总字节数
+     */
+    public synchronized long size() {
+        ensureIndex();
+        return totalBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * 扫描目录建立索引，按修改时间从旧到新排列，并清理上次中断留下的临时文件
+     */
+    private void ensureIndex() {
+        if (index != null) {
+            return;
+        }
+        index = new LinkedHashMap<>(16, 0.75f, true);
+        totalBytes = 0;
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        long[] modified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            modified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(modified[a], modified[b]));
+        for (int i : order) {
+            File file = files[i];
+            String name = file.getName();
+            if (name.endsWith(TMP_SUFFIX)) {
+                file.delete();
+            } else if (name.endsWith(SUFFIX)) {
+                index.put(name, file.length());
+                totalBytes += file.length();
+                cachedNames.add(name);
+            }
+        }
+    }
+
+    /**
+     * 把读取过的文件更新为最近使用，并更新修改时间；文件已经被系统清理时从索引中移除
+     */
+    private void applyTouches() {
+        if (pendingTouches.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        boolean removed = false;
+        Iterator<String> it = pendingTouches.iterator();
+        while (it.hasNext()) {
+            String name = it.next();
+            it.remove();
+            if (!index.containsKey(name)) {
+                continue;
+            }
+            File file = new File(directory, name);
+            if (file.isFile()) {
+                file.setLastModified(now);
+                index.get(name);
+            } else {
+                index.remove(name);
+                cachedNames.remove(name);
+                removed = true;
+            }
+        }
+        if (removed) {
+            recomputeTotal();
+        }
+    }
+
+    private void recomputeTotal() {
+        totalBytes = 0;
+        for (long bytes : index.values()) {
+            totalBytes += bytes;
+        }
+    }
+}
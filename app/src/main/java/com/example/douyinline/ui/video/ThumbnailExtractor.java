@@ -0,0 +1,266 @@
+package com.example.douyinline.ui.video;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.media.MediaMetadataRetriever;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 视频首帧缩略图提取
+ * 1. 后台线程用 MediaMetadataRetriever 取出视频开头的第一帧，缩小后压缩成 WebP 存入磁盘缓存
+ * 2. 推荐页卡片和播放页的封面占位图优先显示首帧，与视频第一帧一致，切换时没有跳变
+ * 3. 线程数和排队数都有上限，排满时丢弃最早的请求；视频滑远后由调用方取消
+ * 4. 同一个视频同时只提取一次，重复请求合并到进行中的任务；每个请求方用自己的回调登记，
+ *    取消时只移除该请求方，所有请求方都取消后才停止提取
+ */
+public class ThumbnailExtractor {
+    private static final String TAG = "ThumbnailExtractor";
+    private static final String CACHE_DIR = "frame_thumbnails";
+    // 磁盘缓存上限
+    public static final long MAX_CACHE_BYTES = 16L * 1024 * 1024;
+    // 缩略图宽度，双列卡片在 1080p 屏幕上约 520px，占位图只在转场时短暂显示
+    static final int THUMBNAIL_WIDTH = 360;
+    private static final int WEBP_QUALITY = 75;
+    private static final int WORKER_THREADS = 2;
+    private static final int MAX_QUEUED = 16;
+
+    private static volatile ThumbnailExtractor INSTANCE;
+
+    public static ThumbnailExtractor getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (ThumbnailExtractor.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new ThumbnailExtractor(context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * 缩略图提取完成的回调，在主线程调用
+     */
+    public interface Callback {
+        void onThumbnailReady(long videoId, File file);
+    }
+
+    private final Context appContext;
+    private final ThumbnailDiskCache diskCache;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ThreadPoolExecutor executor;
+    // 视频ID -> 进行中的提取任务，包括排队中的
+    private final Map<Long, ExtractTask> inFlight = new HashMap<>();
+
+    private ThumbnailExtractor(Context appContext) {
+        this.appContext = appContext;
+        this.diskCache = new ThumbnailDiskCache(new File(appContext.getCacheDir(), CACHE_DIR), MAX_CACHE_BYTES);
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED),
+                runnable -> new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }, "FrameThumbnail-" + threadCount.incrementAndGet()),
+                (runnable, pool) -> {
+                    // 排满时丢弃最早的请求，滑动中最新的请求离当前位置最近
+                    Runnable eldest = pool.getQueue().poll();
+                    if (eldest instanceof Future) {
+                        ((Future<?>) eldest).cancel(false);
+                    }
+                    pool.execute(runnable);
+                });
+        executor.allowCoreThreadTimeOut(true);
+        // 在工作线程扫描缓存目录，之后主线程才能读到上次提取的首帧
+        executor.execute(diskCache::loadIndex);
+    }
+
+    /**
+     * 获取已经缓存的首帧，不触发提取，可以在主线程调用
+     * @return 缩略图文件，没有缓存时返回 null
+     */
+    public File getCachedThumbnail(long videoId, Uri uri) {
+        return diskCache.get(videoId, uri.toString());
+    }
+
+    /**
+     * 获取视频首帧，已经缓存时直接返回，否则在后台提取
+     * @param callback 提取完成后在主线程调用，同时标识请求方，取消时传同一个对象；
+     *                 同一个请求方重复请求同一个视频只登记一次
+     * @return 已经缓存的缩略图文件，需要提取时返回 null
+     */
+    public File request(long videoId, Uri uri, Callback callback) {
+        File cached = getCachedThumbnail(videoId, uri);
+        if (cached != null) {
+            return cached;
+        }
+        synchronized (inFlight) {
+            ExtractTask task = inFlight.get(videoId);
+            if (task == null || task.isDone()) {
+                task = new ExtractTask(videoId, uri);
+                inFlight.put(videoId, task);
+                executor.execute(task);
+            }
+            if (!task.callbacks.contains(callback)) {
+                task.callbacks.add(callback);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 取消一个请求方对指定视频的提取，视频滑远或卡片被回收时调用
+     * 只移除该请求方的回调，同一视频还有其他请求方时继续提取；
+     * 最后一个请求方取消后停止任务，已经开始解码的任务会在下一个检查点停止，结果不写入缓存
+     * @param callback 请求时传入的回调
+     */
+    public void cancel(long videoId, Callback callback) {
+        ExtractTask task;
+        synchronized (inFlight) {
+            task = inFlight.get(videoId);
+            if (task == null || !task.callbacks.remove(callback) || !task.callbacks.isEmpty()) {
+                return;
+            }
+            inFlight.remove(videoId);
+        }
+        task.cancel(true);
+        executor.remove(task);
+    }
+
+    /**
+     * 取出视频第一帧并缩小到 THUMBNAIL_WIDTH
+     * Android 8.1 起由 getScaledFrameAtTime 在解码时直接缩小，避免先生成原始尺寸的位图
+     */
+    private Bitmap extractFirstFrame(Uri uri) throws Exception {
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        try {
+            retriever.setDataSource(appContext, uri);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+                return retriever.getScaledFrameAtTime(0, MediaMetadataRetriever.OPTION_CLOSEST_SYNC,
+                        THUMBNAIL_WIDTH, THUMBNAIL_WIDTH * 4);
+            }
+            Bitmap frame = retriever.getFrameAtTime(0, MediaMetadataRetriever.OPTION_CLOSEST_SYNC);
+            if (frame == null || frame.getWidth() <= THUMBNAIL_WIDTH) {
+                return frame;
+            }
+            int height = Math.round((float) frame.getHeight() * THUMBNAIL_WIDTH / frame.getWidth());
+            Bitmap scaled = Bitmap.createScaledBitmap(frame, THUMBNAIL_WIDTH, height, true);
+            if (scaled != frame) {
+                frame.recycle();
+            }
+            return scaled;
+        } finally {
+            retriever.release();
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat webpFormat() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY : Bitmap.CompressFormat.WEBP;
+    }
+
+    /**
+     * 单个视频的提取任务，完成或取消后从进行中的任务里移除
+     */
+    private final class ExtractTask extends FutureTask<File> {
+        private final long videoId;
+        // 由 inFlight 保护
+        private final List<Callback> callbacks = new ArrayList<>(1);
+
+        ExtractTask(long videoId, Uri uri) {
+            super(new Extraction(videoId, uri));
+            this.videoId = videoId;
+        }
+
+        @Override
+        protected void done() {
+            List<Callback> ready;
+            synchronized (inFlight) {
+                if (inFlight.get(videoId) == this) {
+                    inFlight.remove(videoId);
+                }
+                ready = new ArrayList<>(callbacks);
+                callbacks.clear();
+            }
+            if (isCancelled()) {
+                return;
+            }
+            File file;
+            try {
+                file = get();
+            } catch (Exception e) {
+                android.util.Log.e(TAG, "首帧提取失败: videoId=" + videoId + ", " + e.getMessage());
+                return;
+            }
+            if (file == null) {
+                return;
+            }
+            mainHandler.post(() -> {
+                for (Callback callback : ready) {
+                    callback.onThumbnailReady(videoId, file);
+                }
+            });
+        }
+    }
+
+    /**
+     * 在工作线程上提取并缓存一个视频的首帧，任务被取消时线程会被中断，检查点发现中断后不写入缓存
+     */
+    private final class Extraction implements Callable<File> {
+        private final long videoId;
+        private final Uri uri;
+
+        Extraction(long videoId, Uri uri) {
+            this.videoId = videoId;
+            this.uri = uri;
+        }
+
+        @Override
+        public File call() throws Exception {
+            String key = uri.toString();
+            diskCache.loadIndex();
+            File cached = diskCache.get(videoId, key);
+            if (cached != null) {
+                return cached;
+            }
+            long start = System.nanoTime();
+            Bitmap frame = extractFirstFrame(uri);
+            if (frame == null) {
+                android.util.Log.w(TAG, "没有取到首帧: videoId=" + videoId);
+                return null;
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                frame.recycle();
+                return null;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+            frame.compress(webpFormat(), WEBP_QUALITY, out);
+            frame.recycle();
+            if (Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            File file = diskCache.put(videoId, key, out.toByteArray());
+            android.util.Log.d(TAG, "首帧提取完成: videoId=" + videoId + ", " + out.size() / 1024 + "KB, "
+                    + (System.nanoTime() - start) / 1_000_000 + "ms");
+            return file;
+        }
+    }
+}
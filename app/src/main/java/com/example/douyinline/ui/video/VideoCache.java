@@ -0,0 +1,234 @@
+package com.example.douyinline.ui.video;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.OptIn;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.database.StandaloneDatabaseProvider;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.DefaultDataSource;
+import androidx.media3.datasource.TransferListener;
+import androidx.media3.datasource.cache.CacheDataSource;
+import androidx.media3.datasource.cache.CacheWriter;
+import androidx.media3.datasource.cache.LeastRecentlyUsedCacheEvictor;
+import androidx.media3.datasource.cache.SimpleCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内共享的视频缓存
+ * 1. 所有播放器通过 CacheDataSource 读取视频，循环播放和回看时直接读缓存
+ * 2. 缓存超过上限时按最近最少使用淘汰
+ * 3. 预缓存线程提前读取即将播放的视频的开头几秒
+ * 4. 统计播放时从缓存读取和从源读取的字节数
+ */
+@OptIn(markerClass = UnstableApi.class)
+public class VideoCache {
+    private static final String TAG = "VideoCache";
+    private static final String CACHE_DIR = "video_cache";
+    // 默认缓存上限
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+    // 预缓存每个视频开头的秒数，以及用于换算字节数的估计码率（4Mbps）
+    public static final int PRECACHE_SECONDS = 3;
+    private static final long ESTIMATED_BYTES_PER_SECOND = 512L * 1024;
+
+    private static volatile VideoCache INSTANCE;
+    // 缓存上限，需要在第一次获取实例之前设置
+    private static volatile long maxCacheBytes = DEFAULT_MAX_BYTES;
+
+    /**
+     * 设置缓存上限，在第一次调用 getInstance 之前生效
+     */
+    public static void setMaxCacheBytes(long maxBytes) {
+        if (INSTANCE != null) {
+            android.util.Log.w(TAG, "缓存已经创建，新的上限在下次启动时生效");
+        }
+        maxCacheBytes = maxBytes;
+    }
+
+    public static VideoCache getInstance(Context context) {
+        if (INSTANCE == null) {
+            synchronized (VideoCache.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = new VideoCache(context.getApplicationContext(), maxCacheBytes);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * 构造 res/raw 中视频的 Uri，播放和预缓存使用同一个 Uri 作为缓存键
+     */
+    public static Uri buildVideoUri(String packageName, int videoResId) {
+        return Uri.parse("android.resource://" + packageName + "/" + videoResId);
+    }
+
+    private final SimpleCache cache;
+    // 播放使用的数据源，统计命中和未命中
+    private final CacheDataSource.Factory playbackDataSourceFactory;
+    // 预缓存使用的数据源，不计入统计
+    private final CacheDataSource.Factory precacheDataSourceFactory;
+    private final long maxBytes;
+
+    // 播放时从缓存读取的字节数，以及缓存未命中从源读取的字节数
+    private final AtomicLong hitBytes = new AtomicLong();
+    private final AtomicLong missBytes = new AtomicLong();
+
+    private final ExecutorService precacheExecutor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "VideoPrecache"));
+    private final Object precacheLock = new Object();
+    // 每次提交预缓存时加一，旧的预缓存任务发现代数变化后停止
+    private long precacheGeneration = 0;
+    private CacheWriter activeWriter;
+
+    private VideoCache(Context appContext, long maxBytes) {
+        this.maxBytes = maxBytes;
+        cache = new SimpleCache(new File(appContext.getCacheDir(), CACHE_DIR),
+                new LeastRecentlyUsedCacheEvictor(maxBytes), new StandaloneDatabaseProvider(appContext));
+
+        DataSource.Factory countedUpstream = new DefaultDataSource.Factory(appContext)
+                .setTransferListener(new TransferListener() {
+                    @Override
+                    public void onTransferInitializing(@NonNull DataSource source, @NonNull DataSpec dataSpec, boolean isNetwork) {
+                    }
+
+                    @Override
+                    public void onTransferStart(@NonNull DataSource source, @NonNull DataSpec dataSpec, boolean isNetwork) {
+                    }
+
+                    @Override
+                    public void onBytesTransferred(@NonNull DataSource source, @NonNull DataSpec dataSpec, boolean isNetwork, int bytesTransferred) {
+                        missBytes.addAndGet(bytesTransferred);
+                    }
+
+                    @Override
+                    public void onTransferEnd(@NonNull DataSource source, @NonNull DataSpec dataSpec, boolean isNetwork) {
+                    }
+                });
+        playbackDataSourceFactory = new CacheDataSource.Factory()
+                .setCache(cache)
+                .setUpstreamDataSourceFactory(countedUpstream)
+                .setFlags(CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR)
+                .setEventListener(new CacheDataSource.EventListener() {
+                    @Override
+                    public void onCachedBytesRead(long cacheSizeBytes, long cachedBytesRead) {
+                        hitBytes.addAndGet(cachedBytesRead);
+                    }
+
+                    @Override
+                    public void onCacheIgnored(int reason) {
+                        android.util.Log.w(TAG, "缓存被跳过: reason=" + reason);
+                    }
+                });
+        precacheDataSourceFactory = new CacheDataSource.Factory()
+                .setCache(cache)
+                .setUpstreamDataSourceFactory(new DefaultDataSource.Factory(appContext));
+        android.util.Log.d(TAG, "视频缓存已创建，上限 " + (maxBytes >> 20) + "MB");
+    }
+
+    /**
+     * 播放器使用的数据源工厂
+     */
+    public DataSource.Factory getDataSourceFactory() {
+        return playbackDataSourceFactory;
+    }
+
+    /**
+     * 预缓存即将播放的视频的开头 PRECACHE_SECONDS 秒
+     * 新的请求会取消还没完成的旧请求，按列表顺序逐个缓存
+     * @param uris 即将播放的视频
+     */
+    public void precache(List<Uri> uris) {
+        List<Uri> targets = new ArrayList<>(uris);
+        long generation;
+        synchronized (precacheLock) {
+            generation = ++precacheGeneration;
+            if (activeWriter != null) {
+                activeWriter.cancel();
+            }
+        }
+        precacheExecutor.execute(() -> {
+            long limit = PRECACHE_SECONDS * ESTIMATED_BYTES_PER_SECOND;
+            for (Uri uri : targets) {
+                CacheWriter[] writer = new CacheWriter[1];
+                synchronized (precacheLock) {
+                    if (generation != precacheGeneration) {
+                        return;
+                    }
+                    // 资源长度未知，不指定读取长度，缓存到足够的字节数后停止；短视频读完整个文件自然结束
+                    writer[0] = new CacheWriter(precacheDataSourceFactory.createDataSourceForDownloading(),
+                            new DataSpec(uri), null, (requestLength, bytesCached, newBytesCached) -> {
+                                if (bytesCached >= limit) {
+                                    writer[0].cancel();
+                                }
+                            });
+                    activeWriter = writer[0];
+                }
+                try {
+                    // 已经缓存的部分会直接跳过
+                    writer[0].cache();
+                } catch (InterruptedIOException e) {
+                    // 被新的预缓存请求取消时停止，达到预缓存长度时继续下一个
+                    synchronized (precacheLock) {
+                        if (generation != precacheGeneration) {
+                            return;
+                        }
+                    }
+                } catch (IOException e) {
+                    android.util.Log.e(TAG, "预缓存失败: " + uri + ", " + e.getMessage());
+                } finally {
+                    synchronized (precacheLock) {
+                        if (activeWriter == writer[0]) {
+                            activeWriter = null;
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * 播放时从缓存读取的字节数
+     */
+    public long getHitBytes() {
+        return hitBytes.get();
+    }
+
+    /**
+     * 播放时缓存未命中、从源读取的字节数
+     */
+    public long getMissBytes() {
+        return missBytes.get();
+    }
+
+    /**
+     * 按字节计算的缓存命中率，还没有读取时返回 0
+     */
+    public double getHitRate() {
+        long hits = hitBytes.get();
+        long total = hits + missBytes.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * 当前缓存占用的字节数
+     */
+    public long getCacheSpace() {
+        return cache.getCacheSpace();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+}
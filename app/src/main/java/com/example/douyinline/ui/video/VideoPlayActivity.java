@@ -13,13 +13,17 @@ import androidx.lifecycle.ViewModelProvider;
 import androidx.viewpager2.widget.ViewPager2;
 
 import com.bumptech.glide.Glide;
+import com.example.douyinline.BuildConfig;
 import com.example.douyinline.R;
 import com.example.douyinline.bean.VideoBean;
+import com.example.douyinline.repository.VideoCounterStore;
+import com.example.douyinline.repository.VideoRepository;
 
 import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
 import android.widget.ImageView;
 
+import java.io.File;
 import java.util.List;
 
 /**
@@ -32,16 +36,30 @@ import java.util.List;
  */
 public class VideoPlayActivity extends AppCompatActivity {
     private static final String TAG = "VideoPlayActivity";
+    // 首帧耗时直方图的导出文件
+    private static final String FIRST_FRAME_EXPORT_FILE = "first_frame_latency.txt";
     
     private VideoPlayViewModel viewModel;
     private CommentViewModel commentViewModel;
     private ViewPager2 vpFullVideo;
     private VideoPlayerPagerAdapter adapter;
+    // 共用画面模式：少量画面在页面之间移动，不随页面创建和销毁
+    private static final boolean USE_SHARED_SURFACES = true;
+    private VideoSurfacePool surfacePool;
     private int currentPosition = 0;
+    // 视频列表异步到达前记录的初始播放位置
+    private int pendingStartPosition = -1;
     
     // 封面占位图（用于转场，避免黑屏）
     private ImageView ivCoverPlaceholder;
     private boolean isCoverHidden = false;
+    // 批量同步计数后局部刷新各页的互动计数
+    private final VideoCounterStore.OnCountersChangedListener countersChangedListener = () ->
+            runOnUiThread(() -> {
+                if (adapter != null) {
+                    adapter.notifyItemRangeChanged(0, adapter.getItemCount(), VideoPlayerPagerAdapter.PAYLOAD_COUNTS);
+                }
+            });
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -54,10 +72,12 @@ public class VideoPlayActivity extends AppCompatActivity {
 
         int startPosition = getIntent().getIntExtra("startPosition", 0);
         int coverResId = getIntent().getIntExtra("coverResId", 0);
+        long videoId = getIntent().getLongExtra("videoId", -1);
+        int videoResId = getIntent().getIntExtra("videoResId", 0);
         this.currentPosition = startPosition;
 
         // 初始化封面占位图（避免转场黑屏）
-        initCoverPlaceholder(coverResId);
+        initCoverPlaceholder(coverResId, videoId, videoResId);
 
         // 初始化 ViewModel
         viewModel = new ViewModelProvider(this).get(VideoPlayViewModel.class);
@@ -70,6 +90,7 @@ public class VideoPlayActivity extends AppCompatActivity {
 
         // 观察数据
         observeViewModel();
+        VideoCounterStore.getInstance().addOnCountersChangedListener(countersChangedListener);
         
         android.util.Log.d(TAG, "onCreate: startPosition=" + startPosition);
     }
@@ -77,10 +98,20 @@ public class VideoPlayActivity extends AppCompatActivity {
     /**
      * 初始化封面占位图
      * 在视频加载完成前显示封面，避免黑屏
+     * 已经提取过视频首帧时优先显示首帧，淡出时与视频第一帧一致
      */
-    private void initCoverPlaceholder(int coverResId) {
+    private void initCoverPlaceholder(int coverResId, long videoId, int videoResId) {
         ivCoverPlaceholder = findViewById(R.id.iv_cover_placeholder);
-        if (coverResId != 0) {
+        File firstFrame = videoResId == 0 ? null : ThumbnailExtractor.getInstance(this)
+                .getCachedThumbnail(videoId, VideoCache.buildVideoUri(getPackageName(), videoResId));
+        if (firstFrame != null) {
+            // 首帧文件读取失败时退回封面图
+            Glide.with(this)
+                    .load(firstFrame)
+                    .error(coverResId)
+                    .into(ivCoverPlaceholder);
+            ivCoverPlaceholder.setVisibility(View.VISIBLE);
+        } else if (coverResId != 0) {
             // 使用 Glide 加载封面图
             Glide.with(this)
                     .load(coverResId)
@@ -137,35 +168,47 @@ public class VideoPlayActivity extends AppCompatActivity {
         // 设置垂直滚动
         vpFullVideo.setOrientation(ViewPager2.ORIENTATION_VERTICAL);
 
-        // 设置预加载页面数（左右各1页，加上当前页共3页，正好匹配播放器池大小）
-        vpFullVideo.setOffscreenPageLimit(1);
+        // 设置预加载页面数，与播放器池的预加载深度一致，预加载的页面需要先 attach
+        vpFullVideo.setOffscreenPageLimit(Math.max(1, viewModel.getPlayerPool().getPreloadDepth()));
 
-        // 设置适配器
+        // 设置适配器（视频列表异步到达后再填充）
         List<VideoBean> videoList = viewModel.getVideoListLiveData().getValue();
         adapter = new VideoPlayerPagerAdapter(viewModel.getPlayerPool(), videoList);
+        if (USE_SHARED_SURFACES) {
+            surfacePool = new VideoSurfacePool(this);
+            adapter.setVideoSurfacePool(surfacePool);
+            viewModel.getPlayerPool().addOnPlayerReleasedListener(surfacePool);
+        }
         vpFullVideo.setAdapter(adapter);
 
         // 设置视频准备好的监听器（用于淡出封面占位图）
         adapter.setOnVideoReadyListener(() -> hideCoverPlaceholder());
 
-        // 设置初始位置，不带滚动动画
-        vpFullVideo.setCurrentItem(startPosition, false);
-        
-        // 初始播放位置（需要延迟一帧，确保 ViewHolder 已经 attached）
-        vpFullVideo.post(() -> {
-            adapter.playAt(startPosition);
-        });
+        // 初始位置在视频列表到达后再设置
+        pendingStartPosition = startPosition;
 
         // 设置页面切换监听
         vpFullVideo.registerOnPageChangeCallback(new ViewPager2.OnPageChangeCallback() {
             @Override
             public void onPageSelected(int position) {
                 android.util.Log.d(TAG, "onPageSelected: " + position);
+                // 首帧耗时从这里开始计时
+                FirstFrameTracker.getInstance().onPageSelected(position);
                 currentPosition = position;
                 viewModel.onPageSelected(position);
                 // 切换播放
                 adapter.playAt(position);
             }
+
+            @Override
+            public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+                if (positionOffset == 0f) {
+                    return;
+                }
+                // 可见的第一页在当前页之前，说明正在往回拖
+                adapter.onSwipeDirection(position < currentPosition
+                        ? PreloadPolicy.BACKWARD : PreloadPolicy.FORWARD);
+            }
         });
 
         // 设置交互监听
@@ -179,7 +222,7 @@ public class VideoPlayActivity extends AppCompatActivity {
                 List<VideoBean> videoList = viewModel.getVideoListLiveData().getValue();
                 if (videoList != null && videoList.size() > position && position >= 0) {
                     // 仅在未点赞时点赞
-                    if (!videoList.get(position).isLiked()) {
+                    if (!VideoCounterStore.getInstance().isLiked(videoList.get(position).getVideoId())) {
                         viewModel.toggleLikeClick(position);
                     }
                 }
@@ -201,7 +244,8 @@ public class VideoPlayActivity extends AppCompatActivity {
                     VideoBean video = videoList.get(position);
                     // 显示评论BottomSheet
                     if (video != null) {
-                        CommentBottomSheetFragment commentSheet= CommentBottomSheetFragment.newInstance(video, position);
+                        CommentBottomSheetFragment commentSheet= CommentBottomSheetFragment.newInstance(video.getVideoId(),
+                                VideoCounterStore.getInstance().getCommentCount(video.getVideoId()), position);
                         commentSheet.show(getSupportFragmentManager(), "commentSheet");
                     }else{
                         CommentBottomSheetFragment commentSheet= new CommentBottomSheetFragment();
@@ -218,6 +262,14 @@ public class VideoPlayActivity extends AppCompatActivity {
         viewModel.getVideoListLiveData().observe(this, videoList -> {
             if (videoList != null && adapter != null) {
                 adapter.setVideoList(videoList);
+                if (pendingStartPosition != -1 && pendingStartPosition < videoList.size()) {
+                    int startPosition = pendingStartPosition;
+                    pendingStartPosition = -1;
+                    // 设置初始位置，不带滚动动画
+                    vpFullVideo.setCurrentItem(startPosition, false);
+                    // 初始播放位置（需要延迟一帧，确保 ViewHolder 已经 attached）
+                    vpFullVideo.post(() -> adapter.playAt(startPosition));
+                }
             }
         });
 
@@ -292,12 +344,42 @@ public class VideoPlayActivity extends AppCompatActivity {
         if (adapter != null) {
             adapter.pauseCurrent();
         }
+        VideoRepository repository = VideoRepository.getInstance();
+        repository.flushSeenVideosAsync();
+        repository.savePlaybackPositionsAsync();
+        if (BuildConfig.DEBUG) {
+            logPlaybackStats(repository);
+        }
+    }
+
+    /**
+     * 输出播放位置、视频缓存和首帧耗时的统计，并导出首帧耗时，只在调试构建中调用
+     */
+    private void logPlaybackStats(VideoRepository repository) {
+        android.util.Log.d(TAG, "播放位置命中率: " + String.format(java.util.Locale.US, "%.2f",
+                repository.getPlaybackPositions().getHitRate()) + ", 记录数 " + repository.getPlaybackPositions().size());
+        VideoCache cache = VideoCache.getInstance(this);
+        android.util.Log.d(TAG, "视频缓存: 命中 " + cache.getHitBytes() + "B, 未命中 " + cache.getMissBytes()
+                + "B, 命中率 " + String.format(java.util.Locale.US, "%.2f", cache.getHitRate())
+                + ", 占用 " + cache.getCacheSpace() + "B");
+        FirstFrameTracker firstFrameTracker = FirstFrameTracker.getInstance();
+        android.util.Log.d(TAG, firstFrameTracker.summary());
+        firstFrameTracker.exportAsync(new java.io.File(getFilesDir(), FIRST_FRAME_EXPORT_FILE));
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
         android.util.Log.d(TAG, "onDestroy");
-        // PlayerPool 的释放由 ViewModel.onCleared() 处理
+        VideoCounterStore.getInstance().removeOnCountersChangedListener(countersChangedListener);
+        // 页面上的播放器归还到共用的播放器池，租用由 ViewModel.onCleared() 归还
+        if (adapter != null) {
+            adapter.releaseAllPlayers();
+        }
+        // 画面属于这个播放页，播放器不再输出到这些画面
+        if (surfacePool != null) {
+            viewModel.getPlayerPool().removeOnPlayerReleasedListener(surfacePool);
+            surfacePool.releaseAll();
+        }
     }
 }
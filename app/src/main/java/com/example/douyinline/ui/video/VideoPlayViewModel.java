@@ -1,15 +1,23 @@
 package com.example.douyinline.ui.video;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.example.douyinline.bean.CommentBean;
+import com.example.douyinline.bean.FeedEntry;
 import com.example.douyinline.bean.VideoBean;
+import com.example.douyinline.repository.FeedWindowStore;
+import com.example.douyinline.repository.VideoCounterStore;
 import com.example.douyinline.repository.VideoRepository;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * 视频播放 ViewModel
@@ -19,7 +27,16 @@ import java.util.List;
  * 4. 处理交互事件（点赞、分享等）
  */
 public class VideoPlayViewModel extends ViewModel {
+    private static final String TAG = "VideoPlayViewModel";
+    // 当前位置前后保留完整视频对象的条数，窗口外只保留存根
+    private static final int WINDOW_BEFORE = 3;
+    private static final int WINDOW_AFTER = 5;
+    // 距离末尾还剩多少页时在后台加载下一页
+    private static final int PREFETCH_DISTANCE = 3;
+
     private MutableLiveData<List<VideoBean>> videoListLiveData = new MutableLiveData<>();
+    // 滑动窗口视频流存储，作为视频列表交给 Adapter
+    private FeedWindowStore feedWindowStore;
     private MutableLiveData<Integer> currentVideoPositionLiveData = new MutableLiveData<>();
 
     private MutableLiveData<LikeEvent> likeEventLiveData = new MutableLiveData<>();
@@ -28,32 +45,57 @@ public class VideoPlayViewModel extends ViewModel {
 
     private PlayerPool playerPool;
     private int currentIndex = 0;
+    // 是否正在加载下一页
+    private boolean loadingMore = false;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Executor mainExecutor = mainHandler::post;
 
     @Override
     protected void onCleared() {
         super.onCleared();
+        // 播放器池在进程内共用，归还租用后空闲的播放器留给下次打开的播放页
         if (playerPool != null) {
-            playerPool.releaseAllPlayers();
+            playerPool.releaseLease();
         }
     }
 
     /**
      * 初始化数据
+     * 视频列表在仓库线程读取，到达后在主线程放入滑动窗口存储并通过 videoListLiveData 发布
      * @param startPosition 初始播放位置
      */
     public void initFromRepository(int startPosition) {
         this.currentIndex = startPosition;
-        List<VideoBean> list = VideoRepository.getInstance().getRecommendVideos();
-        videoListLiveData.setValue(list);
         currentVideoPositionLiveData.setValue(startPosition);
+        VideoRepository repository = VideoRepository.getInstance();
+        Futures.addCallback(repository.getRecommendVideosAsync(), new FutureCallback<List<FeedEntry>>() {
+            @Override
+            public void onSuccess(List<FeedEntry> entries) {
+                FeedWindowStore store = new FeedWindowStore(WINDOW_BEFORE, WINDOW_AFTER,
+                        repository::findVideoById);
+                store.moveTo(startPosition);
+                store.addEntries(entries);
+                feedWindowStore = store;
+                videoListLiveData.setValue(store);
+                // 起始位置已经靠近末尾时直接开始加载下一页
+                loadMoreIfNeeded(currentIndex);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                android.util.Log.e(TAG, "获取推荐视频失败: " + t.getMessage());
+            }
+        }, mainExecutor);
     }
 
     /**
-     * 初始化ExoPlayer实例池
+     * 租用进程内共用的播放器池，没有预热好时补足播放器
      */
     public void initPlayerPool(Context context) {
         if(playerPool == null){
-            playerPool = new PlayerPool(context);
+            playerPool = PlayerPool.getShared(context);
+            boolean warm = playerPool.acquireLease();
+            FirstFrameTracker.getInstance().onPoolLeased(warm);
         }
         playerPool.initPool();
     }
@@ -71,7 +113,50 @@ public class VideoPlayViewModel extends ViewModel {
      */
     public void onPageSelected(int position) {
         currentIndex = position;
+        // 移动滑动窗口，远离当前位置的视频只保留存根
+        if (feedWindowStore != null) {
+            feedWindowStore.moveTo(position);
+            if (position < feedWindowStore.size()) {
+                VideoRepository.getInstance().markWatched(feedWindowStore.getVideoId(position));
+            }
+        }
         currentVideoPositionLiveData.setValue(position);
+        loadMoreIfNeeded(position);
+    }
+
+    /**
+     * 距离末尾不足 PREFETCH_DISTANCE 页时，在仓库线程加载推荐流的下一页
+     * 使用与推荐页相同的游标，两边看到的推荐流保持一致
+     * 新数据追加到同一个 FeedWindowStore，Adapter 只通知新增范围，不影响当前播放器
+     * @param position 当前位置
+     */
+    private void loadMoreIfNeeded(int position) {
+        FeedWindowStore store = feedWindowStore;
+        if (store == null || loadingMore || position < store.size() - PREFETCH_DISTANCE) {
+            return;
+        }
+        loadingMore = true;
+        int startKey = store.size();
+        Futures.addCallback(VideoRepository.getInstance().loadFeedPageAsync(startKey, VideoRepository.PAGE_SIZE),
+                new FutureCallback<List<FeedEntry>>() {
+                    @Override
+                    public void onSuccess(List<FeedEntry> page) {
+                        loadingMore = false;
+                        // 期间列表被替换或已经追加过时丢弃本页
+                        if (store != feedWindowStore || store.size() != startKey) {
+                            return;
+                        }
+                        store.addEntries(page);
+                        videoListLiveData.setValue(store);
+                        loadMoreIfNeeded(currentIndex);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        loadingMore = false;
+                        android.util.Log.e(TAG, "加载下一页推荐视频失败: " + t.getMessage());
+                    }
+                }, mainExecutor);
     }
 
     /**
@@ -81,21 +166,15 @@ public class VideoPlayViewModel extends ViewModel {
     public void toggleLikeClick(int position) {
         List<VideoBean> list = videoListLiveData.getValue();
         if (list != null && list.size() > position && position >= 0) {
-            VideoBean video = list.get(position);
+            long videoId = list.get(position).getVideoId();
+            VideoCounterStore counterStore = VideoCounterStore.getInstance();
 
-            // 切换点赞状态
-            boolean newLikedState = !video.isLiked();
-            video.setLiked(newLikedState);
-
-            // 更新点赞数
-            if(newLikedState){
-                video.setLikeCount(video.getLikeCount() + 1);
-            }else{
-                video.setLikeCount(Math.max(0, video.getLikeCount() - 1));
-            }
+            // 切换点赞状态并更新点赞数
+            boolean newLikedState = counterStore.toggleLike(videoId);
+            VideoRepository.getInstance().onUserInteraction(videoId);
 
             // 发送点赞事件更新UI
-            likeEventLiveData.setValue(new LikeEvent(position, video.isLiked(), video.getLikeCount()));
+            likeEventLiveData.setValue(new LikeEvent(position, newLikedState, counterStore.getLikeCount(videoId)));
         }
     }
 
@@ -106,21 +185,15 @@ public class VideoPlayViewModel extends ViewModel {
     public void toggleCollectClick(int position) {
         List<VideoBean> list = videoListLiveData.getValue();
         if (list != null && list.size() > position && position >= 0) {
-            VideoBean video = list.get(position);
-            
-            // 切换收藏状态
-            boolean newCollectedState = !video.isCollected();
-            video.setCollected(newCollectedState);
-
-            // 更新收藏数
-            if(newCollectedState){
-                video.setCollectCount(video.getCollectCount() + 1);
-            }else{
-                video.setCollectCount(Math.max(0, video.getCollectCount() - 1));
-            }
+            long videoId = list.get(position).getVideoId();
+            VideoCounterStore counterStore = VideoCounterStore.getInstance();
+
+            // 切换收藏状态并更新收藏数
+            boolean newCollectedState = counterStore.toggleCollect(videoId);
+            VideoRepository.getInstance().onUserInteraction(videoId);
 
             // 发送收藏事件更新UI
-            collectEventLiveData.setValue(new CollectEvent(position, video.isCollected(), video.getCollectCount()));
+            collectEventLiveData.setValue(new CollectEvent(position, newCollectedState, counterStore.getCollectCount(videoId)));
         }
     }
 
@@ -2,6 +2,8 @@ package com.example.douyinline.ui.video;
 
 import android.content.Context;
 import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.GestureDetector;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
@@ -20,16 +22,28 @@ import androidx.media3.common.util.Log;
 import androidx.media3.common.util.UnstableApi;
 import androidx.media3.exoplayer.ExoPlayer;
 import androidx.media3.ui.PlayerView;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.douyinline.R;
 import com.example.douyinline.bean.VideoBean;
+import com.example.douyinline.repository.FeedWindowStore;
+import com.example.douyinline.repository.PlaybackPositionCache;
+import com.example.douyinline.repository.VideoCounterStore;
+import com.example.douyinline.repository.VideoMetadataIndex;
+import com.example.douyinline.repository.VideoRepository;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.IntUnaryOperator;
 
 /**
  * 视频播放页面 ViewPager2 适配器
@@ -38,15 +52,52 @@ import java.util.Map;
  * 1. onBindViewHolder: 只绑定 UI 数据，不准备播放器
  * 2. playAt: 外部调用，只为当前播放位置准备播放器并播放 (AI实现)
  * 3. prepareAndPlay 等: 切换页面时，释放旧播放器，为新页面准备播放器 (AI实现)
- * 这样可以避免同时准备多个 4K 视频导致 MediaCodec 资源不足
+ * 4. preload: 按滑动方向预先准备接下来的几页（playWhenReady=false），选中时直接播放
+ * 预加载的页数由 PlayerPool 的预加载深度决定，并受解码器预算限制，避免同时准备多个 4K 视频导致 MediaCodec 资源不足
+ * 设置 VideoSurfacePool 后使用共用画面模式：页面上的 PlayerView 不再使用，
+ * 由播放页持有的画面移到持有播放器的页面底层，适配器只绑定上层的控件
  */
 public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPagerAdapter.VideoPlayerViewHolder> {
     private static final String TAG = "VideoPlayerAdapter";
+    // 局部刷新标记：只更新互动计数
+    public static final Object PAYLOAD_COUNTS = new Object();
     
     private List<VideoBean> videoList = new ArrayList<>();
+    private final VideoCounterStore counterStore = VideoCounterStore.getInstance();
     private Context context;
     private PlayerPool playerPool;
     private int currentPlayingPosition = -1;  // 当前应该播放的位置
+    // 已经通知给 RecyclerView 的各位置条目ID，长度就是条数
+    private long[] dispatchedEntryIds = new long[0];
+    // 每次设置列表加一，用来丢弃过期的后台差异结果
+    private int diffGeneration = 0;
+    // 列表差异在后台线程计算，所有播放页共用
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "PagerListDiff"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // ViewPager2 内部的 RecyclerView，新建的页面还没有测量时用它的宽度
+    private RecyclerView recyclerView;
+    // 预加载策略，以及已经预加载的位置和等待 attach 后再预加载的位置
+    private final PreloadPolicy preloadPolicy = new PreloadPolicy();
+    private final Set<Integer> preloadedPositions = new HashSet<>();
+    private final Set<Integer> pendingPreloadPositions = new HashSet<>();
+    // 预加载深度和复用的目标位置数组
+    private final int preloadDepth;
+    private final int[] preloadTargets;
+    // 共用画面模式下的画面池，为 null 时每个页面使用自己的 PlayerView
+    private VideoSurfacePool surfacePool;
+    // 每个视频上次的播放位置，准备时从这里继续
+    private final PlaybackPositionCache playbackPositions = VideoRepository.getInstance().getPlaybackPositions();
+    // 每个视频的尺寸，绑定时按视频比例确定画面高度
+    private final VideoMetadataIndex videoMetadata = VideoRepository.getInstance().getVideoMetadata();
+    // 切换页面的首帧耗时统计
+    private final FirstFrameTracker firstFrameTracker = FirstFrameTracker.getInstance();
+    // 预缓存滑动方向上接下来的页数
+    private static final int PRECACHE_AHEAD = 3;
+    // 正在提取首帧的视频，滑过之后取消
+    private final Set<Long> firstFrameRequests = new HashSet<>();
+    // 预先提取首帧时登记的请求方，只提取不显示，取消时不影响推荐页卡片对同一视频的请求
+    private final ThumbnailExtractor.Callback precacheFirstFrameCallback = (videoId, file) -> { };
 
     // 交互事件的回调接口
     public interface OnInteractionListener {
@@ -71,6 +122,13 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
 
     private OnInteractionListener interactionListener;
 
+    /**
+     * 使用共用画面模式，需要在设置给 ViewPager2 之前调用
+     */
+    public void setVideoSurfacePool(VideoSurfacePool pool) {
+        this.surfacePool = pool;
+    }
+
     // 设置交互事件监听器
     public void setOnInteractionListener(OnInteractionListener listener) {
         this.interactionListener = listener;
@@ -81,8 +139,11 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
 
     public VideoPlayerPagerAdapter(PlayerPool pool, List<VideoBean> videoList) {
         this.playerPool = pool;
+        this.preloadDepth = pool.getPreloadDepth();
+        this.preloadTargets = new int[preloadDepth];
         if (videoList != null) {
             this.videoList = videoList;
+            this.dispatchedEntryIds = entryIdsOf(videoList);
         }
     }
 
@@ -93,7 +154,40 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
             context = parent.getContext();
         }
         View view = LayoutInflater.from(context).inflate(R.layout.item_full_screen_video, parent, false);
-        return new VideoPlayerViewHolder(view);
+        VideoPlayerViewHolder holder = new VideoPlayerViewHolder(view);
+        if (surfacePool != null) {
+            // 共用画面模式下画面由画面池提供
+            holder.playerView.setVisibility(View.GONE);
+        }
+        // 多窗口或分屏调整大小后页面宽度变化，按新的宽度重新计算画面高度
+        view.addOnLayoutChangeListener((v, left, top, right, bottom, oldLeft, oldTop, oldRight, oldBottom) -> {
+            if (right - left != oldRight - oldLeft) {
+                v.post(() -> applyVideoHeight(holder));
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        this.recyclerView = recyclerView;
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        this.recyclerView = null;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull VideoPlayerViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && payloads.stream().allMatch(payload -> payload == PAYLOAD_COUNTS)) {
+            // 只有计数变化时不重新绑定手势和动画
+            bindCounts(holder, videoList.get(position));
+            return;
+        }
+        onBindViewHolder(holder, position);
     }
 
     @Override
@@ -106,6 +200,9 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
         
         // 只绑定 UI 数据，不准备播放器（延迟加载）
         bindVideoInfo(holder, video);
+
+        // 已经探测过视频尺寸时直接按视频比例确定画面高度，第一帧出来时不再重新布局
+        bindVideoSize(holder, videoMetadata.get(video.getVideoId()));
         
         // 设置点击暂停/播放
         setupGestureListener(holder);
@@ -123,17 +220,10 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
     private void bindVideoInfo(VideoPlayerViewHolder holder, VideoBean video) {
         holder.tvTitle.setText(video.getTitle());
         holder.tvUserName.setText("@" + video.getAuthorDetail().getAuthorName());
-        holder.tvLikeCount.setText(formatNumber(video.getLikeCount()));
-        holder.tvCommentCount.setText(formatNumber(video.getCommentCount()));
-        holder.tvCollectCount.setText(formatNumber(video.getCollectCount()));
-        holder.tvShareCount.setText(formatNumber(video.getShareCount()));
         holder.ivAuthorAvatar.setImageResource(video.getAuthorDetail().getAuthorAvatar());
 
-        // 更新点赞UI
-        updateLikeUI(holder, video.isLiked());
-
-        // 更新收藏UI
-        updateCollectUI(holder, video.isCollected());
+        // 更新互动计数和点赞、收藏UI
+        bindCounts(holder, video);
 
         // 启动头像旋转动画
         if (holder.ivAuthorAvatar != null && holder.avatarAnimation!= null) {
@@ -142,6 +232,19 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
 
     }
 
+    /**
+     * 从计数存储绑定互动计数
+     */
+    private void bindCounts(VideoPlayerViewHolder holder, VideoBean video) {
+        long videoId = video.getVideoId();
+        holder.tvLikeCount.setText(formatNumber(counterStore.getLikeCount(videoId)));
+        holder.tvCommentCount.setText(formatNumber(counterStore.getCommentCount(videoId)));
+        holder.tvCollectCount.setText(formatNumber(counterStore.getCollectCount(videoId)));
+        holder.tvShareCount.setText(formatNumber(counterStore.getShareCount(videoId)));
+        updateLikeUI(holder, counterStore.isLiked(videoId));
+        updateCollectUI(holder, counterStore.isCollected(videoId));
+    }
+
     /**
      * 更新点赞UI
      * @param holder ViewHolder
@@ -190,7 +293,7 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
                     // 显示点赞动画
                     android.util.Log.e(TAG, "双击点赞: position=" + holder.boundPosition);
                     VideoBean currentVideo = videoList.get(currentPlayingPosition);
-                    if (!currentVideo.isLiked()) {
+                    if (!counterStore.isLiked(currentVideo.getVideoId())) {
                         showLikeAnimation(holder, e.getX(), e.getY());
                     }
                     interactionListener.onDoubleTapLike(holder.boundPosition);
@@ -212,7 +315,7 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
      * @param holder ViewHolder
      */
     private void togglePlayPause(VideoPlayerViewHolder holder) {
-        ExoPlayer currentPlayer = (ExoPlayer) holder.playerView.getPlayer();
+        ExoPlayer currentPlayer = holder.getPlayer();
         // 如果没有播放器，且是当前播放位置，尝试准备并播放
         if (currentPlayer == null) {
             if (holder.boundPosition == currentPlayingPosition) {
@@ -326,20 +429,27 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
      */
     @OptIn(markerClass = UnstableApi.class)
     private void prepareAndPlay(VideoPlayerViewHolder holder, int position) {
-        PlayerView playerView = holder.playerView;
+        // 预加载的页面被选中时提升为当前播放
+        boolean preloaded = preloadedPositions.remove(position);
         
         // 如果已有播放器且是当前位置，直接播放
-        ExoPlayer existingPlayer = (ExoPlayer) playerView.getPlayer();
+        ExoPlayer existingPlayer = holder.getPlayer();
         if (existingPlayer != null) {
             int state = existingPlayer.getPlaybackState();
-            android.util.Log.e(TAG, "已有播放器: position=" + position + ", state=" + getStateName(state));
+            android.util.Log.e(TAG, "已有播放器: position=" + position + ", state=" + getStateName(state)
+                    + ", preloaded=" + preloaded);
             
+            FirstFrameTracker.StartType startType = preloaded
+                    ? FirstFrameTracker.StartType.PRELOADED : FirstFrameTracker.StartType.REUSED;
             if (state == Player.STATE_READY) {
+                // 已经停在第一帧，开始播放即可
+                firstFrameTracker.onPlaybackStarted(position, startType, true);
                 existingPlayer.play();
                 holder.ivPlayIcon.setVisibility(View.GONE);
                 android.util.Log.e(TAG, "复用已有播放器直接播放: position=" + position);
                 return;
             } else if (state == Player.STATE_BUFFERING) {
+                firstFrameTracker.onPlaybackStarted(position, startType, false);
                 existingPlayer.setPlayWhenReady(true);
                 holder.ivPlayIcon.setVisibility(View.GONE);
                 android.util.Log.e(TAG, "播放器正在缓冲，设置 playWhenReady: position=" + position);
@@ -353,27 +463,132 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
         
         // 获取新的播放器
         ExoPlayer player = playerPool.acquirePlayer();
-        playerView.setPlayer(player);
-        
         android.util.Log.e(TAG, "准备新播放器: position=" + position);
+        firstFrameTracker.onPlaybackStarted(position, FirstFrameTracker.StartType.FRESH, false);
+        preparePlayer(holder, position, player, true);
+        
+        holder.ivPlayIcon.setVisibility(View.GONE);
+        
+        android.util.Log.e(TAG, "播放器准备中: position=" + position);
+    }
+
+    /**
+     * 按预加载策略更新预加载的页面：先归还不再需要的页面的播放器，再依次预加载新的目标
+     */
+    private void updatePreloads() {
+        int count = currentPlayingPosition == -1 ? 0
+                : preloadPolicy.targets(getItemCount(), preloadDepth, preloadTargets);
+        pendingPreloadPositions.clear();
+        Iterator<Integer> iterator = preloadedPositions.iterator();
+        while (iterator.hasNext()) {
+            int position = iterator.next();
+            if (!isPreloadTarget(position, count)) {
+                iterator.remove();
+                releasePreloaded(position);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            preload(preloadTargets[i]);
+        }
+    }
+
+    private boolean isPreloadTarget(int position, int count) {
+        for (int i = 0; i < count; i++) {
+            if (preloadTargets[i] == position) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 预加载指定位置：准备播放器但不播放，准备好后停在第一帧，被选中时直接播放
+     * 超出解码器预算时放弃预加载，选中时再按原来的方式准备
+     * @param position 要预加载的位置
+     */
+    private void preload(int position) {
+        if (preloadedPositions.contains(position) || position < 0 || position >= getItemCount()
+                || position == currentPlayingPosition) {
+            return;
+        }
+        VideoPlayerViewHolder holder = attachedHolders.get(position);
+        if (holder == null) {
+            // 页面还没有 attach，attach 时再预加载
+            pendingPreloadPositions.add(position);
+            return;
+        }
+        if (holder.getPlayer() == null) {
+            ExoPlayer player = playerPool.acquirePreloadPlayer();
+            if (player == null) {
+                return;
+            }
+            preparePlayer(holder, position, player, false);
+            android.util.Log.e(TAG, "预加载: position=" + position);
+        }
+        preloadedPositions.add(position);
+    }
+
+    /**
+     * 取消所有预加载，归还预加载页面的播放器
+     */
+    private void cancelPreloads() {
+        pendingPreloadPositions.clear();
+        for (int position : preloadedPositions) {
+            releasePreloaded(position);
+        }
+        preloadedPositions.clear();
+    }
+
+    /**
+     * 归还预加载页面的播放器，当前播放的页面除外
+     */
+    private void releasePreloaded(int position) {
+        if (position == currentPlayingPosition) {
+            return;
+        }
+        VideoPlayerViewHolder holder = attachedHolders.get(position);
+        if (holder != null) {
+            releasePlayerFromHolder(holder);
+        }
+    }
+
+    /**
+     * 拖动过程中检测到滑动方向，方向改变时改为预加载另一侧的页面
+     * @param direction PreloadPolicy.FORWARD 或 PreloadPolicy.BACKWARD
+     */
+    public void onSwipeDirection(int direction) {
+        int previousDirection = preloadPolicy.getDirection();
+        preloadPolicy.onDragDirection(direction);
+        if (preloadPolicy.getDirection() != previousDirection) {
+            updatePreloads();
+        }
+    }
+
+    /**
+     * 为 ViewHolder 设置播放器并准备视频
+     * @param playWhenReady 准备好后是否自动播放，预加载时为 false
+     */
+    @OptIn(markerClass = UnstableApi.class)
+    private void preparePlayer(VideoPlayerViewHolder holder, int position, ExoPlayer player, boolean playWhenReady) {
+        attachPlayer(holder, player);
         
         // 设置播放器属性
         player.setRepeatMode(Player.REPEAT_MODE_ONE);  // 单个视频循环播放
         
         // 创建并保存播放状态监听器
+        // 列表变化后 ViewHolder 的位置会重新映射，回调中从 ViewHolder 读取当前位置，不捕获准备时的位置
         WeakReference<VideoPlayerViewHolder> holderRef = new WeakReference<>(holder);
-        final int boundPos = position;
         Player.Listener listener = new Player.Listener() {
             @Override
             public void onPlaybackStateChanged(int playbackState) {
                 VideoPlayerViewHolder h = holderRef.get();
                 if (h == null) return;
                 
-                ExoPlayer p = (ExoPlayer) h.playerView.getPlayer();
+                ExoPlayer p = h.getPlayer();
                 boolean playWhenReady = p != null ? p.getPlayWhenReady() : false;
                 boolean isPlaying = p != null ? p.isPlaying() : false;
                 
-                android.util.Log.e(TAG, "状态变化: position=" + boundPos 
+                android.util.Log.e(TAG, "状态变化: position=" + h.boundPosition 
                     + ", state=" + getStateName(playbackState)
                     + ", playWhenReady=" + playWhenReady
                     + ", isPlaying=" + isPlaying
@@ -381,9 +596,9 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
                 
                 if (playbackState == Player.STATE_READY) {
                     // 如果这个位置是当前应该播放的位置，确保开始播放
-                    if (boundPos == currentPlayingPosition && p != null) {
+                    if (h.boundPosition == currentPlayingPosition && p != null) {
                         if (!isPlaying) {
-                            android.util.Log.e(TAG, "STATE_READY 触发播放: position=" + boundPos);
+                            android.util.Log.e(TAG, "STATE_READY 触发播放: position=" + h.boundPosition);
                             p.play();
                             h.ivPlayIcon.setVisibility(View.GONE);
                         }
@@ -393,10 +608,19 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
                 }
             }
             
+            @Override
+            public void onRenderedFirstFrame() {
+                VideoPlayerViewHolder h = holderRef.get();
+                if (h != null) {
+                    firstFrameTracker.onFirstFrameRendered(h.boundPosition);
+                }
+            }
+
             @Override
             public void onPlayerError(androidx.media3.common.PlaybackException error) {
-                android.util.Log.e(TAG, "播放器错误: position=" + boundPos + ", error=" + error.getMessage());
                 VideoPlayerViewHolder h = holderRef.get();
+                android.util.Log.e(TAG, "播放器错误: position=" + (h != null ? h.boundPosition : -1)
+                        + ", error=" + error.getMessage());
                 if (h != null) {
                     h.ivPlayIcon.setVisibility(View.VISIBLE);
                 }
@@ -407,19 +631,23 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
         holder.playerListener = listener;
         player.addListener(listener);
         
-        // 准备媒体
-        Uri videoUri = Uri.parse("android.resource://" + context.getPackageName() + "/" 
-                + videoList.get(position).getVideoResourceId());
+        // 准备媒体，与预缓存使用同一个 Uri 作为缓存键
+        VideoBean video = videoList.get(position);
+        Uri videoUri = VideoCache.buildVideoUri(context.getPackageName(), video.getVideoResourceId());
         MediaItem mediaItem = MediaItem.fromUri(videoUri);
-        player.setMediaItem(mediaItem);
+        // 看过的视频从上次的位置继续
+        PlaybackPositionCache.Entry resume = playbackPositions.get(video.getVideoId());
+        long startPositionMs = resume != null ? resume.getPositionMs() : 0;
+        if (resume != null) {
+            android.util.Log.d(TAG, "从上次位置继续: position=" + position + ", " + startPositionMs
+                    + "ms, 上次缓冲到 " + resume.getBufferedPositionMs() + "ms");
+        }
+        player.setMediaItem(mediaItem, startPositionMs);
+        holder.playingVideoId = video.getVideoId();
         
-        // 准备播放器并设置自动播放
-        player.setPlayWhenReady(true);  // 准备好就播放
+        // 准备播放器，预加载时停在第一帧
+        player.setPlayWhenReady(playWhenReady);
         player.prepare();
-        
-        holder.ivPlayIcon.setVisibility(View.GONE);
-        
-        android.util.Log.e(TAG, "播放器准备中: position=" + position);
     }
 
     /**
@@ -433,6 +661,9 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
         
         // 记录 attached 的 holder
         attachedHolders.put(position, holder);
+        if (pendingPreloadPositions.remove(position)) {
+            preload(position);
+        }
     }
 
     /**
@@ -446,6 +677,7 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
         
         // 移除记录
         attachedHolders.remove(position);
+        preloadedPositions.remove(position);
         
         // 释放播放器（关键：detach 时释放，避免资源占用）
         releasePlayerFromHolder(holder);
@@ -455,7 +687,7 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
      * 释放 ViewHolder 中的播放器
      */
     private void releasePlayerFromHolder(VideoPlayerViewHolder holder) {
-        ExoPlayer player = (ExoPlayer) holder.playerView.getPlayer();
+        ExoPlayer player = holder.getPlayer();
         if (player != null) {
             android.util.Log.e(TAG, "释放播放器: position=" + holder.boundPosition 
                 + ", state=" + getStateName(player.getPlaybackState()));
@@ -465,8 +697,85 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
                 player.removeListener(holder.playerListener);
                 holder.playerListener = null;
             }
-            // 归还播放器到池中
+            savePlaybackPosition(holder, player);
+            holder.playingVideoId = VideoPlayerViewHolder.NO_VIDEO;
+            // 先从页面上移除，再归还播放器到池中
+            detachPlayer(holder);
             playerPool.releasePlayer(player);
+        }
+    }
+
+    /**
+     * 记录页面上的视频播放到的位置
+     */
+    private void savePlaybackPosition(VideoPlayerViewHolder holder, ExoPlayer player) {
+        if (holder.playingVideoId == VideoPlayerViewHolder.NO_VIDEO
+                || player.getPlaybackState() == Player.STATE_IDLE) {
+            return;
+        }
+        playbackPositions.put(holder.playingVideoId, player.getCurrentPosition(),
+                player.getBufferedPosition(), player.getDuration());
+    }
+
+    /**
+     * 按视频元数据设置画面高度，元数据未知时保持 WRAP_CONTENT，由播放器解析出视频尺寸后决定
+     */
+    private void bindVideoSize(VideoPlayerViewHolder holder, VideoMetadataIndex.Entry metadata) {
+        holder.videoAspectRatio = metadata == null ? 0 : metadata.getDisplayAspectRatio();
+        applyVideoHeight(holder);
+        if (holder.sharedSurface != null) {
+            holder.sharedSurface.presetAspectRatio(holder.videoAspectRatio);
+        }
+    }
+
+    /**
+     * 按页面实际测量的宽度和视频比例设置画面高度，RESIZE_MODE_FIXED_WIDTH 下画面高度等于宽度除以比例
+     * 多窗口模式下页面比屏幕窄，不能用屏幕宽度；新建的页面还没有测量时用 RecyclerView 的宽度，
+     * 仍然未知时保持 WRAP_CONTENT，页面布局后由宽度变化监听重新计算
+     */
+    private void applyVideoHeight(VideoPlayerViewHolder holder) {
+        int width = holder.itemView.getWidth();
+        if (width == 0 && recyclerView != null) {
+            width = recyclerView.getWidth();
+        }
+        int height = ViewGroup.LayoutParams.WRAP_CONTENT;
+        if (holder.videoAspectRatio > 0 && width > 0) {
+            height = Math.round(width / holder.videoAspectRatio);
+        }
+        ViewGroup.LayoutParams lp = holder.playerView.getLayoutParams();
+        if (lp.height != height) {
+            lp.height = height;
+            holder.playerView.setLayoutParams(lp);
+        }
+    }
+
+    /**
+     * 把播放器的画面放到页面上
+     * 共用画面模式下从画面池获取画面移到页面底层，并在新视频的第一帧出来之前隐藏画面
+     */
+    private void attachPlayer(VideoPlayerViewHolder holder, ExoPlayer player) {
+        if (surfacePool == null) {
+            holder.playerView.setPlayer(player);
+            return;
+        }
+        SharedVideoSurface surface = surfacePool.acquire(player);
+        surface.hideUntilFirstFrame();
+        // 画面可能还保留着上一个视频的比例
+        surface.presetAspectRatio(holder.videoAspectRatio);
+        surface.attachTo((ViewGroup) holder.itemView);
+        holder.sharedSurface = surface;
+        holder.sharedPlayer = player;
+    }
+
+    /**
+     * 把播放器的画面从页面上移除
+     */
+    private void detachPlayer(VideoPlayerViewHolder holder) {
+        if (holder.sharedSurface != null) {
+            surfacePool.release(holder.sharedSurface);
+            holder.sharedSurface = null;
+            holder.sharedPlayer = null;
+        } else {
             holder.playerView.setPlayer(null);
         }
     }
@@ -502,12 +811,80 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
         
         // 更新当前播放位置
         currentPlayingPosition = position;
+        // 预加载没有命中时先归还预加载的播放器，再为新位置准备
+        if (!preloadedPositions.contains(position)) {
+            cancelPreloads();
+        }
         
         // 为新位置准备播放器并播放
         VideoPlayerViewHolder newHolder = attachedHolders.get(position);
         if (newHolder != null) {
             prepareAndPlay(newHolder, position);
         }
+        // 按滑动方向预加载接下来的几页
+        preloadPolicy.onPageSelected(position);
+        updatePreloads();
+        precacheAhead(position);
+    }
+
+    /**
+     * 预缓存滑动方向上接下来几页视频的开头，同时在后台提取它们的首帧
+     * 首帧供推荐页卡片和下次进入播放页时的封面占位图使用，已经滑过的视频取消提取
+     */
+    private void precacheAhead(int position) {
+        if (context == null) {
+            return;
+        }
+        List<Uri> uris = new ArrayList<>(PRECACHE_AHEAD);
+        Set<Long> upcoming = new HashSet<>();
+        ThumbnailExtractor thumbnailExtractor = ThumbnailExtractor.getInstance(context);
+        int direction = preloadPolicy.getDirection();
+        for (int i = 1; i <= PRECACHE_AHEAD; i++) {
+            int target = position + direction * i;
+            if (target < 0 || target >= getItemCount()) {
+                break;
+            }
+            VideoBean video = videoList.get(target);
+            Uri uri = VideoCache.buildVideoUri(context.getPackageName(), video.getVideoResourceId());
+            uris.add(uri);
+            if (thumbnailExtractor.request(video.getVideoId(), uri, precacheFirstFrameCallback) == null) {
+                upcoming.add(video.getVideoId());
+            }
+        }
+        if (!uris.isEmpty()) {
+            VideoCache.getInstance(context).precache(uris);
+        }
+        cancelFirstFrames(upcoming);
+    }
+
+    /**
+     * 取消不在 keep 中的首帧提取，keep 成为新的进行中集合
+     */
+    private void cancelFirstFrames(Set<Long> keep) {
+        if (context == null) {
+            return;
+        }
+        ThumbnailExtractor thumbnailExtractor = ThumbnailExtractor.getInstance(context);
+        for (long videoId : firstFrameRequests) {
+            if (!keep.contains(videoId)) {
+                thumbnailExtractor.cancel(videoId, precacheFirstFrameCallback);
+            }
+        }
+        firstFrameRequests.clear();
+        firstFrameRequests.addAll(keep);
+    }
+
+    /**
+     * 把所有页面上的播放器归还到池中，播放页销毁时调用
+     */
+    public void releaseAllPlayers() {
+        cancelFirstFrames(new HashSet<>());
+        pendingPreloadPositions.clear();
+        preloadedPositions.clear();
+        for (VideoPlayerViewHolder holder : attachedHolders.values()) {
+            releasePlayerFromHolder(holder);
+        }
+        currentPlayingPosition = -1;
     }
 
     /**
@@ -517,9 +894,11 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
         if (currentPlayingPosition != -1) {
             VideoPlayerViewHolder holder = attachedHolders.get(currentPlayingPosition);
             if (holder != null) {
-                ExoPlayer player = (ExoPlayer) holder.playerView.getPlayer();
+                ExoPlayer player = holder.getPlayer();
                 if (player != null) {
                     player.pause();
+                    // 离开播放页或进程被回收后回来时从这里继续
+                    savePlaybackPosition(holder, player);
                     holder.ivPlayIcon.setVisibility(View.VISIBLE);
                     android.util.Log.e(TAG, "暂停当前: position=" + currentPlayingPosition);
                 }
@@ -534,7 +913,7 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
         if (currentPlayingPosition != -1) {
             VideoPlayerViewHolder holder = attachedHolders.get(currentPlayingPosition);
             if (holder != null) {
-                ExoPlayer player = (ExoPlayer) holder.playerView.getPlayer();
+                ExoPlayer player = holder.getPlayer();
                 if (player != null && player.getPlaybackState() == Player.STATE_READY) {
                     player.play();
                     holder.ivPlayIcon.setVisibility(View.GONE);
@@ -549,15 +928,172 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
 
     @Override
     public int getItemCount() {
-        return videoList == null ? 0 : videoList.size();
+        // 返回已经通知过的条数，列表被原地追加后、通知之前不会越界
+        return dispatchedEntryIds.length;
     }
 
     /**
      * 设置视频列表
+     * 按范围和差异通知变化，不会重新绑定未变化的页面，当前播放页的播放器保持不动
+     * 1. 新列表前面的条目ID与已经通知的逐个相同时视为在末尾追加，直接通知新增的范围
+     * 2. 否则在后台线程按条目ID计算差异，回到主线程后再切换列表并通知；
+     *    计算期间继续使用旧列表，再次设置列表时丢弃尚未完成的结果
+     * 3. 同一个列表被原地改成了别的内容时旧内容已经不存在，按条目ID把状态移到新位置后整体刷新
+     */
+    public void setVideoList(List<VideoBean> newList) {
+        List<VideoBean> list = newList == null ? new ArrayList<>() : newList;
+        long[] oldIds = dispatchedEntryIds;
+        long[] newIds = entryIdsOf(list);
+        int generation = ++diffGeneration;
+
+        if (isAppended(oldIds, newIds)) {
+            applyList(list, newIds);
+            if (newIds.length > oldIds.length) {
+                notifyItemRangeInserted(oldIds.length, newIds.length - oldIds.length);
+            }
+            refreshPreload();
+            return;
+        }
+
+        if (list == videoList) {
+            android.util.Log.w(TAG, "视频列表被原地修改，整体刷新: oldSize=" + oldIds.length + ", newSize=" + newIds.length);
+            Map<Long, Integer> newPositions = new HashMap<>();
+            for (int i = 0; i < newIds.length; i++) {
+                newPositions.putIfAbsent(newIds[i], i);
+            }
+            applyList(list, newIds);
+            remapPositions(oldPosition -> {
+                Integer newPosition = newPositions.get(oldIds[oldPosition]);
+                return newPosition == null ? RecyclerView.NO_POSITION : newPosition;
+            });
+            notifyDataSetChanged();
+            refreshPreload();
+            return;
+        }
+
+        DIFF_EXECUTOR.execute(() -> {
+            DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(new EntryIdDiffCallback(oldIds, newIds), false);
+            mainHandler.post(() -> {
+                if (generation != diffGeneration) {
+                    // 计算期间又设置了新的列表
+                    return;
+                }
+                applyList(list, newIds);
+                diffResult.dispatchUpdatesTo(this);
+                remapPositions(diffResult::convertOldPositionToNew);
+                refreshPreload();
+            });
+        });
+    }
+
+    private void applyList(List<VideoBean> list, long[] entryIds) {
+        videoList = list;
+        dispatchedEntryIds = entryIds;
+    }
+
+    /**
+     * 新列表是否只是在旧列表末尾追加
+     */
+    private static boolean isAppended(long[] oldIds, long[] newIds) {
+        if (newIds.length < oldIds.length) {
+            return false;
+        }
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] != newIds[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 按条目ID比较两个列表，只读取基本类型数组，可以在后台线程执行
      */
-    public void setVideoList(List<VideoBean> videoList) {
-        this.videoList = videoList;
-        notifyDataSetChanged();
+    private static final class EntryIdDiffCallback extends DiffUtil.Callback {
+        private final long[] oldIds;
+        private final long[] newIds;
+
+        EntryIdDiffCallback(long[] oldIds, long[] newIds) {
+            this.oldIds = oldIds;
+            this.newIds = newIds;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldIds.length;
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newIds.length;
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return oldIds[oldItemPosition] == newIds[newItemPosition];
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            // 互动计数通过 PAYLOAD_COUNTS 局部刷新，视频本身的信息不会变化
+            return true;
+        }
+    }
+
+    /**
+     * 列表变化后重新计算预加载位置，例如到达末尾后追加了新的一页
+     */
+    private void refreshPreload() {
+        updatePreloads();
+    }
+
+    /**
+     * 列表变化后把按位置记录的状态移动到新位置
+     * @param toNewPosition 旧位置到新位置的映射，条目已经不在新列表中时返回 NO_POSITION
+     */
+    private void remapPositions(IntUnaryOperator toNewPosition) {
+        if (currentPlayingPosition != -1) {
+            int newPosition = toNewPosition.applyAsInt(currentPlayingPosition);
+            currentPlayingPosition = newPosition == RecyclerView.NO_POSITION ? -1 : newPosition;
+        }
+        List<Integer> oldPreloaded = new ArrayList<>(preloadedPositions);
+        preloadedPositions.clear();
+        for (int oldPosition : oldPreloaded) {
+            int newPosition = toNewPosition.applyAsInt(oldPosition);
+            if (newPosition != RecyclerView.NO_POSITION) {
+                preloadedPositions.add(newPosition);
+            }
+        }
+        pendingPreloadPositions.clear();
+        Map<Integer, VideoPlayerViewHolder> remapped = new HashMap<>();
+        for (Map.Entry<Integer, VideoPlayerViewHolder> entry : attachedHolders.entrySet()) {
+            int newPosition = toNewPosition.applyAsInt(entry.getKey());
+            if (newPosition != RecyclerView.NO_POSITION) {
+                entry.getValue().boundPosition = newPosition;
+                remapped.put(newPosition, entry.getValue());
+            }
+        }
+        attachedHolders.clear();
+        attachedHolders.putAll(remapped);
+    }
+
+    /**
+     * 读取列表各位置的条目ID，滑动窗口存储直接读存根，不还原完整对象
+     * 同一个视频在推荐流的不同轮次中重复出现，按条目ID区分；普通列表没有条目ID，使用视频ID
+     */
+    private static long[] entryIdsOf(List<VideoBean> list) {
+        long[] ids = new long[list.size()];
+        if (list instanceof FeedWindowStore) {
+            FeedWindowStore store = (FeedWindowStore) list;
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = store.getEntryId(i);
+            }
+        } else {
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = list.get(i).getVideoId();
+            }
+        }
+        return ids;
     }
 
     /**
@@ -580,6 +1116,17 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
         // 保存播放器监听器引用，用于后续移除
         Player.Listener playerListener;
 
+        // 绑定时从元数据索引得到的视频显示比例，未知时为 0
+        float videoAspectRatio = 0;
+
+        // 页面上正在播放的视频ID，用于记录播放位置
+        static final long NO_VIDEO = Long.MIN_VALUE;
+        long playingVideoId = NO_VIDEO;
+
+        // 共用画面模式下页面上的画面和播放器
+        SharedVideoSurface sharedSurface;
+        ExoPlayer sharedPlayer;
+
         // 头像旋转动画
         Animation avatarAnimation;
 
@@ -608,5 +1155,12 @@ public class VideoPlayerPagerAdapter extends RecyclerView.Adapter<VideoPlayerPag
             avatarAnimation = android.view.animation.AnimationUtils.loadAnimation(
                     itemView.getContext(), R.anim.avatar_rotate);
         }
+
+        /**
+         * 页面当前持有的播放器，没有时返回 null
+         */
+        ExoPlayer getPlayer() {
+            return sharedPlayer != null ? sharedPlayer : (ExoPlayer) playerView.getPlayer();
+        }
     }
 }
@@ -0,0 +1,112 @@
+package com.example.douyinline.ui.video;
+
+import android.content.Context;
+
+import androidx.annotation.MainThread;
+import androidx.media3.exoplayer.ExoPlayer;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 播放页共用的视频画面，由播放页持有，不属于某个页面
+ * 每个播放器尽量固定使用同一个画面，播放器换页面时只把画面移到新页面；
+ * 画面数量等于同时在页面上的播放器数量，快速滑动时不会反复创建和销毁 Surface
+ * 注册为播放器池的释放监听，播放器被池释放时解除它和画面的绑定，不再持有它的引用
+ * 只在主线程使用
+ */
+public class VideoSurfacePool implements PlayerPool.OnPlayerReleasedListener {
+    private static final String TAG = "VideoSurfacePool";
+    private final Context context;
+    private final List<SharedVideoSurface> surfaces = new ArrayList<>();
+    // 正在页面上使用的画面
+    private final List<SharedVideoSurface> inUse = new ArrayList<>();
+    // 播放器和它上次使用的画面
+    private final Map<ExoPlayer, SharedVideoSurface> byPlayer = new IdentityHashMap<>();
+
+    public VideoSurfacePool(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * 为播放器获取一个画面
+     * 优先使用这个播放器上次用过的画面（不需要重新设置解码输出），
+     * 其次使用没有绑定播放器的空闲画面，再次从其他空闲播放器那里取回，都没有时创建新的
+     */
+    @MainThread
+    public SharedVideoSurface acquire(ExoPlayer player) {
+        SharedVideoSurface surface = byPlayer.get(player);
+        if (surface == null || inUse.contains(surface)) {
+            surface = findFree();
+            if (surface == null) {
+                surface = new SharedVideoSurface(context);
+                surfaces.add(surface);
+                android.util.Log.d(TAG, "创建视频画面，总数: " + surfaces.size());
+            }
+            ExoPlayer previous = surface.getPlayer();
+            if (previous != null) {
+                byPlayer.remove(previous);
+            }
+            surface.bindPlayer(player);
+            byPlayer.put(player, surface);
+        }
+        inUse.add(surface);
+        return surface;
+    }
+
+    private SharedVideoSurface findFree() {
+        SharedVideoSurface boundFree = null;
+        for (SharedVideoSurface surface : surfaces) {
+            if (inUse.contains(surface)) {
+                continue;
+            }
+            if (surface.getPlayer() == null) {
+                return surface;
+            }
+            if (boundFree == null) {
+                boundFree = surface;
+            }
+        }
+        return boundFree;
+    }
+
+    /**
+     * 页面不再需要画面时归还，画面从页面上移除，和播放器的绑定保留
+     */
+    @MainThread
+    public void release(SharedVideoSurface surface) {
+        surface.detach();
+        inUse.remove(surface);
+    }
+
+    /**
+     * 播放器被池释放，解除它和画面的绑定，画面变为没有绑定播放器的空闲画面
+     */
+    @MainThread
+    @Override
+    public void onPlayerReleased(ExoPlayer player) {
+        SharedVideoSurface surface = byPlayer.remove(player);
+        if (surface != null && surface.getPlayer() == player) {
+            surface.bindPlayer(null);
+        }
+    }
+
+    /**
+     * 播放页销毁时释放所有画面，并让播放器不再输出到这些画面
+     */
+    @MainThread
+    public void releaseAll() {
+        for (SharedVideoSurface surface : surfaces) {
+            surface.release();
+        }
+        surfaces.clear();
+        inUse.clear();
+        byPlayer.clear();
+    }
+
+    public int getSurfaceCount() {
+        return surfaces.size();
+    }
+}
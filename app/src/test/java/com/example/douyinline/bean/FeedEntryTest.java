@@ -0,0 +1,40 @@
+package com.example.douyinline.bean;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * FeedEntry 单元测试
+ */
+public class FeedEntryTest {
+    private static final int VIDEO_COUNT = 10;
+
+    private static VideoBean createVideo(long videoId) {
+        return new VideoBean(videoId, 0, 0, "title_" + videoId, new AuthorBean(1, "author", 0));
+    }
+
+    @Test
+    public void entryId_sameVideoInSameRound_isStable() {
+        VideoBean video = createVideo(7);
+        assertEquals(new FeedEntry(3, video).getEntryId(), new FeedEntry(3, video).getEntryId());
+    }
+
+    @Test
+    public void entryId_repeatedVideosAcrossRounds_areUnique() {
+        VideoBean[] videos = new VideoBean[VIDEO_COUNT];
+        for (int i = 0; i < VIDEO_COUNT; i++) {
+            videos[i] = createVideo(i + 1);
+        }
+        Set<Long> entryIds = new HashSet<>();
+        for (int round = 0; round < 1000; round++) {
+            for (VideoBean video : videos) {
+                assertTrue(entryIds.add(new FeedEntry(round, video).getEntryId()));
+            }
+        }
+        assertEquals(1000 * VIDEO_COUNT, entryIds.size());
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.douyinline.repository;
+
+import com.example.douyinline.bean.AuthorBean;
+import com.example.douyinline.bean.VideoBean;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * AuthorRegistry 单元测试
+ */
+public class AuthorRegistryTest {
+    private static final int AUTHOR_COUNT = 10;
+
+    private static String buildFeedJson(int count) {
+        StringBuilder sb = new StringBuilder("{\"videos\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(i + 1)
+                    .append(",\"title\":\"视频标题").append(i).append('"')
+                    .append(",\"author\":{\"id\":").append(i % AUTHOR_COUNT + 1)
+                    .append(",\"name\":\"作者").append(i % AUTHOR_COUNT)
+                    .append("\",\"avatar\":\"img_avatar_").append(i % AUTHOR_COUNT + 1).append("\"}}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static List<VideoBean> loadFeed(AuthorRegistry registry, int count) throws IOException {
+        List<VideoBean> videos = new ArrayList<>(count);
+        new VideoFeedLoader((type, name) -> name.hashCode(), registry, new VideoCounterStore(), 10)
+                .load(new StringReader(buildFeedJson(count)), videos::addAll);
+        return videos;
+    }
+
+    private static int distinctAuthors(List<VideoBean> videos) {
+        Set<AuthorBean> authors = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (VideoBean video : videos) {
+            authors.add(video.getAuthorDetail());
+        }
+        return authors.size();
+    }
+
+    @Test
+    public void intern_sameId_returnsSameInstance() {
+        AuthorRegistry registry = new AuthorRegistry();
+        AuthorBean first = registry.intern(1, "作者", 100);
+        AuthorBean second = registry.intern(1, "改名后的作者", 200);
+
+        assertSame(first, second);
+        // 已驻留的实例不会被覆盖
+        assertEquals("作者", second.getAuthorName());
+        assertSame(first, registry.findAuthorById(1));
+        assertNull(registry.findAuthorById(2));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void allocation_authorCountStaysFlatAsFeedGrows() throws IOException {
+        AuthorRegistry registry = new AuthorRegistry();
+        for (int count : new int[]{100, 10_000, 100_000}) {
+            List<VideoBean> videos = loadFeed(registry, count);
+
+            assertEquals(count, videos.size());
+            assertEquals(AUTHOR_COUNT, distinctAuthors(videos));
+            assertEquals(AUTHOR_COUNT, registry.size());
+        }
+    }
+
+    @Test
+    public void load_videosOfSameAuthor_shareInternedInstance() throws IOException {
+        AuthorRegistry registry = new AuthorRegistry();
+        List<VideoBean> videos = loadFeed(registry, 3 * AUTHOR_COUNT);
+
+        for (int i = 0; i < videos.size(); i++) {
+            AuthorBean author = videos.get(i).getAuthorDetail();
+            // 每隔 AUTHOR_COUNT 条出现同一个作者
+            assertSame(videos.get(i % AUTHOR_COUNT).getAuthorDetail(), author);
+            assertSame(registry.findAuthorById(author.getAuthorId()), author);
+        }
+        // 另一个注册表驻留的是另一组实例
+        List<VideoBean> other = loadFeed(new AuthorRegistry(), AUTHOR_COUNT);
+        assertNotSame(videos.get(0).getAuthorDetail(), other.get(0).getAuthorDetail());
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.douyinline.repository;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * CommentCounter 单元测试
+ */
+public class CommentCounterTest {
+
+    @Test
+    public void registeredVideo_readsAndWritesStore() {
+        VideoCounterStore store = new VideoCounterStore();
+        store.register(1, 0, 12, 0, 0, false, false);
+        CommentCounter counter = new CommentCounter(store, 1, 5);
+
+        assertEquals(12, counter.get());
+        assertEquals(13, counter.increment());
+        assertEquals(13, store.getCommentCount(1));
+    }
+
+    @Test
+    public void restoredBeforeStore_usesArgumentCount() {
+        // 进程被回收后重建弹窗，计数存储还是空的
+        VideoCounterStore store = new VideoCounterStore();
+        CommentCounter counter = new CommentCounter(store, 1, 12);
+
+        assertEquals(12, counter.get());
+        assertEquals(13, counter.increment());
+        assertEquals(13, counter.get());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void storeRegisteredLater_switchesToStore() {
+        VideoCounterStore store = new VideoCounterStore();
+        CommentCounter counter = new CommentCounter(store, 1, 12);
+        assertEquals(12, counter.get());
+
+        store.applyCounts(new long[]{1}, new int[]{0}, new int[]{20}, new int[]{0}, new int[]{0});
+
+        assertEquals(20, counter.get());
+        assertEquals(21, counter.increment());
+        assertEquals(21, store.getCommentCount(1));
+    }
+}
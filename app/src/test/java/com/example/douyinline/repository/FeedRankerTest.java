@@ -0,0 +1,114 @@
+package com.example.douyinline.repository;
+
+import com.example.douyinline.bean.AuthorBean;
+import com.example.douyinline.bean.VideoBean;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * FeedRanker 单元测试
+ */
+public class FeedRankerTest {
+    private static final int TOP_K = 10;
+
+    private static VideoBean createVideo(long videoId, long authorId) {
+        return new VideoBean(videoId, 0, 0, "title_" + videoId, new AuthorBean(authorId, "author", 0));
+    }
+
+    @Test
+    public void topPage_ordersByEngagement() {
+        VideoCounterStore store = new VideoCounterStore();
+        FeedRanker ranker = new FeedRanker(TOP_K, store);
+        store.register(1, 10, 0, 0, 0, false, false);
+        store.register(2, 1000, 100, 50, 50, false, false);
+        store.register(3, 100, 10, 0, 5, false, false);
+        for (long id = 1; id <= 3; id++) {
+            ranker.addCandidate(createVideo(id, id));
+        }
+
+        int[] page = new int[TOP_K];
+        assertEquals(3, ranker.topPage(TOP_K, page));
+        assertEquals(2, ranker.getCandidate(page[0]).getVideoId());
+        assertEquals(3, ranker.getCandidate(page[1]).getVideoId());
+        assertEquals(1, ranker.getCandidate(page[2]).getVideoId());
+    }
+
+    @Test
+    public void onInteraction_likeBoostsSameAuthor() {
+        VideoCounterStore store = new VideoCounterStore();
+        FeedRanker ranker = new FeedRanker(TOP_K, store);
+        store.register(1, 10, 0, 0, 0, false, false);
+        store.register(2, 10, 0, 0, 0, false, false);
+        store.register(3, 10, 0, 0, 0, false, false);
+        ranker.addCandidate(createVideo(1, 100));
+        ranker.addCandidate(createVideo(2, 100));
+        ranker.addCandidate(createVideo(3, 200));
+        double before = ranker.scoreOf(2);
+
+        store.toggleLike(1);
+        ranker.onInteraction(1);
+
+        assertTrue(ranker.scoreOf(2) > before);
+        assertEquals(ranker.scoreOf(3), before, 0);
+
+        // 取消点赞后亲和度恢复
+        store.toggleLike(1);
+        ranker.onInteraction(1);
+        assertEquals(before, ranker.scoreOf(2), 0);
+    }
+
+    /**
+     * 随机更新后，增量维护的前 K 名与整体排序结果一致
+     */
+    @Test
+    public void incrementalTopK_matchesFullSort() {
+        VideoCounterStore store = new VideoCounterStore();
+        FeedRanker ranker = new FeedRanker(TOP_K, store);
+        Random random = new Random(1);
+        int count = 2000;
+        for (long id = 1; id <= count; id++) {
+            store.register(id, random.nextInt(1000), random.nextInt(100), random.nextInt(50),
+                    random.nextInt(80), false, false);
+            ranker.addCandidate(createVideo(id, id % 50));
+        }
+
+        int[] page = new int[TOP_K];
+        for (int step = 0; step < 500; step++) {
+            long videoId = 1 + random.nextInt(count);
+            if (random.nextBoolean()) {
+                store.toggleLike(videoId);
+            } else {
+                store.applyCounts(new long[]{videoId}, new int[]{random.nextInt(1000)},
+                        new int[]{random.nextInt(100)}, new int[]{random.nextInt(50)}, new int[]{random.nextInt(80)});
+            }
+            ranker.onInteraction(videoId);
+
+            assertEquals(TOP_K, ranker.topPage(TOP_K, page));
+            List<Double> expected = new ArrayList<>();
+            for (long id = 1; id <= count; id++) {
+                expected.add(ranker.scoreOf(id));
+            }
+            expected.sort((a, b) -> Double.compare(b, a));
+            for (int i = 0; i < TOP_K; i++) {
+                assertEquals(expected.get(i), ranker.scoreOf(ranker.getCandidate(page[i]).getVideoId()), 0);
+            }
+        }
+    }
+
+    @Test
+    public void addCandidate_duplicate_keepsCandidateIndex() {
+        VideoCounterStore store = new VideoCounterStore();
+        FeedRanker ranker = new FeedRanker(TOP_K, store);
+        store.register(1, 10, 0, 0, 0, false, false);
+
+        assertEquals(0, ranker.addCandidate(createVideo(1, 1)));
+        assertEquals(0, ranker.addCandidate(createVideo(1, 1)));
+        assertEquals(1, ranker.size());
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.douyinline.repository;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * FeedShuffler 单元测试
+ */
+public class FeedShufflerTest {
+    private static final int WINDOW = 10;
+
+    @Test
+    public void shuffle_producesPermutation() {
+        FeedShuffler shuffler = new FeedShuffler(WINDOW);
+        for (int round = 0; round < 5; round++) {
+            shuffler.shuffle(42L, round, 100);
+            Set<Integer> seen = new HashSet<>();
+            for (int i = 0; i < 100; i++) {
+                int poolIndex = shuffler.get(i);
+                assertTrue(poolIndex >= 0 && poolIndex < 100);
+                assertTrue(seen.add(poolIndex));
+            }
+        }
+    }
+
+    @Test
+    public void shuffle_sameSeedAndRound_isReproducible() {
+        FeedShuffler first = new FeedShuffler(WINDOW);
+        FeedShuffler second = new FeedShuffler(WINDOW);
+        // 第二个实例先算过其他轮次，结果仍然一致
+        second.shuffle(7L, 9, 50);
+        first.shuffle(7L, 3, 50);
+        second.shuffle(7L, 3, 50);
+        for (int i = 0; i < 50; i++) {
+            assertEquals(first.get(i), second.get(i));
+        }
+
+        second.shuffle(8L, 3, 50);
+        boolean different = false;
+        for (int i = 0; i < 50; i++) {
+            different |= first.get(i) != second.get(i);
+        }
+        assertTrue(different);
+    }
+
+    /**
+     * 连续多轮拼接后，任意 WINDOW + 1 条相邻视频都不重复
+     */
+    @Test
+    public void shuffle_noRepeatAcrossRoundBoundary() {
+        FeedShuffler shuffler = new FeedShuffler(WINDOW);
+        for (int poolSize : new int[]{30, 31, 45, 200}) {
+            for (long seed = 0; seed < 50; seed++) {
+                int[] previousTail = null;
+                for (int round = 0; round < 20; round++) {
+                    shuffler.shuffle(seed, round, poolSize);
+                    if (previousTail != null) {
+                        for (int i = 0; i < WINDOW; i++) {
+                            for (int k = i; k < WINDOW; k++) {
+                                assertNotEquals("poolSize=" + poolSize + " seed=" + seed + " round=" + round,
+                                        previousTail[k], shuffler.get(i));
+                            }
+                        }
+                    }
+                    previousTail = new int[WINDOW];
+                    for (int k = 0; k < WINDOW; k++) {
+                        previousTail[k] = shuffler.get(poolSize - WINDOW + k);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shuffle_smallPool_clampsWindow() {
+        FeedShuffler shuffler = new FeedShuffler(WINDOW);
+        assertEquals(3, shuffler.effectiveWindow(10));
+        assertEquals(0, shuffler.effectiveWindow(2));
+        for (long seed = 0; seed < 100; seed++) {
+            shuffler.shuffle(seed, 0, 10);
+            int[] tail = {shuffler.get(7), shuffler.get(8), shuffler.get(9)};
+            shuffler.shuffle(seed, 1, 10);
+            for (int i = 0; i < 3; i++) {
+                for (int previous : tail) {
+                    assertNotEquals(previous, shuffler.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shuffleAfter_avoidsGivenTail() {
+        FeedShuffler shuffler = new FeedShuffler(WINDOW);
+        int[] tail = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+        for (long seed = 0; seed < 100; seed++) {
+            shuffler.shuffleAfter(seed, 1, 40, tail, tail.length);
+            for (int i = 0; i < WINDOW; i++) {
+                assertTrue(shuffler.get(i) >= WINDOW);
+            }
+        }
+    }
+
+    @Test
+    public void moveToFront_keepsRelativeOrderOfOthers() {
+        FeedShuffler shuffler = new FeedShuffler(WINDOW);
+        shuffler.shuffle(3L, 0, 20);
+        int[] before = new int[20];
+        for (int i = 0; i < 20; i++) {
+            before[i] = shuffler.get(i);
+        }
+        int[] head = {before[15], before[4]};
+
+        shuffler.moveToFront(head, head.length);
+
+        assertEquals(before[15], shuffler.get(0));
+        assertEquals(before[4], shuffler.get(1));
+        int position = 2;
+        for (int i = 0; i < 20; i++) {
+            if (i != 15 && i != 4) {
+                assertEquals(before[i], shuffler.get(position++));
+            }
+        }
+    }
+
+    @Test
+    public void moveToBack_keepsRelativeOrderOfBothParts() {
+        FeedShuffler shuffler = new FeedShuffler(WINDOW);
+        shuffler.shuffle(5L, 0, 20);
+        int[] before = new int[20];
+        for (int i = 0; i < 20; i++) {
+            before[i] = shuffler.get(i);
+        }
+        int[] seen = {before[2], before[0], before[9]};
+
+        shuffler.moveToBack(seen, seen.length);
+
+        int position = 0;
+        for (int i = 0; i < 20; i++) {
+            if (i != 0 && i != 2 && i != 9) {
+                assertEquals(before[i], shuffler.get(position++));
+            }
+        }
+        assertEquals(before[0], shuffler.get(17));
+        assertEquals(before[2], shuffler.get(18));
+        assertEquals(before[9], shuffler.get(19));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_negativeWindow_throws() {
+        new FeedShuffler(-1);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.douyinline.repository;
+
+import com.example.douyinline.bean.AuthorBean;
+import com.example.douyinline.bean.VideoBean;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * FeedSnapshot 单元测试
+ */
+public class FeedSnapshotTest {
+    private static final long BUILD_STAMP = 20240101L;
+    private static final int PAGE_SIZE = 10;
+    private static final long AUTHOR_ID_BASE = 5000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // 写入快照时读取计数的存储
+    private final VideoCounterStore counterStore = new VideoCounterStore();
+
+    private List<VideoBean> createVideos(int count) {
+        List<VideoBean> videos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            videos.add(new VideoBean(i + 1, 100 + i, 200 + i, "视频标题" + i,
+                    new AuthorBean(AUTHOR_ID_BASE + i, "作者" + i, 300 + i)));
+            counterStore.register(i + 1, i * 10, i * 5, i * 2, i, false, false);
+        }
+        return videos;
+    }
+
+    @Test
+    public void writeThenRead_roundTripsAllFields() throws IOException {
+        File file = new File(folder.getRoot(), "feed_snapshot.bin");
+        List<VideoBean> videos = createVideos(10);
+        counterStore.toggleLike(4);
+        counterStore.toggleCollect(5);
+
+        FeedSnapshot.write(file, BUILD_STAMP, 6, videos, counterStore);
+        VideoCounterStore restoredCounters = new VideoCounterStore();
+        FeedSnapshot snapshot = FeedSnapshot.read(file, BUILD_STAMP, restoredCounters);
+
+        assertNotNull(snapshot);
+        assertEquals(6, snapshot.getScrollPosition());
+        assertEquals(10, snapshot.getVideos().size());
+        VideoBean video = snapshot.getVideos().get(3);
+        assertEquals(4L, video.getVideoId());
+        assertEquals(103, video.getCoverResourceId());
+        assertEquals(203, video.getVideoResourceId());
+        assertEquals("视频标题3", video.getTitle());
+        assertEquals(31, restoredCounters.getLikeCount(4));
+        assertEquals(15, restoredCounters.getCommentCount(4));
+        assertEquals(AUTHOR_ID_BASE + 3, video.getAuthorDetail().getAuthorId());
+        assertEquals("作者3", video.getAuthorDetail().getAuthorName());
+        assertEquals(303, video.getAuthorDetail().getAuthorAvatar());
+        assertTrue(restoredCounters.isLiked(4));
+        assertTrue(restoredCounters.isCollected(5));
+        assertFalse(restoredCounters.isLiked(5));
+    }
+
+    @Test
+    public void read_missingFileOrOtherBuild_returnsNull() throws IOException {
+        File file = new File(folder.getRoot(), "feed_snapshot.bin");
+        assertNull(FeedSnapshot.read(file, BUILD_STAMP, counterStore));
+
+        FeedSnapshot.write(file, BUILD_STAMP, 0, createVideos(3), counterStore);
+        assertNull(FeedSnapshot.read(file, BUILD_STAMP + 1, counterStore));
+    }
+
+    @Test
+    public void read_truncatedFile_returnsNull() throws IOException {
+        File file = new File(folder.getRoot(), "feed_snapshot.bin");
+        FeedSnapshot.write(file, BUILD_STAMP, 0, createVideos(10), counterStore);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() / 2);
+        }
+
+        assertNull(FeedSnapshot.read(file, BUILD_STAMP, counterStore));
+    }
+
+    @Test
+    public void updateScrollPosition_keepsVideos() throws IOException {
+        File file = new File(folder.getRoot(), "feed_snapshot.bin");
+        FeedSnapshot.write(file, BUILD_STAMP, 0, createVideos(5), counterStore);
+
+        FeedSnapshot.updateScrollPosition(file, 4);
+        FeedSnapshot snapshot = FeedSnapshot.read(file, BUILD_STAMP, counterStore);
+
+        assertNotNull(snapshot);
+        assertEquals(4, snapshot.getScrollPosition());
+        assertEquals(5, snapshot.getVideos().size());
+    }
+
+    @Test
+    public void read_keepsPageOrder() throws IOException {
+        File file = new File(folder.getRoot(), "feed_snapshot.bin");
+        List<VideoBean> videos = createVideos(PAGE_SIZE);
+        // 刷新后的首页不是按视频ID排列的
+        Collections.reverse(videos);
+        FeedSnapshot.write(file, BUILD_STAMP, 0, videos, counterStore);
+
+        FeedSnapshot snapshot = FeedSnapshot.read(file, BUILD_STAMP, counterStore);
+
+        assertNotNull(snapshot);
+        assertEquals(PAGE_SIZE, snapshot.getVideos().size());
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            VideoBean expected = videos.get(i);
+            VideoBean actual = snapshot.getVideos().get(i);
+            assertEquals(expected.getVideoId(), actual.getVideoId());
+            assertEquals(expected.getTitle(), actual.getTitle());
+            assertEquals(expected.getCoverResourceId(), actual.getCoverResourceId());
+        }
+    }
+}
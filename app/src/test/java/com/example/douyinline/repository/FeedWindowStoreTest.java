@@ -0,0 +1,111 @@
+package com.example.douyinline.repository;
+
+import com.example.douyinline.bean.AuthorBean;
+import com.example.douyinline.bean.FeedEntry;
+import com.example.douyinline.bean.VideoBean;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * FeedWindowStore 单元测试
+ */
+public class FeedWindowStoreTest {
+    private static final int ITEM_COUNT = 100_000;
+
+    private static VideoBean createVideo(long videoId) {
+        return new VideoBean(videoId, (int) videoId, (int) videoId, "title_" + videoId,
+                new AuthorBean(videoId, "author_" + videoId, 0));
+    }
+
+    @Test
+    public void get_outsideWindow_rehydratesFromStub() {
+        FeedWindowStore store = new FeedWindowStore(1, 1, FeedWindowStoreTest::createVideo);
+        for (int i = 0; i < 10; i++) {
+            store.add(createVideo(i));
+        }
+        store.moveTo(8);
+
+        assertEquals(10, store.size());
+        assertEquals(3L, store.getVideoId(3));
+        assertEquals(3L, store.get(3).getVideoId());
+        assertEquals(3, store.get(3).getCoverResourceId());
+        // 窗口外的访问不会占用窗口
+        assertTrue(store.getHydratedCount() <= 3);
+    }
+
+    @Test
+    public void moveTo_keepsOnlyWindowHydrated() {
+        FeedWindowStore store = new FeedWindowStore(2, 3, FeedWindowStoreTest::createVideo);
+        for (int i = 0; i < 50; i++) {
+            store.add(createVideo(i));
+        }
+        for (int position = 0; position < 50; position++) {
+            store.moveTo(position);
+            store.get(position);
+            assertTrue(store.getHydratedCount() <= 6);
+        }
+    }
+
+    @Test
+    public void addEntries_sameVideoInDifferentRounds_keepsDistinctEntryIds() {
+        FeedWindowStore store = new FeedWindowStore(1, 1, FeedWindowStoreTest::createVideo);
+        VideoBean video = createVideo(7);
+        FeedEntry first = new FeedEntry(0, video);
+        FeedEntry second = new FeedEntry(1, video);
+        store.addEntries(Arrays.asList(first, second));
+        store.add(createVideo(8));
+
+        // 视频ID由条目ID的低位得到
+        assertEquals(7L, store.getVideoId(0));
+        assertEquals(7L, store.getVideoId(1));
+        assertEquals(first.getEntryId(), store.getEntryId(0));
+        assertEquals(second.getEntryId(), store.getEntryId(1));
+        assertNotEquals(store.getEntryId(0), store.getEntryId(1));
+        // 直接追加的视频没有轮次，条目ID就是视频ID
+        assertEquals(8L, store.getEntryId(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_negativeWindow_throws() {
+        new FeedWindowStore(-1, 3, videoId -> null);
+    }
+
+    @Test
+    public void scroll100kItems_windowStaysBoundedAndEvicts() {
+        int[] hydrations = new int[1];
+        FeedWindowStore store = new FeedWindowStore(3, 5, videoId -> {
+            hydrations[0]++;
+            return createVideo(videoId);
+        });
+
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            store.add(createVideo(i));
+            // 模拟用户一直向下滑动
+            store.moveTo(i);
+            store.get(i);
+            assertTrue(store.getHydratedCount() <= 9);
+        }
+
+        assertEquals(ITEM_COUNT, store.size());
+        // 窗口内的位置一直保留着追加时的对象，不需要还原
+        assertEquals(0, hydrations[0]);
+        // 窗口外的位置已经被淘汰为存根，访问时重新还原
+        assertEquals(0L, store.get(0).getVideoId());
+        assertEquals(1, hydrations[0]);
+        assertEquals(ITEM_COUNT - 1, store.get(ITEM_COUNT - 1).getVideoId());
+        assertEquals(1, hydrations[0]);
+
+        // 滑回开头后，旧窗口的对象被淘汰，新窗口内的对象还原一次后保留
+        store.moveTo(0);
+        assertTrue(store.getHydratedCount() <= 9);
+        store.get(1);
+        store.get(1);
+        assertEquals(2, hydrations[0]);
+        store.get(ITEM_COUNT - 1);
+        assertEquals(3, hydrations[0]);
+    }
+}
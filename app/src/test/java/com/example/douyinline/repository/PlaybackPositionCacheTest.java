@@ -0,0 +1,101 @@
+package com.example.douyinline.repository;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * PlaybackPositionCache 单元测试
+ */
+public class PlaybackPositionCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void put_thenGet_countsHitRate() {
+        PlaybackPositionCache cache = new PlaybackPositionCache(10);
+        cache.put(1, 5_000, 8_000, 30_000);
+
+        PlaybackPositionCache.Entry entry = cache.get(1);
+        assertNotNull(entry);
+        assertEquals(5_000, entry.getPositionMs());
+        assertEquals(8_000, entry.getBufferedPositionMs());
+        assertEquals(30_000, entry.getDurationMs());
+        assertNull(cache.get(2));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRate(), 1e-9);
+    }
+
+    @Test
+    public void nearStartOrEnd_clearsEntry() {
+        PlaybackPositionCache cache = new PlaybackPositionCache(10);
+        cache.put(1, 5_000, 5_000, 30_000);
+        cache.put(1, 200, 3_000, 30_000);
+        assertEquals(0, cache.size());
+
+        cache.put(2, 29_500, 30_000, 30_000);
+        assertEquals(0, cache.size());
+        // 时长未知时只按开头判断
+        cache.put(3, 29_500, 0, -1);
+        assertEquals(29_500, cache.get(3).getBufferedPositionMs());
+    }
+
+    @Test
+    public void leastRecentlyUsed_evicted() {
+        PlaybackPositionCache cache = new PlaybackPositionCache(2);
+        cache.put(1, 2_000, 2_000, 0);
+        cache.put(2, 2_000, 2_000, 0);
+        cache.get(1);
+        cache.put(3, 2_000, 2_000, 0);
+
+        assertNotNull(cache.get(1));
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(3));
+    }
+
+    @Test
+    public void writeThenRead_keepsEntriesAndOrder() throws Exception {
+        File file = new File(temporaryFolder.getRoot(), "positions.bin");
+        PlaybackPositionCache cache = new PlaybackPositionCache(3);
+        cache.put(10, 1_500, 4_000, 20_000);
+        cache.put(20, 2_500, 6_000, 20_000);
+        cache.put(30, 3_500, 9_000, 20_000);
+        cache.write(file);
+        assertEquals(4 + 2 + 4 + 3 * 20, file.length());
+
+        PlaybackPositionCache restored = new PlaybackPositionCache(3);
+        // 读取前已经有的记录比文件中的新
+        restored.put(20, 7_000, 7_000, 20_000);
+        restored.put(40, 1_200, 1_200, 20_000);
+        restored.readFrom(file);
+
+        assertEquals(3, restored.size());
+        assertEquals(7_000, restored.get(20).getPositionMs());
+        assertNotNull(restored.get(40));
+        assertEquals(3_500, restored.get(30).getPositionMs());
+        // 文件中最旧的一条被淘汰
+        assertNull(restored.get(10));
+    }
+
+    @Test
+    public void missingOrCorruptFile() throws Exception {
+        PlaybackPositionCache cache = new PlaybackPositionCache(3);
+        cache.readFrom(new File(temporaryFolder.getRoot(), "missing.bin"));
+        assertEquals(0, cache.size());
+
+        File corrupt = temporaryFolder.newFile();
+        try (FileOutputStream out = new FileOutputStream(corrupt)) {
+            out.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        }
+        assertThrows(IOException.class, () -> cache.readFrom(corrupt));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.douyinline.repository;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * SeenVideoFilter 单元测试
+ */
+public class SeenVideoFilterTest {
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private long now = 1_000_000L;
+
+    private SeenVideoFilter open(File file, int capacity, double falsePositiveRate) throws Exception {
+        return SeenVideoFilter.open(file, capacity, falsePositiveRate, 30 * DAY_MILLIS, () -> now);
+    }
+
+    @Test
+    public void put_thenMightContain() throws Exception {
+        try (SeenVideoFilter filter = open(temporaryFolder.newFile(), 1000, 0.01)) {
+            for (long id = 1; id <= 1000; id++) {
+                filter.put(id);
+            }
+            for (long id = 1; id <= 1000; id++) {
+                assertTrue(filter.mightContain(id));
+            }
+            assertEquals(1000, filter.approximateCount());
+        }
+    }
+
+    @Test
+    public void reopen_keepsEntries() throws Exception {
+        File file = temporaryFolder.newFile();
+        try (SeenVideoFilter filter = open(file, 1000, 0.01)) {
+            filter.put(42);
+        }
+        try (SeenVideoFilter filter = open(file, 1000, 0.01)) {
+            assertTrue(filter.mightContain(42));
+            assertEquals(1, filter.approximateCount());
+        }
+        // 参数变化后重新创建
+        try (SeenVideoFilter filter = open(file, 2000, 0.01)) {
+            assertFalse(filter.mightContain(42));
+        }
+    }
+
+    /**
+     * 两代都写满时，误判率不超过目标值
+     */
+    @Test
+    public void falsePositiveRate_staysWithinTarget() throws Exception {
+        int capacity = 100_000;
+        try (SeenVideoFilter filter = open(temporaryFolder.newFile(), capacity, 0.01)) {
+            for (long id = 1; id <= 2L * capacity - 1; id++) {
+                filter.put(id);
+            }
+            int falsePositives = 0;
+            int probes = 200_000;
+            for (long id = 10_000_000; id < 10_000_000 + probes; id++) {
+                if (filter.mightContain(id)) {
+                    falsePositives++;
+                }
+            }
+            double rate = (double) falsePositives / probes;
+            assertTrue("falsePositiveRate=" + rate, rate < 0.01);
+        }
+    }
+
+    @Test
+    public void rotation_agesOutOldestGeneration() throws Exception {
+        try (SeenVideoFilter filter = open(temporaryFolder.newFile(), 100, 0.01)) {
+            for (long id = 1; id <= 100; id++) {
+                filter.put(id);
+            }
+            // 第一代写满，写入第二代
+            for (long id = 101; id <= 200; id++) {
+                filter.put(id);
+            }
+            assertTrue(filter.mightContain(1));
+            assertTrue(filter.mightContain(200));
+
+            // 第二代写满，再写入时清空第一代
+            filter.put(201);
+            assertFalse(filter.mightContain(1));
+            assertTrue(filter.mightContain(150));
+            assertTrue(filter.mightContain(201));
+        }
+    }
+
+    @Test
+    public void rotation_byAge() throws Exception {
+        try (SeenVideoFilter filter = open(temporaryFolder.newFile(), 1000, 0.01)) {
+            filter.put(1);
+            now += 31 * DAY_MILLIS;
+            filter.put(2);
+            assertTrue(filter.mightContain(1));
+            now += 31 * DAY_MILLIS;
+            filter.put(3);
+            assertFalse(filter.mightContain(1));
+            assertTrue(filter.mightContain(2));
+        }
+    }
+
+    @Test
+    public void corruptedFile_isRecreated() throws Exception {
+        File file = temporaryFolder.newFile();
+        try (SeenVideoFilter filter = open(file, 1000, 0.01)) {
+            filter.put(7);
+        }
+        try (java.io.RandomAccessFile raf = new java.io.RandomAccessFile(file, "rw")) {
+            raf.writeInt(0);
+        }
+        try (SeenVideoFilter filter = open(file, 1000, 0.01)) {
+            assertFalse(filter.mightContain(7));
+            filter.put(7);
+            assertTrue(filter.mightContain(7));
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.douyinline.repository;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * SingleFlight 单元测试
+ */
+public class SingleFlightTest {
+    private static final int CALLER_COUNT = 1000;
+
+    private final ListeningExecutorService executor = MoreExecutors.listeningDecorator(
+            Executors.newSingleThreadExecutor());
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 1000 个调用方同时请求同一页，只执行一次
+     */
+    @Test
+    public void submit_concurrentCallers_shareOneExecution() throws Exception {
+        SingleFlight<String> singleFlight = new SingleFlight<>(executor);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(32);
+        List<java.util.concurrent.Future<ListenableFuture<Integer>>> submitted = new ArrayList<>();
+
+        for (int i = 0; i < CALLER_COUNT; i++) {
+            submitted.add(callers.submit(() -> {
+                start.await();
+                return singleFlight.submit("page:0", () -> {
+                    executions.incrementAndGet();
+                    release.await();
+                    return 42;
+                });
+            }));
+        }
+        start.countDown();
+        List<ListenableFuture<Integer>> results = new ArrayList<>();
+        for (java.util.concurrent.Future<ListenableFuture<Integer>> future : submitted) {
+            results.add(future.get(10, TimeUnit.SECONDS));
+        }
+        release.countDown();
+
+        for (ListenableFuture<Integer> result : results) {
+            assertEquals(Integer.valueOf(42), result.get(10, TimeUnit.SECONDS));
+        }
+        callers.shutdown();
+        assertEquals(1, executions.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    public void submit_afterCompletion_runsAgain() throws Exception {
+        SingleFlight<String> singleFlight = new SingleFlight<>(executor);
+        AtomicInteger executions = new AtomicInteger();
+
+        singleFlight.submit("refresh", executions::incrementAndGet).get(10, TimeUnit.SECONDS);
+        singleFlight.submit("refresh", executions::incrementAndGet).get(10, TimeUnit.SECONDS);
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    public void cancelView_doesNotCancelOtherCallers() throws Exception {
+        SingleFlight<String> singleFlight = new SingleFlight<>(executor);
+        CountDownLatch release = new CountDownLatch(1);
+        ListenableFuture<Integer> first = singleFlight.submit("page:0", () -> {
+            release.await();
+            return 1;
+        });
+        ListenableFuture<Integer> second = singleFlight.submit("page:0", () -> 2);
+
+        first.cancel(true);
+        release.countDown();
+
+        assertTrue(first.isCancelled());
+        assertEquals(Integer.valueOf(1), second.get(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 刷新取代尚未完成的加载更多
+     */
+    @Test
+    public void cancel_supersedesMatchingRequests() throws Exception {
+        SingleFlight<String> singleFlight = new SingleFlight<>(executor);
+        CountDownLatch pageStarted = new CountDownLatch(1);
+        ListenableFuture<Integer> page = singleFlight.submit("page:10", () -> {
+            pageStarted.countDown();
+            // 模拟等待视频池数据
+            Thread.sleep(10_000);
+            return 1;
+        });
+        ListenableFuture<Integer> samePage = singleFlight.submit("page:10", () -> 1);
+        pageStarted.await(10, TimeUnit.SECONDS);
+
+        int cancelled = singleFlight.cancel(key -> key.startsWith("page:"));
+        ListenableFuture<String> refresh = singleFlight.submit("refresh", () -> "refreshed");
+
+        assertEquals(1, cancelled);
+        assertCancelled(page);
+        assertCancelled(samePage);
+        // 被取消的分页请求中断后，刷新立即执行
+        assertEquals("refreshed", refresh.get(10, TimeUnit.SECONDS));
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    private static void assertCancelled(ListenableFuture<?> future) throws Exception {
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("请求应当被取消");
+        } catch (CancellationException expected) {
+            assertTrue(future.isCancelled());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.douyinline.repository;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * VideoCounterStore 单元测试
+ */
+public class VideoCounterStoreTest {
+    private static final int VIDEO_COUNT = 100_000;
+
+    @Test
+    public void register_manyIds_keepsDenseOrdinals() {
+        VideoCounterStore store = new VideoCounterStore();
+        for (int i = 0; i < VIDEO_COUNT; i++) {
+            // 使用不连续的ID，覆盖扩容和哈希冲突
+            assertEquals(i, store.register(i * 7919L + 1, i, i + 1, i + 2, i + 3, false, false));
+        }
+
+        assertEquals(VIDEO_COUNT, store.size());
+        assertEquals(12345, store.ordinalOf(12345 * 7919L + 1));
+        assertEquals(12345, store.getLikeCount(12345 * 7919L + 1));
+        assertEquals(12348, store.getCollectCount(12345 * 7919L + 1));
+        assertEquals(-1, store.ordinalOf(2));
+        assertEquals(0, store.getLikeCount(2));
+    }
+
+    @Test
+    public void register_existingId_keepsLocalState() {
+        VideoCounterStore store = new VideoCounterStore();
+        store.register(1, 10, 0, 0, 0, false, false);
+        assertTrue(store.toggleLike(1));
+
+        store.register(1, 10, 0, 0, 0, false, false);
+
+        assertTrue(store.isLiked(1));
+        assertEquals(11, store.getLikeCount(1));
+        assertFalse(store.toggleLike(1));
+        assertEquals(10, store.getLikeCount(1));
+    }
+
+    @Test
+    public void toggleCollect_unknownId_isNoOp() {
+        VideoCounterStore store = new VideoCounterStore();
+        assertFalse(store.toggleCollect(42));
+        assertEquals(0, store.incrementCommentCount(42));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void applyCounts_updatesPageAndKeepsFlags() {
+        VideoCounterStore store = new VideoCounterStore();
+        store.register(1, 10, 10, 10, 10, false, false);
+        store.toggleCollect(1);
+        AtomicInteger notified = new AtomicInteger();
+        store.addOnCountersChangedListener(notified::incrementAndGet);
+
+        store.applyCounts(new long[]{1, 2}, new int[]{100, 200}, new int[]{1, 2},
+                new int[]{3, 4}, new int[]{5, 6});
+
+        assertEquals(1, notified.get());
+        assertEquals(100, store.getLikeCount(1));
+        assertEquals(5, store.getCollectCount(1));
+        assertTrue(store.isCollected(1));
+        assertEquals(200, store.getLikeCount(2));
+        assertEquals(4, store.getShareCount(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void applyCounts_mismatchedColumns_throws() {
+        new VideoCounterStore().applyCounts(new long[]{1}, new int[0], new int[]{1}, new int[]{1}, new int[]{1});
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.douyinline.repository;
+
+import com.example.douyinline.bean.VideoBean;
+import org.junit.Test;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * VideoFeedLoader 单元测试
+ */
+public class VideoFeedLoaderTest {
+    private static final int STREAMING_ENTRY_COUNT = 1_000;
+    private static final int PAGE_SIZE = 10;
+
+    private static String buildFeedJson(int count) {
+        StringBuilder sb = new StringBuilder("{\"version\":1,\"videos\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(i + 1)
+                    .append(",\"title\":\"视频标题").append(i).append('"')
+                    .append(",\"video\":\"video_").append(i % 10 + 1).append('"')
+                    .append(",\"cover\":\"img_cover_").append(i % 10 + 1).append('"')
+                    .append(",\"likeCount\":").append(i % 1000)
+                    .append(",\"commentCount\":").append(i % 500)
+                    .append(",\"shareCount\":").append(i % 200)
+                    .append(",\"collectCount\":").append(i % 100)
+                    .append(",\"extra\":{\"ignored\":[1,2,3]}")
+                    .append(",\"author\":{\"id\":").append(i % 10 + 1)
+                    .append(",\"name\":\"作者").append(i % 10)
+                    .append("\",\"avatar\":\"img_avatar_").append(i % 10 + 1).append("\"}}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static VideoFeedLoader createLoader() {
+        return createLoader(new VideoCounterStore());
+    }
+
+    private static VideoFeedLoader createLoader(VideoCounterStore counterStore) {
+        // 用名称的哈希模拟资源ID
+        return new VideoFeedLoader((type, name) -> (type + name).hashCode(), new AuthorRegistry(),
+                counterStore, PAGE_SIZE);
+    }
+
+    @Test
+    public void load_emitsFullPagesAndRemainder() throws IOException {
+        List<Integer> pageSizes = new ArrayList<>();
+        int total = createLoader().load(new StringReader(buildFeedJson(25)), page -> pageSizes.add(page.size()));
+
+        assertEquals(25, total);
+        assertEquals(3, pageSizes.size());
+        assertEquals(Integer.valueOf(10), pageSizes.get(0));
+        assertEquals(Integer.valueOf(5), pageSizes.get(2));
+    }
+
+    @Test
+    public void load_parsesFieldsAndSkipsUnknown() throws IOException {
+        List<VideoBean> videos = new ArrayList<>();
+        VideoCounterStore counterStore = new VideoCounterStore();
+        createLoader(counterStore).load(new StringReader(buildFeedJson(3)), videos::addAll);
+
+        VideoBean video = videos.get(2);
+        assertEquals(3L, video.getVideoId());
+        assertEquals("视频标题2", video.getTitle());
+        assertEquals(("raw" + "video_3").hashCode(), video.getVideoResourceId());
+        assertEquals(("drawable" + "img_cover_3").hashCode(), video.getCoverResourceId());
+        assertEquals(2, counterStore.getLikeCount(video.getVideoId()));
+        assertEquals(2, counterStore.getCommentCount(video.getVideoId()));
+        assertEquals("作者2", video.getAuthorDetail().getAuthorName());
+        assertEquals(3L, video.getAuthorDetail().getAuthorId());
+    }
+
+    @Test
+    public void load_appliesCountsPerPageAndKeepsLocalFlags() throws IOException {
+        VideoCounterStore counterStore = new VideoCounterStore();
+        // 快照中恢复的旧计数，本地已点赞
+        counterStore.register(3, 99, 99, 99, 99, true, false);
+        AtomicInteger notified = new AtomicInteger();
+        counterStore.addOnCountersChangedListener(notified::incrementAndGet);
+
+        createLoader(counterStore).load(new StringReader(buildFeedJson(25)), page -> { });
+
+        // 两个整页加一个不足一页的尾页
+        assertEquals(3, notified.get());
+        assertEquals(25, counterStore.size());
+        assertEquals(2, counterStore.getLikeCount(3));
+        assertEquals(2, counterStore.getShareCount(3));
+        assertTrue(counterStore.isLiked(3));
+        assertEquals(24, counterStore.getLikeCount(25));
+    }
+
+    @Test
+    public void load_emptyVideos_emitsNothing() throws IOException {
+        List<VideoBean> videos = new ArrayList<>();
+        int total = createLoader().load(new StringReader("{\"videos\":[]}"), videos::addAll);
+
+        assertEquals(0, total);
+        assertTrue(videos.isEmpty());
+    }
+
+    @Test
+    public void load_emitsFirstPageBeforeReadingWholeInput() throws IOException {
+        String json = buildFeedJson(STREAMING_ENTRY_COUNT);
+        long[] consumed = {0};
+        long[] consumedAtFirstPage = {-1};
+        Reader countingReader = new FilterReader(new StringReader(json)) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    consumed[0] += read;
+                }
+                return read;
+            }
+        };
+
+        int total = createLoader().load(countingReader, page -> {
+            if (consumedAtFirstPage[0] < 0) {
+                consumedAtFirstPage[0] = consumed[0];
+            }
+        });
+
+        assertEquals(STREAMING_ENTRY_COUNT, total);
+        assertEquals(json.length(), consumed[0]);
+        // 第一页只需要读到前几条数据，不需要等整个文件读完
+        assertTrue(consumedAtFirstPage[0] > 0);
+        assertTrue(consumedAtFirstPage[0] < json.length() / 10);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.douyinline.repository;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * VideoMetadataIndex 单元测试
+ */
+public class VideoMetadataIndexTest {
+    private static final long STAMP = 1234L;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void displayAspectRatio_accountsForRotation() {
+        VideoMetadataIndex.Entry landscape = new VideoMetadataIndex.Entry(10_000, 1920, 1080, 0, "video/avc");
+        VideoMetadataIndex.Entry rotated = new VideoMetadataIndex.Entry(10_000, 1920, 1080, 90, "video/avc");
+        VideoMetadataIndex.Entry negative = new VideoMetadataIndex.Entry(10_000, 1920, 1080, -90, "video/avc");
+
+        assertEquals(16f / 9f, landscape.getDisplayAspectRatio(), 1e-6);
+        assertEquals(9f / 16f, rotated.getDisplayAspectRatio(), 1e-6);
+        assertEquals(270, negative.getRotationDegrees());
+        assertEquals(9f / 16f, negative.getDisplayAspectRatio(), 1e-6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroSize_isRejected() {
+        new VideoMetadataIndex.Entry(10_000, 0, 1080, 0, "video/avc");
+    }
+
+    @Test
+    public void mostDemanding_isLargestPixelCount() {
+        VideoMetadataIndex index = new VideoMetadataIndex();
+        assertNull(index.getMostDemanding());
+
+        index.put(1, new VideoMetadataIndex.Entry(1_000, 720, 1280, 0, "video/avc"));
+        index.put(2, new VideoMetadataIndex.Entry(1_000, 2160, 3840, 0, "video/hevc"));
+        index.put(3, new VideoMetadataIndex.Entry(1_000, 1080, 1920, 0, "video/avc"));
+
+        assertEquals("video/hevc", index.getMostDemanding().getMimeType());
+    }
+
+    @Test
+    public void writeThenRead_roundTrips() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "metadata.bin");
+        VideoMetadataIndex index = new VideoMetadataIndex();
+        index.put(7, new VideoMetadataIndex.Entry(15_500, 720, 1280, 270, "video/avc"));
+        index.put(8, new VideoMetadataIndex.Entry(0, 640, 360, 0, null));
+        assertTrue(index.isDirty());
+        index.write(file, STAMP);
+        assertFalse(index.isDirty());
+
+        VideoMetadataIndex restored = new VideoMetadataIndex();
+        assertTrue(restored.readFrom(file, STAMP));
+        assertEquals(2, restored.size());
+        VideoMetadataIndex.Entry entry = restored.get(7);
+        assertEquals(15_500, entry.getDurationMs());
+        assertEquals(720, entry.getWidth());
+        assertEquals(1280, entry.getHeight());
+        assertEquals(270, entry.getRotationDegrees());
+        assertEquals("video/avc", entry.getMimeType());
+        assertNull(restored.get(8).getMimeType());
+        assertFalse(restored.isDirty());
+    }
+
+    @Test
+    public void read_keepsInMemoryEntries() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "metadata.bin");
+        VideoMetadataIndex old = new VideoMetadataIndex();
+        old.put(1, new VideoMetadataIndex.Entry(1_000, 720, 1280, 0, "video/avc"));
+        old.write(file, STAMP);
+
+        VideoMetadataIndex index = new VideoMetadataIndex();
+        index.put(1, new VideoMetadataIndex.Entry(2_000, 1080, 1920, 0, "video/avc"));
+        index.readFrom(file, STAMP);
+
+        assertEquals(1080, index.get(1).getWidth());
+    }
+
+    @Test
+    public void differentBuildStamp_isIgnored() throws IOException {
+        File file = new File(temporaryFolder.getRoot(), "metadata.bin");
+        VideoMetadataIndex old = new VideoMetadataIndex();
+        old.put(1, new VideoMetadataIndex.Entry(1_000, 720, 1280, 0, "video/avc"));
+        old.write(file, STAMP);
+
+        VideoMetadataIndex index = new VideoMetadataIndex();
+        assertFalse(index.readFrom(file, STAMP + 1));
+        assertEquals(0, index.size());
+        assertFalse(new VideoMetadataIndex().readFrom(new File(temporaryFolder.getRoot(), "missing.bin"), STAMP));
+    }
+
+    @Test(expected = IOException.class)
+    public void badMagic_throws() throws IOException {
+        File file = temporaryFolder.newFile("metadata.bin");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[]{1, 2, 3, 4, 0, 1});
+        }
+        new VideoMetadataIndex().readFrom(file, STAMP);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.douyinline.ui.video;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * AdaptivePoolSizingPolicy 单元测试，使用假的设备能力
+ */
+public class AdaptivePoolSizingPolicyTest {
+    private static final String MIME = "video/avc";
+    private final PoolSizingPolicy policy = new AdaptivePoolSizingPolicy(MIME, 3840, 2160);
+
+    private static DeviceProfile profile(int decoderInstances, int memoryClassMb, boolean lowRam) {
+        return new DeviceProfile() {
+            @Override
+            public int getMaxDecoderInstances(String mimeType, int width, int height) {
+                assertEquals(MIME, mimeType);
+                assertEquals(3840, width);
+                assertEquals(2160, height);
+                return decoderInstances;
+            }
+
+            @Override
+            public int getMemoryClassMb() {
+                return memoryClassMb;
+            }
+
+            @Override
+            public boolean isLowRamDevice() {
+                return lowRam;
+            }
+        };
+    }
+
+    @Test
+    public void midRangeDevice_keepsCurrentDefaults() {
+        PoolSizing sizing = policy.decide(profile(4, 128, false));
+        assertEquals(2, sizing.getPoolSize());
+        assertEquals(2, sizing.getDecoderBudget());
+        assertEquals(1, sizing.getPreloadDepth());
+    }
+
+    @Test
+    public void highEndDevice_cappedAtMaxPoolSize() {
+        PoolSizing sizing = policy.decide(profile(32, 512, false));
+        assertEquals(AdaptivePoolSizingPolicy.MAX_POOL_SIZE, sizing.getPoolSize());
+        assertEquals(AdaptivePoolSizingPolicy.MAX_POOL_SIZE - 1, sizing.getPreloadDepth());
+    }
+
+    @Test
+    public void fewDecoderInstances_limitPool() {
+        PoolSizing sizing = policy.decide(profile(1, 512, false));
+        assertEquals(1, sizing.getPoolSize());
+        assertEquals(1, sizing.getDecoderBudget());
+        assertEquals(0, sizing.getPreloadDepth());
+
+        assertEquals(3, policy.decide(profile(3, 512, false)).getPoolSize());
+    }
+
+    @Test
+    public void unknownDecoderInstances_fallBack() {
+        PoolSizing sizing = policy.decide(profile(0, 512, false));
+        assertEquals(AdaptivePoolSizingPolicy.FALLBACK_DECODER_INSTANCES, sizing.getPoolSize());
+    }
+
+    @Test
+    public void lowMemory_keepsSinglePlayer() {
+        assertEquals(1, policy.decide(profile(16, 512, true)).getPoolSize());
+        assertEquals(1, policy.decide(profile(16, 48, false)).getPoolSize());
+        assertEquals(0, policy.decide(profile(16, 48, false)).getPreloadDepth());
+    }
+}
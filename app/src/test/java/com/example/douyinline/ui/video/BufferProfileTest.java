@@ -0,0 +1,43 @@
+package com.example.douyinline.ui.video;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * BufferProfile 单元测试
+ */
+public class BufferProfileTest {
+
+    @Test
+    public void shortVideo_startsFasterWithSmallerBuffer() {
+        BufferProfile shortVideo = BufferProfile.SHORT_VIDEO;
+        BufferProfile longForm = BufferProfile.LONG_FORM;
+        assertTrue(shortVideo.getBufferForPlaybackMs() < 1_000);
+        assertTrue(shortVideo.getBufferForPlaybackMs() < longForm.getBufferForPlaybackMs());
+        assertTrue(shortVideo.getMaxBufferMs() < longForm.getMaxBufferMs());
+        assertTrue(shortVideo.getBackBufferMs() > 0);
+    }
+
+    @Test
+    public void poolBufferBytes_scaleWithPoolSize() {
+        int perPlayer = BufferProfile.SHORT_VIDEO.getBufferBytesPerPlayer();
+        assertEquals(perPlayer * 3, BufferProfile.SHORT_VIDEO.poolBufferBytes(3));
+        assertEquals(BufferProfile.UNSET_BYTES, BufferProfile.LONG_FORM.poolBufferBytes(3));
+
+        BufferProfile huge = new BufferProfile("huge", 1_000, 1_000, 100, 100, 0, Integer.MAX_VALUE);
+        assertEquals(Integer.MAX_VALUE, huge.poolBufferBytes(4));
+    }
+
+    @Test
+    public void invalidDurations_rejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BufferProfile("a", 1_000, 500, 100, 100, 0, BufferProfile.UNSET_BYTES));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BufferProfile("b", 1_000, 2_000, 1_500, 100, 0, BufferProfile.UNSET_BYTES));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BufferProfile("c", 1_000, 2_000, 100, 100, -1, BufferProfile.UNSET_BYTES));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BufferProfile("d", 1_000, 2_000, 100, 100, 0, 0));
+    }
+}
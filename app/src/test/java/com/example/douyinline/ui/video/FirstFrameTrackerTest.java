@@ -0,0 +1,108 @@
+package com.example.douyinline.ui.video;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+/**
+ * FirstFrameTracker 单元测试，使用可控的时钟
+ */
+public class FirstFrameTrackerTest {
+    private long nowNanos = 0;
+    private final FirstFrameTracker tracker = new FirstFrameTracker(() -> nowNanos);
+
+    @Test
+    public void freshPlayer_measuredUntilFirstFrame() {
+        tracker.onPageSelected(3);
+        nowNanos += 20_000_000;
+        tracker.onPlaybackStarted(3, FirstFrameTracker.StartType.FRESH, false);
+        nowNanos += 100_000_000;
+        tracker.onFirstFrameRendered(3);
+
+        LatencyHistogram fresh = tracker.getHistogram(FirstFrameTracker.StartType.FRESH);
+        assertEquals(1, fresh.getTotalCount());
+        assertEquals(120_000, tracker.percentileMicros(FirstFrameTracker.StartType.FRESH, 50), 120_000 / 64.0);
+        // 同一页再次出帧（循环播放）不会重复记录
+        tracker.onFirstFrameRendered(3);
+        assertEquals(1, fresh.getTotalCount());
+    }
+
+    @Test
+    public void preloadedPlayer_recordedWhenPlaybackStarts() {
+        // 预加载时出的首帧不计入
+        tracker.onFirstFrameRendered(4);
+        tracker.onPageSelected(4);
+        nowNanos += 5_000_000;
+        tracker.onPlaybackStarted(4, FirstFrameTracker.StartType.PRELOADED, true);
+
+        assertEquals(1, tracker.getHistogram(FirstFrameTracker.StartType.PRELOADED).getTotalCount());
+        assertEquals(0, tracker.getHistogram(FirstFrameTracker.StartType.FRESH).getTotalCount());
+    }
+
+    @Test
+    public void playbackWithoutSelection_ignored() {
+        // 恢复播放等不是切换页面的情况
+        tracker.onPlaybackStarted(2, FirstFrameTracker.StartType.REUSED, true);
+        tracker.onFirstFrameRendered(2);
+        for (FirstFrameTracker.StartType type : FirstFrameTracker.StartType.values()) {
+            assertEquals(0, tracker.getHistogram(type).getTotalCount());
+        }
+    }
+
+    @Test
+    public void switchingAwayBeforeFirstFrame_countsAbandoned() throws Exception {
+        tracker.onPageSelected(1);
+        tracker.onPlaybackStarted(1, FirstFrameTracker.StartType.FRESH, false);
+        tracker.onPageSelected(2);
+        tracker.onFirstFrameRendered(1);
+        tracker.onPlaybackStarted(2, FirstFrameTracker.StartType.REUSED, false);
+        nowNanos += 30_000_000;
+        tracker.onFirstFrameRendered(2);
+
+        assertEquals(1, tracker.getAbandonedCount());
+        assertEquals(0, tracker.getHistogram(FirstFrameTracker.StartType.FRESH).getTotalCount());
+        assertEquals(1, tracker.getHistogram(FirstFrameTracker.StartType.REUSED).getTotalCount());
+
+        StringWriter out = new StringWriter();
+        tracker.exportTo(out);
+        assertTrue(out.toString().contains("# REUSED"));
+    }
+
+    @Test
+    public void launch_recordedByPoolState() {
+        tracker.onLaunchRequested();
+        nowNanos += 200_000_000;
+        tracker.onPoolLeased(true);
+        tracker.onPageSelected(0);
+        tracker.onPlaybackStarted(0, FirstFrameTracker.StartType.FRESH, false);
+        nowNanos += 100_000_000;
+        tracker.onFirstFrameRendered(0);
+
+        assertEquals(1, tracker.getLaunchHistogram(FirstFrameTracker.LaunchType.WARM_POOL).getTotalCount());
+        assertEquals(300_000, tracker.launchPercentileMicros(FirstFrameTracker.LaunchType.WARM_POOL, 50),
+                300_000 / 64.0);
+        // 后续的页面切换不再计入启动
+        tracker.onPageSelected(1);
+        tracker.onPlaybackStarted(1, FirstFrameTracker.StartType.PRELOADED, true);
+        assertEquals(1, tracker.getLaunchHistogram(FirstFrameTracker.LaunchType.WARM_POOL).getTotalCount());
+        assertEquals(0, tracker.getLaunchHistogram(FirstFrameTracker.LaunchType.COLD_POOL).getTotalCount());
+    }
+
+    @Test
+    public void launch_abandonedFirstPage_notRecorded() {
+        tracker.onPageSelected(7);
+        // 上一个播放页没出首帧就关闭，不算切走
+        tracker.onLaunchRequested();
+        tracker.onPoolLeased(false);
+        tracker.onPageSelected(0);
+        assertEquals(0, tracker.getAbandonedCount());
+        tracker.onPageSelected(1);
+        tracker.onPlaybackStarted(1, FirstFrameTracker.StartType.FRESH, true);
+
+        assertEquals(1, tracker.getAbandonedCount());
+        assertEquals(0, tracker.getLaunchHistogram(FirstFrameTracker.LaunchType.COLD_POOL).getTotalCount());
+        assertTrue(tracker.summary().contains("COLD_POOL[n=0"));
+    }
+}
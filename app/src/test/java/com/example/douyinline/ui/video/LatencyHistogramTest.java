@@ -0,0 +1,82 @@
+package com.example.douyinline.ui.video;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+/**
+ * LatencyHistogram 单元测试
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketBoundaries_areContiguous() {
+        long expectedLow = 0;
+        for (int index = 0; index <= LatencyHistogram.indexOf(10_000_000); index++) {
+            long low = LatencyHistogram.lowestEquivalentValue(index);
+            long high = LatencyHistogram.highestEquivalentValue(index);
+            assertEquals("index=" + index, expectedLow, low);
+            assertEquals(index, LatencyHistogram.indexOf(low));
+            assertEquals(index, LatencyHistogram.indexOf(high));
+            expectedLow = high + 1;
+        }
+    }
+
+    @Test
+    public void percentiles_withinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram(60_000_000L);
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(100_000, histogram.getTotalCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(100_000, histogram.getMax());
+        assertEquals(50_000.5, histogram.getMean(), 1e-6);
+        assertWithin(50_000, histogram.valueAtPercentile(50));
+        assertWithin(90_000, histogram.valueAtPercentile(90));
+        assertWithin(99_000, histogram.valueAtPercentile(99));
+        assertEquals(100_000, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    public void smallValues_recordedExactly() {
+        LatencyHistogram histogram = new LatencyHistogram(1_000);
+        histogram.record(3);
+        histogram.record(7);
+        histogram.record(7);
+        assertEquals(3, histogram.valueAtPercentile(0));
+        assertEquals(7, histogram.valueAtPercentile(50));
+        assertEquals(7, histogram.valueAtPercentile(99));
+    }
+
+    @Test
+    public void overflowClamped_resetClears() {
+        LatencyHistogram histogram = new LatencyHistogram(1_000);
+        histogram.record(5_000);
+        assertEquals(1_000, histogram.getMax());
+        assertEquals(1_000, histogram.valueAtPercentile(99));
+        assertThrows(IllegalArgumentException.class, () -> histogram.record(-1));
+
+        histogram.reset();
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.valueAtPercentile(50));
+    }
+
+    @Test
+    public void percentileDistribution_endsWithTotal() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram(1_000_000);
+        histogram.record(1_500);
+        histogram.record(250_000);
+        StringWriter out = new StringWriter();
+        histogram.writePercentileDistribution(out, 1000.0);
+        String text = out.toString();
+        assertTrue(text, text.contains("1.000000000000"));
+        assertTrue(text, text.contains("Total count = 2"));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertEquals(expected, actual, expected / 64.0);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.douyinline.ui.video;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * PreloadPolicy 单元测试
+ */
+public class PreloadPolicyTest {
+    private static final int ITEM_COUNT = 10;
+
+    @Test
+    public void firstSelection_preloadsNextPage() {
+        PreloadPolicy policy = new PreloadPolicy();
+        int[] out = new int[1];
+        policy.onPageSelected(3);
+        assertEquals(1, policy.targets(ITEM_COUNT, 1, out));
+        assertEquals(4, out[0]);
+    }
+
+    @Test
+    public void swipeBack_preloadsPreviousPage() {
+        PreloadPolicy policy = new PreloadPolicy();
+        int[] out = new int[1];
+        policy.onPageSelected(5);
+
+        policy.onPageSelected(4);
+        assertEquals(PreloadPolicy.BACKWARD, policy.getDirection());
+        assertEquals(1, policy.targets(ITEM_COUNT, 1, out));
+        assertEquals(3, out[0]);
+        policy.onPageSelected(5);
+        assertEquals(PreloadPolicy.FORWARD, policy.getDirection());
+        assertEquals(1, policy.targets(ITEM_COUNT, 1, out));
+        assertEquals(6, out[0]);
+    }
+
+    @Test
+    public void dragDirectionChange_retargets() {
+        PreloadPolicy policy = new PreloadPolicy();
+        int[] out = new int[1];
+        // 还没有选中页面时忽略拖动方向
+        policy.onDragDirection(PreloadPolicy.BACKWARD);
+        assertEquals(PreloadPolicy.FORWARD, policy.getDirection());
+
+        policy.onPageSelected(5);
+        policy.onDragDirection(PreloadPolicy.BACKWARD);
+        assertEquals(PreloadPolicy.BACKWARD, policy.getDirection());
+        assertEquals(1, policy.targets(ITEM_COUNT, 1, out));
+        assertEquals(4, out[0]);
+    }
+
+    @Test
+    public void listEnds_preloadOppositeNeighbour() {
+        PreloadPolicy policy = new PreloadPolicy();
+        int[] out = new int[1];
+        policy.onPageSelected(9);
+        assertEquals(1, policy.targets(ITEM_COUNT, 1, out));
+        assertEquals(8, out[0]);
+        // 追加新的一页后恢复预加载下一页
+        assertEquals(1, policy.targets(ITEM_COUNT + 10, 1, out));
+        assertEquals(10, out[0]);
+
+        PreloadPolicy backward = new PreloadPolicy();
+        backward.onPageSelected(1);
+        backward.onPageSelected(0);
+        assertEquals(1, backward.targets(ITEM_COUNT, 1, out));
+        assertEquals(1, out[0]);
+
+        PreloadPolicy single = new PreloadPolicy();
+        single.onPageSelected(0);
+        assertEquals(0, single.targets(1, 1, out));
+    }
+
+    @Test
+    public void targets_followDirectionUpToDepth() {
+        PreloadPolicy policy = new PreloadPolicy();
+        int[] out = new int[3];
+        assertEquals(0, policy.targets(ITEM_COUNT, 3, out));
+
+        policy.onPageSelected(4);
+        assertEquals(3, policy.targets(ITEM_COUNT, 3, out));
+        assertArrayEquals(new int[]{5, 6, 7}, out);
+
+        policy.onPageSelected(3);
+        assertEquals(3, policy.targets(ITEM_COUNT, 3, out));
+        assertArrayEquals(new int[]{2, 1, 0}, out);
+        assertEquals(0, policy.targets(ITEM_COUNT, 0, out));
+    }
+
+    @Test
+    public void targets_nearListEnd_addOppositeNeighbour() {
+        PreloadPolicy policy = new PreloadPolicy();
+        int[] out = new int[3];
+        policy.onPageSelected(8);
+        assertEquals(2, policy.targets(ITEM_COUNT, 3, out));
+        assertEquals(9, out[0]);
+        assertEquals(7, out[1]);
+    }
+}
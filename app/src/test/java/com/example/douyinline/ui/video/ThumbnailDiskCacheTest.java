@@ -0,0 +1,134 @@
+package com.example.douyinline.ui.video;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * ThumbnailDiskCache 单元测试
+ */
+public class ThumbnailDiskCacheTest {
+    private static final String URI_A = "android.resource://com.example.douyinline/1001";
+    private static final String URI_B = "android.resource://com.example.douyinline/1002";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void put_thenGet_returnsSameFile() throws IOException {
+        ThumbnailDiskCache cache = new ThumbnailDiskCache(temporaryFolder.newFolder("thumbs"), 1024);
+        assertNull(cache.get(1, URI_A));
+
+        File file = cache.put(1, URI_A, new byte[100]);
+        assertNotNull(file);
+        assertEquals(file, cache.get(1, URI_A));
+        assertEquals(100, file.length());
+        assertEquals(100, cache.size());
+    }
+
+    @Test
+    public void differentUri_isDifferentKey() throws IOException {
+        ThumbnailDiskCache cache = new ThumbnailDiskCache(temporaryFolder.newFolder("thumbs"), 1024);
+        cache.put(1, URI_A, new byte[10]);
+
+        assertNull(cache.get(1, URI_B));
+        assertNotEquals(ThumbnailDiskCache.fileName(1, URI_A), ThumbnailDiskCache.fileName(1, URI_B));
+    }
+
+    @Test
+    public void overLimit_evictsLeastRecentlyUsed() throws IOException {
+        ThumbnailDiskCache cache = new ThumbnailDiskCache(temporaryFolder.newFolder("thumbs"), 300);
+        cache.put(1, URI_A, new byte[100]);
+        cache.put(2, URI_A, new byte[100]);
+        cache.put(3, URI_A, new byte[100]);
+        // 读取 1 之后 2 变成最久未使用
+        assertNotNull(cache.get(1, URI_A));
+
+        cache.put(4, URI_A, new byte[100]);
+        assertNull(cache.get(2, URI_A));
+        assertNotNull(cache.get(1, URI_A));
+        assertNotNull(cache.get(3, URI_A));
+        assertNotNull(cache.get(4, URI_A));
+        assertEquals(300, cache.size());
+    }
+
+    @Test
+    public void rewrite_replacesSize() throws IOException {
+        ThumbnailDiskCache cache = new ThumbnailDiskCache(temporaryFolder.newFolder("thumbs"), 1024);
+        cache.put(1, URI_A, new byte[100]);
+        cache.put(1, URI_A, new byte[40]);
+
+        assertEquals(40, cache.size());
+    }
+
+    @Test
+    public void oversizedEntry_isRejected() throws IOException {
+        ThumbnailDiskCache cache = new ThumbnailDiskCache(temporaryFolder.newFolder("thumbs"), 50);
+
+        assertNull(cache.put(1, URI_A, new byte[51]));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void reopen_restoresOrderFromModifiedTime() throws IOException {
+        File dir = temporaryFolder.newFolder("thumbs");
+        ThumbnailDiskCache first = new ThumbnailDiskCache(dir, 1024);
+        File older = first.put(1, URI_A, new byte[100]);
+        File newer = first.put(2, URI_A, new byte[100]);
+        older.setLastModified(1_000_000L);
+        newer.setLastModified(2_000_000L);
+        // 上次写入中断留下的临时文件
+        assertTrue(new File(dir, "3_0.webp.tmp").createNewFile());
+
+        ThumbnailDiskCache reopened = new ThumbnailDiskCache(dir, 1024);
+        assertEquals(200, reopened.size());
+        reopened.trimToSize(100);
+
+        assertFalse(older.exists());
+        assertTrue(newer.exists());
+        assertFalse(new File(dir, "3_0.webp.tmp").exists());
+    }
+
+    @Test
+    public void get_beforeIndexLoaded_returnsNull() throws IOException {
+        File dir = temporaryFolder.newFolder("thumbs");
+        new ThumbnailDiskCache(dir, 1024).put(1, URI_A, new byte[100]);
+
+        ThumbnailDiskCache reopened = new ThumbnailDiskCache(dir, 1024);
+        // 还没有在工作线程扫描目录，读取不访问磁盘
+        assertNull(reopened.get(1, URI_A));
+        reopened.loadIndex();
+        assertNotNull(reopened.get(1, URI_A));
+    }
+
+    @Test
+    public void get_touchesFileOnNextWrite() throws IOException {
+        ThumbnailDiskCache cache = new ThumbnailDiskCache(temporaryFolder.newFolder("thumbs"), 1024);
+        File file = cache.put(1, URI_A, new byte[100]);
+        assertTrue(file.setLastModified(1_000_000L));
+
+        assertEquals(file, cache.get(1, URI_A));
+        assertEquals(1_000_000L, file.lastModified());
+
+        cache.put(2, URI_A, new byte[100]);
+        assertTrue(file.lastModified() > 1_000_000L);
+    }
+
+    @Test
+    public void externallyDeletedFile_isDroppedOnNextWrite() throws IOException {
+        ThumbnailDiskCache cache = new ThumbnailDiskCache(temporaryFolder.newFolder("thumbs"), 1024);
+        File file = cache.put(1, URI_A, new byte[100]);
+        // 系统清理了缓存目录
+        assertTrue(file.delete());
+        assertNotNull(cache.get(1, URI_A));
+
+        cache.put(2, URI_A, new byte[40]);
+        assertNull(cache.get(1, URI_A));
+        assertEquals(40, cache.size());
+    }
+}
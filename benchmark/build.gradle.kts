@@ -0,0 +1,38 @@
+// JMH 基准测试模块，与单元测试分开运行：./gradlew :benchmark:jmh
+// 只运行部分基准：./gradlew :benchmark:jmh -PjmhIncludes=VideoFeedLoaderBenchmark
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// 直接编译 app 模块中不依赖 Android 的源码，基准测的就是应用里的实现
+sourceSets {
+    main {
+        java {
+            setSrcDirs(listOf("../app/src/main/java"))
+            include("com/example/douyinline/bean/**")
+            include("com/example/douyinline/repository/AuthorRegistry.java")
+            include("com/example/douyinline/repository/CommentCounter.java")
+            include("com/example/douyinline/repository/FeedRanker.java")
+            include("com/example/douyinline/repository/FeedShuffler.java")
+            include("com/example/douyinline/repository/VideoCounterStore.java")
+            include("com/example/douyinline/repository/VideoFeedLoader.java")
+        }
+    }
+}
+
+dependencies {
+    implementation(libs.gson)
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    // 同时统计每次操作的分配量（gc.alloc.rate.norm）
+    profilers.add("gc")
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes.add(it) }
+}
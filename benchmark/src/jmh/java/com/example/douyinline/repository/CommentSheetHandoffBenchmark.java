@@ -0,0 +1,134 @@
+package com.example.douyinline.repository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 打开评论弹窗时传递参数的耗时对比
+ * 之前：putSerializable 整个视频对象，Parcel 内部经 ObjectOutputStream/ObjectInputStream 反射序列化，
+ *      视频类已经不再实现 Serializable，这里用字段相同的旧结构作为基线
+ * 之后：参数只有视频ID、评论数和位置，打开时由 CommentCounter 从计数存储读取评论数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommentSheetHandoffBenchmark {
+    private static final int VIDEO_COUNT = 1000;
+
+    private LegacyVideoBean[] legacyVideos;
+    private VideoCounterStore store;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        legacyVideos = new LegacyVideoBean[VIDEO_COUNT];
+        store = new VideoCounterStore();
+        LegacyAuthorBean author = new LegacyAuthorBean(1, "作者", 100);
+        for (int i = 0; i < VIDEO_COUNT; i++) {
+            long id = i + 1;
+            legacyVideos[i] = new LegacyVideoBean(id, (int) id, (int) id, "视频标题" + id, author,
+                    i % 1000, i % 500, i % 200, i % 100);
+            store.register(id, i % 1000, i % 500, i % 200, i % 100, false, false);
+        }
+    }
+
+    @Benchmark
+    public int serializableVideo() throws IOException, ClassNotFoundException {
+        LegacyVideoBean video = legacyVideos[nextIndex()];
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(video);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return ((LegacyVideoBean) in.readObject()).commentCount;
+        }
+    }
+
+    @Benchmark
+    public int primitiveArgs() throws IOException {
+        int index = nextIndex();
+        long videoId = index + 1;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(videoId);
+            out.writeInt(store.getCommentCount(videoId));
+            out.writeInt(index);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            long id = in.readLong();
+            int commentCount = in.readInt();
+            in.readInt();
+            return new CommentCounter(store, id, commentCount).get();
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = (index + 1) % VIDEO_COUNT;
+        return index;
+    }
+
+    /**
+     * 旧的视频类结构：计数字段存在对象上，整个对象经 Serializable 传给弹窗
+     */
+    static class LegacyVideoBean implements Serializable {
+        long videoId;
+        int coverResourceId;
+        int videoResourceId;
+        String title;
+        LegacyAuthorBean authorDetail;
+        int likeCount;
+        int commentCount;
+        int shareCount;
+        int collectCount;
+        boolean isLiked;
+        boolean isCollected;
+
+        LegacyVideoBean(long videoId, int coverResourceId, int videoResourceId, String title,
+                        LegacyAuthorBean authorDetail, int likeCount, int commentCount,
+                        int shareCount, int collectCount) {
+            this.videoId = videoId;
+            this.coverResourceId = coverResourceId;
+            this.videoResourceId = videoResourceId;
+            this.title = title;
+            this.authorDetail = authorDetail;
+            this.likeCount = likeCount;
+            this.commentCount = commentCount;
+            this.shareCount = shareCount;
+            this.collectCount = collectCount;
+        }
+    }
+
+    static class LegacyAuthorBean implements Serializable {
+        long authorId;
+        String authorName;
+        int authorAvatar;
+
+        LegacyAuthorBean(long authorId, String authorName, int authorAvatar) {
+            this.authorId = authorId;
+            this.authorName = authorName;
+            this.authorAvatar = authorAvatar;
+        }
+    }
+}
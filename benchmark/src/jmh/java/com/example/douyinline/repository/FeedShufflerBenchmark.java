@@ -0,0 +1,64 @@
+package com.example.douyinline.repository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 推荐流乱序对比
+ * 之前：reshuffle() 每轮新建装箱的 ArrayList<Integer> 再 Collections.shuffle
+ * 之后：FeedShuffler 在复用的 int[] 上带种子乱序，并处理两轮衔接处的不重复窗口
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeedShufflerBenchmark {
+    private static final int NO_REPEAT_WINDOW = 10;
+    private static final long SEED = 42L;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int poolSize;
+
+    private FeedShuffler shuffler;
+    private int round;
+
+    @Setup
+    public void setUp() {
+        // 仓库中的乱序引擎是复用的，数组只在视频池变大时扩容
+        shuffler = new FeedShuffler(NO_REPEAT_WINDOW);
+        round = 0;
+    }
+
+    @Benchmark
+    public int feedShuffler() {
+        shuffler.shuffle(SEED, round++, poolSize);
+        return shuffler.get(0);
+    }
+
+    @Benchmark
+    public int boxedReshuffle() {
+        List<Integer> shuffleList = new ArrayList<>();
+        for (int i = 0; i < poolSize; i++) {
+            shuffleList.add(i);
+        }
+        Collections.shuffle(shuffleList, new Random(SEED * 31 + round++));
+        return shuffleList.get(0);
+    }
+}
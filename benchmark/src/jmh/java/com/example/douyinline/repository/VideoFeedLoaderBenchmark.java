@@ -0,0 +1,110 @@
+package com.example.douyinline.repository;
+
+import com.google.gson.Gson;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VideoFeedLoader 流式解析与 Gson fromJson 全量解析对比
+ * 耗时看 avgt，分配量看 gc 分析器的 gc.alloc.rate.norm：
+ * 流式解析逐页交给回调，不构建整个文件的对象树
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VideoFeedLoaderBenchmark {
+    private static final int PAGE_SIZE = 10;
+
+    @Param({"10000", "50000"})
+    public int entryCount;
+
+    private String json;
+    private Gson gson;
+
+    @Setup
+    public void setUp() {
+        json = buildFeedJson(entryCount);
+        gson = new Gson();
+    }
+
+    @Benchmark
+    public int streaming(Blackhole blackhole) throws IOException {
+        // 用名称的哈希模拟资源ID
+        VideoFeedLoader loader = new VideoFeedLoader((type, name) -> (type + name).hashCode(),
+                new AuthorRegistry(), new VideoCounterStore(), PAGE_SIZE);
+        return loader.load(new StringReader(json), blackhole::consume);
+    }
+
+    @Benchmark
+    public int fromJson() {
+        // fromJson 必须整个文件解析完才能拿到第一条数据
+        FeedJson feed = gson.fromJson(new StringReader(json), FeedJson.class);
+        return feed.videos.size();
+    }
+
+    private static String buildFeedJson(int count) {
+        StringBuilder sb = new StringBuilder("{\"version\":1,\"videos\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(i + 1)
+                    .append(",\"title\":\"视频标题").append(i).append('"')
+                    .append(",\"video\":\"video_").append(i % 10 + 1).append('"')
+                    .append(",\"cover\":\"img_cover_").append(i % 10 + 1).append('"')
+                    .append(",\"likeCount\":").append(i % 1000)
+                    .append(",\"commentCount\":").append(i % 500)
+                    .append(",\"shareCount\":").append(i % 200)
+                    .append(",\"collectCount\":").append(i % 100)
+                    .append(",\"extra\":{\"ignored\":[1,2,3]}")
+                    .append(",\"author\":{\"id\":").append(i % 10 + 1)
+                    .append(",\"name\":\"作者").append(i % 10)
+                    .append("\",\"avatar\":\"img_avatar_").append(i % 10 + 1).append("\"}}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    /**
+     * fromJson 全量解析使用的数据结构，与 VideoFeed.json 的字段对应
+     */
+    static class FeedJson {
+        List<VideoJson> videos;
+    }
+
+    static class VideoJson {
+        long id;
+        String title;
+        String video;
+        String cover;
+        int likeCount;
+        int commentCount;
+        int shareCount;
+        int collectCount;
+        AuthorJson author;
+    }
+
+    static class AuthorJson {
+        long id;
+        String name;
+        String avatar;
+    }
+}